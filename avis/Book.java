@@ -1,6 +1,6 @@
 package avis;
 
-import java.util.LinkedList;
+import java.io.IOException;
 
 /**
  * Représente un livre
@@ -33,7 +33,6 @@ public class Book extends Item {
 		this.genre = genre;
 		this.auteur = auteur;
 		this.nbPages = nbPages;
-		reviews = new LinkedList<Review>();
 	}
 	
 	/**
@@ -44,20 +43,47 @@ public class Book extends Item {
 		return titre;
 	}
 	
+	/**
+	 * Renvoie le genre du Book courant
+	 * @return le genre du Book courant
+	 */
+	public String getGenre() {
+		return genre;
+	}
+	
+	/**
+	 * Renvoie l'auteur du Book courant
+	 * @return l'auteur du Book courant
+	 */
+	public String getAuteur() {
+		return auteur;
+	}
+	
+	/**
+	 * Renvoie le nombre de pages du Book courant
+	 * @return le nombre de pages du Book courant
+	 */
+	public int getNbPages() {
+		return nbPages;
+	}
+	
 	
 	/**
-	 * Renvoie un String décrivant le Book
+	 * Ecrit la description du Book dans out, avis compris
+	 */
+	public void writeTo(Appendable out) throws IOException {
+		writeEnteteTo(out);
+		writeReviewsTo(out);
+	}
+
+	/**
+	 * Ecrit le titre, le genre, l'auteur et le nombre de pages du Book dans out
 	 */
-	public String toString() {
-		String s= "\nTitre : "+ this.titre +"\n";
-		s+= "Genre : " + this.genre + "\n";
-		s+= "Auteur : " + this.auteur + "\n";
-		s+= "Nombre de pages : " + this.nbPages + "\n";
-		s+= "Note moyenne : " + this.moyenneNotesReview() + "/5 \n";
-		s+= "Avis : \n";
-		for(Review avis:reviews) // Ajoute tous les avis déposés sur ce Book
-			s+= avis + "\n";
-		return s;
+	protected void writeEnteteTo(Appendable out) throws IOException {
+		out.append("\nTitre : ").append(this.titre).append('\n');
+		out.append("Genre : ").append(this.genre).append('\n');
+		out.append("Auteur : ").append(this.auteur).append('\n');
+		out.append("Nombre de pages : ").append(String.valueOf(this.nbPages)).append('\n');
 	}
 	
 }
@@ -0,0 +1,134 @@
+package avis;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache des représentations textuelles des items d'un <i>SocialNetwork</i>, borné par un budget en octets.
+ * <p>
+ * Chaque représentation est mémorisée avec la version de l'item à laquelle elle a été construite ; un item
+ * change de version à chaque modification, et sa représentation n'est alors plus servie. Lorsque le budget est
+ * dépassé, les représentations sont évincées selon l'algorithme de l'horloge, approximation de LRU : une aiguille
+ * parcourt la table et évince la première représentation qui n'a pas été lue depuis son dernier passage.
+ * </p>
+ * <p>
+ * La table est une ConcurrentHashMap : une lecture ne prend aucun verrou, et se contente de marquer la
+ * représentation comme lue. Une représentation est construite sous le verrou de l'item ; seule l'éviction
+ * est sérialisée, par le verrou du cache.
+ * </p>
+ * @author Yann Andreu et Yannick Omnès
+ *
+ */
+class CacheRepresentations {
+
+	/**
+	 * Représentation d'un item à une version donnée
+	 */
+	static final class Representation {
+		final String texte;
+		final int version;
+		// Lue depuis le dernier passage de l'aiguille
+		volatile boolean lue = true;
+
+		Representation(String texte, int version) {
+			this.texte = texte;
+			this.version = version;
+		}
+
+		/** estimation de la mémoire occupée : 2 octets par caractère, plus l'entête des objets */
+		long octets() {
+			return 2L * texte.length() + 64;
+		}
+	}
+
+	private final ConcurrentHashMap<Item, Representation> representations = new ConcurrentHashMap<Item, Representation>();
+	private volatile long budget;
+	private final AtomicLong occupe = new AtomicLong();
+
+	// Position de l'aiguille dans la table (sous le verrou du cache)
+	private Iterator<Map.Entry<Item, Representation>> aiguille;
+
+	/**
+	 * @param budget mémoire maximale occupée par les représentations, en octets
+	 */
+	CacheRepresentations(long budget) {
+		setBudget(budget);
+	}
+
+	/**
+	 * Modifie le budget, en évinçant si besoin des représentations
+	 */
+	synchronized void setBudget(long budget) {
+		if (budget<0)
+			throw new IllegalArgumentException("Le budget du cache doit être positif.");
+		this.budget = budget;
+		evincer();
+	}
+
+	/**
+	 * @return la représentation d'un item, construite si elle n'est pas en cache à la version actuelle de l'item
+	 */
+	String representation(Item item) {
+		Representation r = representations.get(item);
+		if (r!=null && r.version==item.version()) {
+			if (!r.lue) // pas d'écriture si elle est déjà marquée
+				r.lue = true;
+			return r.texte;
+		}
+		r = item.representer();
+		if (r.octets()>budget)
+			return r.texte;
+		for (;;) {
+			Representation enCache = representations.get(item);
+			// Une représentation plus récente, construite en parallèle, est conservée
+			if (enCache!=null && enCache.version>=r.version)
+				break;
+			if (enCache==null ? representations.putIfAbsent(item, r)==null : representations.replace(item, enCache, r)) {
+				occupe.addAndGet(r.octets() - ((enCache==null) ? 0 : enCache.octets()));
+				if (occupe.get()>budget)
+					evincer();
+				break;
+			}
+		}
+		return r.texte;
+	}
+
+	/**
+	 * Retire la représentation d'un item modifié, pour libérer sa place sans attendre son éviction
+	 */
+	void invalider(Item item) {
+		Representation r = representations.remove(item);
+		if (r!=null)
+			occupe.addAndGet(-r.octets());
+	}
+
+	/**
+	 * @return la mémoire occupée par les représentations en cache, en octets
+	 */
+	long occupe() {
+		return occupe.get();
+	}
+
+	/**
+	 * Fait avancer l'aiguille jusqu'à revenir dans le budget : une représentation lue perd sa marque,
+	 * une représentation non lue est évincée. Après deux tours de table, les marques sont ignorées.
+	 */
+	private synchronized void evincer() {
+		int tours = 0;
+		while (occupe.get()>budget) {
+			if (aiguille==null || !aiguille.hasNext()) {
+				aiguille = representations.entrySet().iterator();
+				if (!aiguille.hasNext() || ++tours>3)
+					return;
+			}
+			Map.Entry<Item, Representation> e = aiguille.next();
+			Representation r = e.getValue();
+			if (r.lue && tours<=2)
+				r.lue = false;
+			else if (representations.remove(e.getKey(), r))
+				occupe.addAndGet(-r.octets());
+		}
+	}
+}
@@ -0,0 +1,21 @@
+package avis;
+
+/**
+ * Catégories d'erreur des opérations du <i>SocialNetwork</i>, une par exception de l'API.
+ * @author Yann Andreu et Yannick Omnès
+ *
+ */
+public enum CategorieErreur {
+	/** paramètres incorrects, voir exception.BadEntry */
+	BAD_ENTRY,
+	/** membre inconnu ou password incorrect, voir exception.NotMember */
+	NOT_MEMBER,
+	/** item inconnu, voir exception.NotItem */
+	NOT_ITEM,
+	/** pseudo déjà utilisé, voir exception.MemberAlreadyExists */
+	MEMBER_ALREADY_EXISTS,
+	/** film de même titre déjà présent, voir exception.ItemFilmAlreadyExists */
+	ITEM_FILM_ALREADY_EXISTS,
+	/** livre de même titre déjà présent, voir exception.ItemBookAlreadyExists */
+	ITEM_BOOK_ALREADY_EXISTS
+}
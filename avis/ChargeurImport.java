@@ -0,0 +1,284 @@
+package avis;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Lecture de fichiers d'import CSV ou JSONL en un LotImport.
+ * <p>
+ * Chaque ligne décrit une opération : son type (<tt>membre</tt>, <tt>film</tt>, <tt>livre</tt>, <tt>avis_film</tt>
+ * ou <tt>avis_livre</tt>) suivi des paramètres de l'opération unitaire correspondante.
+ * </p>
+ * <ul>
+ *  <li> CSV : les paramètres sont donnés dans l'ordre de l'opération, séparés par des virgules, éventuellement entre
+ *  guillemets (un guillemet s'écrit alors ""). Par exemple <tt>film,Paul,paul,Oblivion,SF,Joseph Kosinski,Joseph Kosinski,124</tt>.
+ *  Une première ligne commençant par <tt>type,</tt> est considérée comme un en-tête. </li>
+ *  <li> JSONL : un objet JSON par ligne, dont les clés sont <tt>type</tt> et les noms des paramètres de l'opération.
+ *  Par exemple <tt>{"type":"avis_film","pseudo":"Paul","password":"paul","titre":"Oblivion","note":4,"commentaire":"pas mal"}</tt>. </li>
+ * </ul>
+ * <p>
+ * Les lignes sont lues par blocs et chaque bloc est analysé en parallèle. Une ligne mal formée n'interrompt pas
+ * la lecture : elle est rejetée avec la catégorie BAD_ENTRY lors de l'import.
+ * Les lignes vides sont ignorées.
+ * </p>
+ * @author Yann Andreu et Yannick Omnès
+ *
+ */
+public class ChargeurImport {
+
+	private static final int TAILLE_BLOC = 16384;
+
+	/**
+	 * Lit un fichier d'import. Le format est déduit de l'extension : <tt>.jsonl</tt> ou <tt>.json</tt> pour JSONL, CSV sinon.
+	 * @param fichier fichier à lire, encodé en UTF-8
+	 * @return le lot des lignes lues, numérotées comme dans le fichier
+	 * @throws IOException si le fichier ne peut être lu
+	 */
+	public static LotImport charger(Path fichier) throws IOException {
+		String nom = fichier.getFileName().toString().toLowerCase();
+		final boolean json = nom.endsWith(".jsonl") || nom.endsWith(".json");
+		LotImport lot = new LotImport();
+		try (BufferedReader in = Files.newBufferedReader(fichier, StandardCharsets.UTF_8)) {
+			final String[] bloc = new String[TAILLE_BLOC];
+			final int[] numeros = new int[TAILLE_BLOC];
+			final LotImport.Ligne[] lues = new LotImport.Ligne[TAILLE_BLOC];
+			int numero = 0;
+			String texte;
+			boolean fin = false;
+			while (!fin) {
+				int n = 0;
+				while (n < TAILLE_BLOC) {
+					texte = in.readLine();
+					if (texte == null) {
+						fin = true;
+						break;
+					}
+					numero++;
+					if (!Validation.nonBlanc(texte) || (numero == 1 && !json && texte.startsWith("type,")))
+						continue;
+					bloc[n] = texte;
+					numeros[n++] = numero;
+				}
+				IntStream.range(0, n).parallel().forEach(new IntConsumer() {
+					public void accept(int i) {
+						lues[i] = json ? analyserJson(bloc[i]) : analyserCsv(bloc[i]);
+						lues[i].numero = numeros[i];
+					}
+				});
+				for (int i = 0; i < n; i++)
+					lot.ajouter(lues[i]);
+				Arrays.fill(lues, null);
+			}
+		}
+		return lot;
+	}
+
+	//===================================== CSV ==============================================================
+
+	static LotImport.Ligne analyserCsv(String texte) {
+		ArrayList<String> champs = new ArrayList<String>(8);
+		if (texte.indexOf('"') < 0) { // cas courant : pas de guillemets, découpage direct
+			int debut = 0;
+			int virgule;
+			while ((virgule = texte.indexOf(',', debut)) >= 0) {
+				champs.add(texte.substring(debut, virgule));
+				debut = virgule + 1;
+			}
+			champs.add(texte.substring(debut));
+			return construireCsv(champs);
+		}
+		StringBuilder champ = new StringBuilder();
+		boolean entreGuillemets = false;
+		for (int i = 0; i < texte.length(); i++) {
+			char c = texte.charAt(i);
+			if (entreGuillemets) {
+				if (c == '"') {
+					if (i + 1 < texte.length() && texte.charAt(i + 1) == '"') {
+						champ.append('"');
+						i++;
+					}
+					else
+						entreGuillemets = false;
+				}
+				else
+					champ.append(c);
+			}
+			else if (c == '"')
+				entreGuillemets = true;
+			else if (c == ',') {
+				champs.add(champ.toString());
+				champ.setLength(0);
+			}
+			else
+				champ.append(c);
+		}
+		champs.add(champ.toString());
+		if (entreGuillemets)
+			return malFormee("guillemet non fermé");
+		return construireCsv(champs);
+	}
+
+	private static LotImport.Ligne construireCsv(ArrayList<String> champs) {
+		LotImport.Type type = LotImport.Type.depuisNom(champs.get(0).trim());
+		if (type == null)
+			return malFormee("type de ligne inconnu : " + champs.get(0));
+		int nbParametres = PARAMETRES[type.ordinal()].length;
+		if (champs.size() != nbParametres + 1)
+			return malFormee("une ligne " + type.nom + " doit avoir " + nbParametres + " paramètres");
+		return construire(type, champs.subList(1, champs.size()).toArray(new String[nbParametres]));
+	}
+
+	// Paramètres de chaque type de ligne (indexés par LotImport.Type.ordinal()), dans l'ordre des opérations unitaires
+	private static final String[][] PARAMETRES = {
+		{"pseudo", "password", "profil"},
+		{"pseudo", "password", "titre", "genre", "realisateur", "scenariste", "duree"},
+		{"pseudo", "password", "titre", "genre", "auteur", "nbPages"},
+		{"pseudo", "password", "titre", "note", "commentaire"},
+		{"pseudo", "password", "titre", "note", "commentaire"}
+	};
+
+	//===================================== JSONL ============================================================
+
+	static LotImport.Ligne analyserJson(String texte) {
+		HashMap<String, String> valeurs = new HashMap<String, String>();
+		int[] pos = {0};
+		try {
+			espaces(texte, pos);
+			attendre(texte, pos, '{');
+			espaces(texte, pos);
+			if (texte.charAt(pos[0]) != '}')
+				while (true) {
+					espaces(texte, pos);
+					String cle = chaineJson(texte, pos);
+					espaces(texte, pos);
+					attendre(texte, pos, ':');
+					espaces(texte, pos);
+					valeurs.put(cle, valeurJson(texte, pos));
+					espaces(texte, pos);
+					if (texte.charAt(pos[0]) == ',')
+						pos[0]++;
+					else
+						break;
+				}
+			attendre(texte, pos, '}');
+		}
+		catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+			return malFormee("JSON mal formé");
+		}
+		String nomType = valeurs.get("type");
+		LotImport.Type type = (nomType != null) ? LotImport.Type.depuisNom(nomType) : null;
+		if (type == null)
+			return malFormee("type de ligne inconnu : " + nomType);
+		String[] noms = PARAMETRES[type.ordinal()];
+		String[] v = new String[noms.length];
+		for (int i = 0; i < noms.length; i++)
+			v[i] = valeurs.get(noms[i]);
+		return construire(type, v);
+	}
+
+	private static void espaces(String t, int[] pos) {
+		while (pos[0] < t.length() && Character.isWhitespace(t.charAt(pos[0])))
+			pos[0]++;
+	}
+
+	private static void attendre(String t, int[] pos, char c) {
+		if (t.charAt(pos[0]) != c)
+			throw new IllegalArgumentException();
+		pos[0]++;
+	}
+
+	private static String chaineJson(String t, int[] pos) {
+		attendre(t, pos, '"');
+		StringBuilder s = new StringBuilder();
+		while (true) {
+			char c = t.charAt(pos[0]++);
+			if (c == '"')
+				return s.toString();
+			if (c != '\\') {
+				s.append(c);
+				continue;
+			}
+			char e = t.charAt(pos[0]++);
+			switch (e) {
+			case 'n': s.append('\n'); break;
+			case 't': s.append('\t'); break;
+			case 'r': s.append('\r'); break;
+			case 'b': s.append('\b'); break;
+			case 'f': s.append('\f'); break;
+			case 'u':
+				s.append((char) Integer.parseInt(t.substring(pos[0], pos[0] + 4), 16));
+				pos[0] += 4;
+				break;
+			default: s.append(e); // \" \\ \/
+			}
+		}
+	}
+
+	// Renvoie une valeur scalaire sous forme de texte (null pour null)
+	private static String valeurJson(String t, int[] pos) {
+		char c = t.charAt(pos[0]);
+		if (c == '"')
+			return chaineJson(t, pos);
+		int debut = pos[0];
+		while (pos[0] < t.length() && ",} \t".indexOf(t.charAt(pos[0])) < 0)
+			pos[0]++;
+		String brut = t.substring(debut, pos[0]);
+		if (brut.equals("null"))
+			return null;
+		if (brut.isEmpty() || c == '{' || c == '[')
+			throw new IllegalArgumentException();
+		return brut;
+	}
+
+	//===================================== CONSTRUCTION DES LIGNES ==========================================
+
+	// v contient les paramètres dans l'ordre de PARAMETRES
+	private static LotImport.Ligne construire(LotImport.Type type, String[] v) {
+		LotImport.Ligne l = new LotImport.Ligne();
+		l.type = type;
+		l.pseudo = v[0];
+		l.password = v[1];
+		try {
+			switch (type) {
+			case MEMBRE:
+				l.profil = v[2];
+				break;
+			case FILM:
+				l.titre = v[2];
+				l.genre = v[3];
+				l.realisateur = v[4];
+				l.scenariste = v[5];
+				l.entier = Integer.parseInt(v[6].trim());
+				break;
+			case BOOK:
+				l.titre = v[2];
+				l.genre = v[3];
+				l.auteur = v[4];
+				l.entier = Integer.parseInt(v[5].trim());
+				break;
+			default:
+				l.titre = v[2];
+				l.note = Float.parseFloat(v[3].trim());
+				l.commentaire = v[4];
+			}
+		}
+		catch (NumberFormatException | NullPointerException e) {
+			l.rejeter(CategorieErreur.BAD_ENTRY, "valeur numérique absente ou incorrecte");
+		}
+		return l;
+	}
+
+	private static LotImport.Ligne malFormee(String message) {
+		LotImport.Ligne l = new LotImport.Ligne();
+		l.rejeter(CategorieErreur.BAD_ENTRY, "ligne mal formée : " + message);
+		return l;
+	}
+}
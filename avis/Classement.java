@@ -0,0 +1,106 @@
+package avis;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Classement des items d'un type (ou d'un genre) par note moyenne décroissante, tenu à jour à chaque
+ * changement de moyenne d'un item : dépôt ou modification d'une review, changement de karma d'un auteur.
+ * <p>
+ * Seuls les items ayant reçu au moins nbReviewsMin reviews sont classés, pour qu'un item noté une seule fois
+ * ne puisse pas occuper la tête du classement. A moyenne égale, l'item créé le premier est classé devant.
+ * </p>
+ * <p>
+ * Chaque item classé y figure par une entrée immuable portant la moyenne au moment du classement ;
+ * une mise à jour retire l'ancienne entrée et insère la nouvelle en O(log N), sous le verrou de l'item.
+ * Les k premiers items sont lus en O(log N + k), sans verrou ; un item déplacé pendant la lecture
+ * n'y figure qu'une fois.
+ * </p>
+ * @author Yann Andreu et Yannick Omnès
+ *
+ * @param <I> type des items classés
+ */
+class Classement<I extends Item> {
+
+	/**
+	 * Position d'un item dans un classement
+	 */
+	static final class Entree {
+		final Item item;
+		final float moyenne;
+
+		Entree(Item item, float moyenne) {
+			this.item = item;
+			this.moyenne = moyenne;
+		}
+	}
+
+	private static final Comparator<Entree> ORDRE = new Comparator<Entree>() {
+		public int compare(Entree a, Entree b) {
+			int c = Float.compare(b.moyenne, a.moyenne);
+			return (c != 0) ? c : Long.compare(a.item.numero, b.item.numero);
+		}
+	};
+
+	private final ConcurrentSkipListSet<Entree> entrees = new ConcurrentSkipListSet<Entree>(ORDRE);
+	private volatile int nbReviewsMin;
+
+	/**
+	 * @param nbReviewsMin nombre minimal de reviews pour qu'un item soit classé
+	 */
+	Classement(int nbReviewsMin) {
+		this.nbReviewsMin = nbReviewsMin;
+	}
+
+	/**
+	 * Modifie le seuil de classement. Les items déjà classés ne sont reclassés qu'à leur prochaine mise à jour :
+	 * l'appelant doit donc reclasser tous les items.
+	 */
+	void setNbReviewsMin(int nbReviewsMin) {
+		this.nbReviewsMin = nbReviewsMin;
+	}
+
+	/**
+	 * Met à jour la position d'un item, sous le verrou de l'item.
+	 * @param ancienne entrée actuelle de l'item dans ce classement, null s'il n'y est pas
+	 * @param moyenne nouvelle moyenne de l'item
+	 * @param nbReviews nombre de reviews de l'item
+	 * @return la nouvelle entrée de l'item, null s'il n'est pas classé
+	 */
+	Entree mettreAJour(Item item, Entree ancienne, float moyenne, int nbReviews) {
+		if (ancienne != null) {
+			if (ancienne.moyenne == moyenne && nbReviews >= nbReviewsMin)
+				return ancienne;
+			entrees.remove(ancienne);
+		}
+		if (nbReviews < nbReviewsMin)
+			return null;
+		Entree nouvelle = new Entree(item, moyenne);
+		entrees.add(nouvelle);
+		return nouvelle;
+	}
+
+	/**
+	 * @param k nombre d'items demandés
+	 * @return les k items les mieux notés (moins s'il y a moins de k items classés), du mieux noté au moins bien noté
+	 */
+	@SuppressWarnings("unchecked")
+	List<I> premiers(int k) {
+		ArrayList<I> premiers = new ArrayList<I>(Math.min(k, 1024));
+		Set<Item> vus = Collections.newSetFromMap(new IdentityHashMap<Item, Boolean>());
+		Iterator<Entree> it = entrees.iterator();
+		while (premiers.size() < k && it.hasNext()) {
+			Item item = it.next().item;
+			if (vus.add(item))
+				premiers.add((I) item);
+		}
+		return premiers;
+	}
+
+}
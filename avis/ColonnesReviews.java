@@ -0,0 +1,303 @@
+package avis;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Reviews d'un item rangées en colonnes de types primitifs : une review est un rang, commun à toutes les colonnes,
+ * attribué dans l'ordre de dépôt et jamais réutilisé.
+ * <p>
+ * Les commentaires sont stockés en UTF-8 dans un unique tableau d'octets, chacun précédé de sa longueur en varint ;
+ * la colonne des commentaires donne leur position. Un commentaire remplacé est ajouté à la fin du tableau, qui est
+ * compacté lorsque les commentaires remplacés y occupent plus de place que les commentaires actuels.
+ * Les rangs sont retrouvés à partir de l'auteur par une table à adressage ouvert, qui ne contient que des entiers.
+ * </p>
+ * <p>
+ * Aucun objet n'est conservé par review, hormis les évaluations, créées à la première évaluation d'une review.
+ * Les objets Review ne sont construits qu'à la demande, par Item.
+ * Cette classe n'est pas thread-safe : elle est protégée par le verrou de l'item.
+ * </p>
+ * @author Yann Andreu et Yannick Omnès
+ *
+ */
+final class ColonnesReviews {
+
+	private static final Member[] AUCUN_MEMBRE = new Member[0];
+	private static final float[] AUCUN_FLOAT = new float[0];
+	private static final int[] AUCUN_INT = new int[0];
+	private static final byte[] AUCUN_OCTET = new byte[0];
+
+	// Position d'un commentaire non instancié
+	private static final int SANS_COMMENTAIRE = -1;
+
+	private int nb = 0;
+
+	// Colonnes, de même capacité : auteur, note, poids (karma de l'auteur), position du commentaire,
+	// numéro du commentaire dans l'index des commentaires (-1 s'il n'est pas indexé)
+	private Member[] membres = AUCUN_MEMBRE;
+	private float[] notes = AUCUN_FLOAT;
+	private float[] poids = AUCUN_FLOAT;
+	private int[] commentaires = AUCUN_INT;
+	private int[] docs = AUCUN_INT;
+
+	// Commentaires encodés, et place occupée par les commentaires remplacés
+	private byte[] textes = AUCUN_OCTET;
+	private int tailleTextes = 0;
+	private int octetsRemplaces = 0;
+
+	// Rang + 1 de la review de chaque auteur, 0 pour une case vide ; la taille est une puissance de 2
+	private int[] rangsParMembre = AUCUN_INT;
+
+	// Evaluations de chaque review évaluée, par rang
+	private HashMap<Integer, HashMap<Member, Float>> evaluations;
+
+	/**
+	 * @return le nombre de reviews
+	 */
+	int taille() {
+		return nb;
+	}
+
+	/**
+	 * @return le rang de la review d'un membre, -1 s'il n'en a pas déposé
+	 */
+	int rang(Member membre) {
+		if (nb == 0)
+			return -1;
+		int masque = rangsParMembre.length - 1;
+		for (int i = hacher(membre) & masque; ; i = (i + 1) & masque) {
+			int r = rangsParMembre[i] - 1;
+			if (r < 0)
+				return -1;
+			if (membres[r].equals(membre))
+				return r;
+		}
+	}
+
+	/**
+	 * Ajoute la review d'un membre qui n'en a pas encore déposé
+	 * @return le rang de la nouvelle review
+	 */
+	int ajouter(Member membre, float note, String commentaire, float poidsReview) {
+		if (nb == membres.length)
+			agrandir();
+		if ((nb + 1) * 4 > rangsParMembre.length * 3)
+			redimensionnerTable(Math.max(8, rangsParMembre.length * 2));
+		int r = nb++;
+		membres[r] = membre;
+		notes[r] = note;
+		poids[r] = poidsReview;
+		commentaires[r] = ecrireTexte(encoder(commentaire));
+		docs[r] = -1;
+		placer(r);
+		return r;
+	}
+
+	Member membre(int rang) {
+		return membres[rang];
+	}
+
+	float note(int rang) {
+		return notes[rang];
+	}
+
+	void setNote(int rang, float note) {
+		notes[rang] = note;
+	}
+
+	float poids(int rang) {
+		return poids[rang];
+	}
+
+	void setPoids(int rang, float poidsReview) {
+		poids[rang] = poidsReview;
+	}
+
+	int doc(int rang) {
+		return docs[rang];
+	}
+
+	void setDoc(int rang, int doc) {
+		docs[rang] = doc;
+	}
+
+	/**
+	 * @return le rang de la review dont le commentaire est indexé sous ce numéro, -1 s'il n'y en a pas
+	 * (parcours de la colonne, pour les rangs que l'index ne conserve pas)
+	 */
+	int rangIndexe(int doc) {
+		for (int r = nb - 1; r >= 0; r--)
+			if (docs[r] == doc)
+				return r;
+		return -1;
+	}
+
+	/**
+	 * Décode le commentaire d'une review
+	 * @return le commentaire, null s'il n'était pas instancié
+	 */
+	String commentaire(int rang) {
+		int p = commentaires[rang];
+		if (p == SANS_COMMENTAIRE)
+			return null;
+		return new String(textes, debutTexte(p), longueurTexte(p), StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Remplace le commentaire d'une review, sauf s'il est identique
+	 * @return true si le commentaire a changé
+	 */
+	boolean remplacerCommentaire(int rang, String commentaire) {
+		int ancien = commentaires[rang];
+		byte[] octets = encoder(commentaire);
+		if (ancien == SANS_COMMENTAIRE ? octets == null : octets != null && egal(ancien, octets))
+			return false;
+		if (ancien != SANS_COMMENTAIRE)
+			octetsRemplaces += debutTexte(ancien) - ancien + longueurTexte(ancien);
+		commentaires[rang] = ecrireTexte(octets);
+		if (octetsRemplaces > 64 && octetsRemplaces > tailleTextes - octetsRemplaces)
+			compacter();
+		return true;
+	}
+
+	/**
+	 * @return les évaluations d'une review par les autres membres, null si elle n'a pas été évaluée
+	 */
+	HashMap<Member, Float> evaluations(int rang) {
+		return (evaluations == null) ? null : evaluations.get(rang);
+	}
+
+	/**
+	 * Ajoute ou modifie l'évaluation d'une review par un membre
+	 * @return l'ancienne note de l'évaluateur, null s'il n'avait pas encore évalué cette review
+	 */
+	Float evaluer(int rang, Member evaluateur, float note) {
+		if (evaluations == null)
+			evaluations = new HashMap<Integer, HashMap<Member, Float>>();
+		HashMap<Member, Float> e = evaluations.get(rang);
+		if (e == null)
+			evaluations.put(rang, e = new HashMap<Member, Float>(4));
+		return e.put(evaluateur, note);
+	}
+
+	/**
+	 * @return la mémoire occupée par les colonnes, les commentaires et la table des auteurs, en octets
+	 * (références compressées de 4 octets, évaluations non comprises)
+	 */
+	long octets() {
+		return membres.length * 4L + (notes.length + poids.length + commentaires.length + docs.length) * 4L
+				+ textes.length + rangsParMembre.length * 4L;
+	}
+
+	//===================================== STOCKAGE =========================================================
+
+	private static int hacher(Member membre) {
+		int h = membre.hashCode();
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * Inscrit une review dans la table des auteurs
+	 */
+	private void placer(int rang) {
+		int masque = rangsParMembre.length - 1;
+		int i = hacher(membres[rang]) & masque;
+		while (rangsParMembre[i] != 0)
+			i = (i + 1) & masque;
+		rangsParMembre[i] = rang + 1;
+	}
+
+	private void redimensionnerTable(int taille) {
+		rangsParMembre = new int[taille];
+		for (int r = 0; r < nb; r++)
+			placer(r);
+	}
+
+	private void agrandir() {
+		int capacite = Math.max(4, nb + (nb >> 1));
+		membres = Arrays.copyOf(membres, capacite);
+		notes = Arrays.copyOf(notes, capacite);
+		poids = Arrays.copyOf(poids, capacite);
+		commentaires = Arrays.copyOf(commentaires, capacite);
+		docs = Arrays.copyOf(docs, capacite);
+	}
+
+	private static byte[] encoder(String commentaire) {
+		return (commentaire == null) ? null : commentaire.getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Ajoute un commentaire encodé à la fin des textes
+	 * @return sa position
+	 */
+	private int ecrireTexte(byte[] octets) {
+		if (octets == null)
+			return SANS_COMMENTAIRE;
+		int besoin = octets.length + 5;
+		if (tailleTextes + besoin > textes.length)
+			textes = Arrays.copyOf(textes, Math.max(tailleTextes + besoin, tailleTextes + (tailleTextes >> 1)));
+		int position = tailleTextes;
+		int p = position;
+		int n = octets.length;
+		while ((n & ~0x7F) != 0) {
+			textes[p++] = (byte) ((n & 0x7F) | 0x80);
+			n >>>= 7;
+		}
+		textes[p++] = (byte) n;
+		System.arraycopy(octets, 0, textes, p, octets.length);
+		tailleTextes = p + octets.length;
+		return position;
+	}
+
+	/**
+	 * @return la longueur en octets du commentaire à cette position
+	 */
+	private int longueurTexte(int position) {
+		int longueur = 0;
+		for (int decalage = 0; ; decalage += 7) {
+			byte b = textes[position++];
+			longueur |= (b & 0x7F) << decalage;
+			if (b >= 0)
+				return longueur;
+		}
+	}
+
+	/**
+	 * @return la position du premier octet du commentaire à cette position, après sa longueur
+	 */
+	private int debutTexte(int position) {
+		while (textes[position++] < 0)
+			;
+		return position;
+	}
+
+	/**
+	 * @return true si le commentaire à cette position a exactement ces octets
+	 */
+	private boolean egal(int position, byte[] octets) {
+		int debut = debutTexte(position);
+		return longueurTexte(position) == octets.length
+				&& Arrays.equals(textes, debut, debut + octets.length, octets, 0, octets.length);
+	}
+
+	/**
+	 * Recopie les commentaires actuels, dans l'ordre des rangs, sans les commentaires remplacés
+	 */
+	private void compacter() {
+		byte[] compactes = new byte[tailleTextes - octetsRemplaces + (tailleTextes - octetsRemplaces >> 2)];
+		int t = 0;
+		for (int r = 0; r < nb; r++) {
+			int p = commentaires[r];
+			if (p == SANS_COMMENTAIRE)
+				continue;
+			int n = debutTexte(p) - p + longueurTexte(p);
+			System.arraycopy(textes, p, compactes, t, n);
+			commentaires[r] = t;
+			t += n;
+		}
+		textes = compactes;
+		tailleTextes = t;
+		octetsRemplaces = 0;
+	}
+}
@@ -0,0 +1,19 @@
+package avis;
+
+/**
+ * Position dans les reviews d'un item, pour les lire page par page avec SocialNetwork.consulterReviews.
+ * Les reviews d'un item ne sont jamais retirées et les nouvelles s'ajoutent à la fin : un curseur reste valable
+ * indéfiniment, et une review déposée après sa création apparaît dans une page suivante.
+ * @author Yann Andreu et Yannick Omnès
+ *
+ */
+public final class CurseurReviews {
+
+	final Item item;
+	final int position;
+
+	CurseurReviews(Item item, int position) {
+		this.item = item;
+		this.position = position;
+	}
+}
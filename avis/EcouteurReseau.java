@@ -0,0 +1,39 @@
+package avis;
+
+/**
+ * Abonné aux modifications d'un <i>SocialNetwork</i> (voir SocialNetwork.abonner) : affichage, cache, index...
+ * <p>
+ * Chaque méthode est appelée par le thread qui a effectué la modification, après sa validation et hors de tout
+ * verrou du <i>SocialNetwork</i>. Des modifications concurrentes peuvent être signalées dans un ordre différent
+ * de leur ordre d'application : l'abonné doit relire l'état actuel de l'élément signalé plutôt que de
+ * supposer un ordre. Une exception levée par un abonné est ignorée, la modification étant déjà effectuée.
+ * </p>
+ * @author Yann Andreu et Yannick Omnès
+ *
+ */
+public interface EcouteurReseau {
+
+	/**
+	 * Un membre a été ajouté
+	 * @param membre le nouveau membre
+	 */
+	void membreAjoute(Member membre);
+
+	/**
+	 * Un item (Film ou Book) a été ajouté
+	 * @param item le nouvel item
+	 */
+	void itemAjoute(Item item);
+
+	/**
+	 * Une review a été déposée, ou modifiée par son auteur ; la moyenne de son item a pu changer
+	 * @param review la review, dont getItem donne l'item
+	 */
+	void reviewDeposee(Review review);
+
+	/**
+	 * Le karma de l'auteur d'une review de l'item a changé après une évaluation : la moyenne de l'item a pu changer
+	 * @param item l'item dont une review a été repondérée
+	 */
+	void itemRepondere(Item item);
+}
@@ -0,0 +1,44 @@
+package avis;
+
+/**
+ * Ligne rejetée lors d'un import en masse
+ * @author Yann Andreu et Yannick Omnès
+ *
+ */
+public class ErreurImport {
+
+	private final int ligne;
+	private final CategorieErreur categorie;
+	private final String message;
+
+	ErreurImport(int ligne, CategorieErreur categorie, String message) {
+		this.ligne = ligne;
+		this.categorie = categorie;
+		this.message = message;
+	}
+
+	/**
+	 * @return le numéro de la ligne rejetée (à partir de 1)
+	 */
+	public int getLigne() {
+		return ligne;
+	}
+
+	/**
+	 * @return la catégorie de l'erreur, correspondant à l'exception qu'aurait levée l'opération unitaire
+	 */
+	public CategorieErreur getCategorie() {
+		return categorie;
+	}
+
+	/**
+	 * @return le détail de l'erreur
+	 */
+	public String getMessage() {
+		return message;
+	}
+
+	public String toString() {
+		return "ligne " + ligne + " : " + categorie + (message != null ? " (" + message + ")" : "");
+	}
+}
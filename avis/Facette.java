@@ -0,0 +1,83 @@
+package avis;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Facette d'un genre : nombre d'items du genre, moyenne de leurs notes et liste de ses items notés par note
+ * moyenne décroissante, tenus à jour à chaque ajout d'item et à chaque changement de moyenne.
+ * <p>
+ * La liste est un classement sans seuil : tout item ayant reçu au moins une review y figure. La moyenne du genre
+ * est la moyenne des moyennes de ses items notés ; sa mise à jour est en temps constant, sous le verrou de la facette.
+ * </p>
+ * @author Yann Andreu et Yannick Omnès
+ *
+ * @param <I> type des items du genre
+ */
+class Facette<I extends Item> extends Classement<I> {
+
+	// Genre tel que saisi pour le premier item du genre
+	private final String nom;
+	private final AtomicInteger nbItems = new AtomicInteger();
+
+	// Somme et nombre des moyennes des items notés, protégés par le verrou de la facette
+	private double sommeMoyennes = 0.0;
+	private int nbItemsNotes = 0;
+
+	/**
+	 * @param nom genre de la facette, pour l'affichage
+	 */
+	Facette(String nom) {
+		super(1);
+		this.nom = nom;
+	}
+
+	/**
+	 * @return le genre de la facette, tel que saisi pour son premier item
+	 */
+	String getNom() {
+		return nom;
+	}
+
+	/**
+	 * Compte un nouvel item du genre, avant sa publication dans le <i>SocialNetwork</i>
+	 */
+	void compter() {
+		nbItems.incrementAndGet();
+	}
+
+	/**
+	 * @return le nombre d'items du genre
+	 */
+	int nbItems() {
+		return nbItems.get();
+	}
+
+	/**
+	 * @return la moyenne des moyennes des items notés du genre, 0 si aucun n'est noté
+	 */
+	synchronized float moyenne() {
+		return (nbItemsNotes == 0) ? 0.0f : (float) (sommeMoyennes / nbItemsNotes);
+	}
+
+	/**
+	 * Met à jour la position de l'item, puis la moyenne du genre si la moyenne de l'item a changé
+	 */
+	@Override
+	Entree mettreAJour(Item item, Entree ancienne, float moyenne, int nbReviews) {
+		Entree nouvelle = super.mettreAJour(item, ancienne, moyenne, nbReviews);
+		if (nouvelle != ancienne) {
+			synchronized (this) {
+				if (ancienne != null) {
+					sommeMoyennes -= ancienne.moyenne;
+					nbItemsNotes--;
+				}
+				if (nouvelle != null) {
+					sommeMoyennes += nouvelle.moyenne;
+					nbItemsNotes++;
+				}
+			}
+		}
+		return nouvelle;
+	}
+
+}
@@ -1,6 +1,6 @@
 package avis;
 
-import java.util.LinkedList;
+import java.io.IOException;
 
 /**
  * Représente un Film
@@ -38,7 +38,6 @@ public class Film extends Item {
 		this.scenariste = scenariste;
 		this.realisateur = realisateur;
 		this.duree=duree;
-		reviews = new LinkedList<Review>();
 	}
 	
 	/**
@@ -48,23 +47,57 @@ public class Film extends Item {
 	public String getTitre() {
 		return titre;
 	}
+	
+	/**
+	 * Renvoie le genre du Film courant
+	 * @return le genre du Film courant
+	 */
+	public String getGenre() {
+		return genre;
+	}
+	
+	/**
+	 * Renvoie le réalisateur du Film courant
+	 * @return le réalisateur du Film courant
+	 */
+	public String getRealisateur() {
+		return realisateur;
+	}
+	
+	/**
+	 * Renvoie le scénariste du Film courant
+	 * @return le scénariste du Film courant
+	 */
+	public String getScenariste() {
+		return scenariste;
+	}
+	
+	/**
+	 * Renvoie la durée du Film courant
+	 * @return la durée du Film courant, en minutes
+	 */
+	public int getDuree() {
+		return duree;
+	}
+
 
+	/**
+	 * Ecrit la description du Film dans out, avis compris
+	 */
+	public void writeTo(Appendable out) throws IOException {
+		writeEnteteTo(out);
+		writeReviewsTo(out);
+	}
 
 	/**
-	 * Renvoie un String décrivant le Film
+	 * Ecrit le titre, le genre, le réalisateur, le scénariste et la durée du Film dans out
 	 */
-	public String toString() {
-		String s= "\nTitre : "+ this.titre +"\n";
-		s+= "Genre : " + this.genre + "\n";
-		s+= "Réalisateur : " + this.realisateur + "\n";
-		s+= "Scénariste : " + this.scenariste + "\n";
-		s+= "Durée : "+ this.duree+ "\n";
-		s+= "Note moyenne : " + this.moyenneNotesReview() + "/5 \n";
-		s+= "Avis : \n";
-		if (!reviews.isEmpty())
-			for(Review avis:reviews) // Ajoute tous les avis déposés sur ce Film
-				s+= avis + "\n";
-		return s;
+	protected void writeEnteteTo(Appendable out) throws IOException {
+		out.append("\nTitre : ").append(this.titre).append('\n');
+		out.append("Genre : ").append(this.genre).append('\n');
+		out.append("Réalisateur : ").append(this.realisateur).append('\n');
+		out.append("Scénariste : ").append(this.scenariste).append('\n');
+		out.append("Durée : ").append(String.valueOf(this.duree)).append('\n');
 	}
 	
 }
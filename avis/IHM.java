@@ -3,7 +3,9 @@ package avis;
 
 import ihm.JPanelEntree;
 import ihm.JPanelPassword;
+import ihm.JPanelLignes;
 import ihm.JScrollPaneTexte;
+import ihm.TacheLignes;
 
 import javax.swing.*;
 
@@ -12,7 +14,14 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.util.LinkedList;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import exception.BadEntry;
 
 /**
  * 
@@ -58,11 +67,16 @@ public class IHM {
 	private JMenu menuMembre;
 	private JMenu menuVisiteur;
 	
+	// Les affichages du réseau et des items sont produits par une tâche de fond (voir TacheLignes)
 	private JFrame fenetreAffichageReseau;
-	private JScrollPaneTexte jScrollPaneAffichageReseau;
+	private JPanelLignes jPanelAffichageReseau;
+	private VueReseau vueReseau;
 	
 	private JFrame fenetreAffichageItems;
-	private JScrollPaneTexte jScrollPaneAffichageItems;
+	private JPanelLignes jPanelAffichageItems;
+	
+	/** nombre de reviews lues par page lors de la consultation d'un item */
+	private static final int TAILLE_PAGE = 200;
 
 
 	public IHM() {
@@ -138,26 +152,189 @@ public class IHM {
 			if (fenetreAffichageReseau == null) {
 				fenetreAffichageReseau = new JFrame();
 				fenetreAffichageReseau.setLocation(60,60);
-				jScrollPaneAffichageReseau = new JScrollPaneTexte(" Social Network ",  "", false, largeurFenetre);
-				jScrollPaneAffichageReseau.setTexte(metier.toString());
+				jPanelAffichageReseau = new JPanelLignes(" Social Network ", largeurFenetre);
 				fenetreAffichageReseau.getContentPane().removeAll();
 				fenetreAffichageReseau.repaint();
 				fenetreAffichageReseau.setSize(largeurFenetre + 100, 350);
-				fenetreAffichageReseau.getContentPane().add(jScrollPaneAffichageReseau);
-				jScrollPaneAffichageReseau.setVisible(true);
-				fenetreAffichageReseau.setVisible(true);
-				fenetreAffichageReseau.repaint();
-			} else {
-				jScrollPaneAffichageReseau.setTexte(metier.toString());
-				fenetreAffichageReseau.setVisible(true);
-				fenetreAffichageReseau.repaint();				
+				fenetreAffichageReseau.getContentPane().add(jPanelAffichageReseau);
+				jPanelAffichageReseau.setVisible(true);
 			}
+			// La vue reste abonnée au réseau quand la fenêtre est fermée : elle n'est reconstruite qu'après une annulation
+			if (vueReseau == null || !vueReseau.active)
+				vueReseau = new VueReseau();
+			fenetreAffichageReseau.setVisible(true);
+			fenetreAffichageReseau.repaint();
 		}
 
 	}
 
 
 
+	/**
+	 * Affichage du réseau tenu à jour par ses modifications : chaque membre et chaque item occupe un bloc
+	 * de lignes, reconstruit en tâche de fond lorsqu'il est ajouté ou qu'une review le modifie.
+	 * Les éléments signalés sont regroupés : une rafale de reviews sur un item ne le reconstruit qu'une fois par passage.
+	 */
+	private class VueReseau implements EcouteurReseau {
+
+		// Eléments à reconstruire, et indicateur d'une tâche de reconstruction en cours (protégés par le verrou de la vue)
+		private final LinkedHashSet<Object> aReconstruire = new LinkedHashSet<Object>();
+		private boolean enCours = false;
+		volatile boolean active = true;
+
+		// Blocs affichés et nombre d'éléments par section (thread de Swing)
+		private final HashSet<Object> affiches = new HashSet<Object>();
+		private int nbMembres = 0, nbLivres = 0, nbFilms = 0;
+
+		VueReseau() {
+			jPanelAffichageReseau.vider();
+			jPanelAffichageReseau.placerSection("titre", Arrays.asList("Le SocialNetwork est composé des éléments suivants:"));
+			entetes();
+			// L'abonnement, qui signale les éléments déjà présents, parcourt le réseau hors du thread de Swing
+			new Thread(new Runnable() {
+				public void run() {
+					try {
+						metier.abonner(VueReseau.this, true);
+					}
+					catch (BadEntry exception) { // impossible : la vue est instanciée
+					}
+				}
+			}).start();
+		}
+
+		public void membreAjoute(Member membre) {
+			signaler(membre);
+		}
+
+		public void itemAjoute(Item item) {
+			signaler(item);
+		}
+
+		public void reviewDeposee(Review review) {
+			signaler(review.getItem());
+		}
+
+		public void itemRepondere(Item item) {
+			signaler(item);
+		}
+
+		private void signaler(Object element) {
+			synchronized (this) {
+				if (!active)
+					return;
+				aReconstruire.add(element);
+				if (enCours)
+					return;
+				enCours = true;
+			}
+			final Reconstruction tache = new Reconstruction();
+			SwingUtilities.invokeLater(new Runnable() {
+				public void run() {
+					jPanelAffichageReseau.suivre(tache);
+				}
+			});
+			tache.execute();
+		}
+
+		/**
+		 * Arrête la vue après une annulation : elle sera reconstruite à la prochaine ouverture
+		 */
+		private void arreter() {
+			synchronized (this) {
+				active = false;
+				aReconstruire.clear();
+			}
+			metier.desabonner(this);
+		}
+
+		private void entetes() {
+			jPanelAffichageReseau.placerSection(Member.class, Arrays.asList("", "MEMBRES (" + nbMembres + ") : "));
+			jPanelAffichageReseau.placerSection(Book.class, Arrays.asList("", "LIVRES (" + nbLivres + ") : "));
+			jPanelAffichageReseau.placerSection(Film.class, Arrays.asList("", "FILMS (" + nbFilms + ") : "));
+		}
+
+		/**
+		 * Reconstruit les éléments signalés jusqu'à ce qu'il n'en reste plus ; chaque élément reconstruit est publié
+		 * avec ses lignes
+		 */
+		private class Reconstruction extends SwingWorker<Void, Object[]> {
+
+			protected Void doInBackground() throws Exception {
+				int fait = 0;
+				while (!isCancelled()) {
+					Object[] lot;
+					synchronized (VueReseau.this) {
+						if (aReconstruire.isEmpty() || !active) {
+							enCours = false;
+							return null;
+						}
+						lot = aReconstruire.toArray();
+						aReconstruire.clear();
+					}
+					for (int i = 0; i < lot.length && !isCancelled(); i++) {
+						StringBuilder texte = new StringBuilder();
+						if (lot[i] instanceof Member)
+							((Member) lot[i]).writeTo(texte);
+						else
+							texte.append(lot[i].toString());
+						publish(new Object[] {lot[i], Arrays.asList(texte.toString().split("\n"))});
+						int restant;
+						synchronized (VueReseau.this) {
+							restant = aReconstruire.size();
+						}
+						fait++;
+						setProgress((int) (100L * fait / (fait + restant + lot.length - i - 1)));
+					}
+				}
+				return null;
+			}
+
+			protected void process(List<Object[]> elements) {
+				if (!active)
+					return;
+				// Chaque élément est placé dans la section de sa classe ; les entêtes ne sont recomptées qu'une fois par lot
+				ArrayList<Object[]> blocs = new ArrayList<Object[]>(elements.size());
+				boolean nouveaux = false;
+				for (Object[] e : elements) {
+					Object section = (e[0] instanceof Member) ? Member.class : (e[0] instanceof Book) ? Book.class : Film.class;
+					blocs.add(new Object[] {e[0], section, e[1]});
+					if (affiches.add(e[0])) {
+						if (e[0] instanceof Member)
+							nbMembres++;
+						else if (e[0] instanceof Book)
+							nbLivres++;
+						else
+							nbFilms++;
+						nouveaux = true;
+					}
+				}
+				jPanelAffichageReseau.placerBlocs(blocs);
+				if (nouveaux)
+					entetes();
+			}
+
+			protected void done() {
+				String message = "à jour";
+				if (isCancelled()) {
+					message = "annulé";
+					arreter();
+				}
+				else {
+					try {
+						get();
+					}
+					catch (Exception exception) {
+						message = "erreur : " + exception.getMessage();
+						arreter();
+					}
+				}
+				jPanelAffichageReseau.terminer(this, message);
+			}
+		}
+	}
+
+
+
 	private class ConsultItem implements ActionListener {
 		JPanelEntree jPanelNameItem;
 		public void actionPerformed(ActionEvent e) {
@@ -179,33 +356,51 @@ public class IHM {
 		}
 		class ActionConsultItem implements ActionListener {
 			public void actionPerformed(ActionEvent e) {
+				final List<ResumeItem> items;
 				try {
-					LinkedList <String> items = metier.consultItems(jPanelNameItem.getEntree());
-					String s = "\n";
-					for (String item : items) {
-						s += item + "\n";
-					}
-					if (fenetreAffichageItems == null) {
-						fenetreAffichageItems = new JFrame();
-						fenetreAffichageItems.setLocation(30,30);
-						jScrollPaneAffichageItems = new JScrollPaneTexte(" items ",  s, false, largeurFenetre);
-						fenetreAffichageItems.getContentPane().removeAll();
-						fenetreAffichageItems.repaint();
-						fenetreAffichageItems.setSize(largeurFenetre + 100, 350);
-						fenetreAffichageItems.getContentPane().add(jScrollPaneAffichageItems);
-						jScrollPaneAffichageItems.setVisible(true);
-						fenetreAffichageItems.setVisible(true);
-						fenetreAffichageItems.repaint();
-					} else {
-						jScrollPaneAffichageItems.setTexte(s);
-						fenetreAffichageItems.setVisible(true);
-						fenetreAffichageItems.repaint();				
-					}
-
+					// Les résumés sont lus sans les reviews : seules celles-ci sont chargées en tâche de fond
+					items = metier.consulterItems(jPanelNameItem.getEntree());
 				}
 				catch (Exception exception) {
 					JOptionPane.showMessageDialog(fenetreInteraction, "Exception dans consultItems :   "  + exception);
+					return;
+				}
+				if (fenetreAffichageItems == null) {
+					fenetreAffichageItems = new JFrame();
+					fenetreAffichageItems.setLocation(30,30);
+					jPanelAffichageItems = new JPanelLignes(" items ", largeurFenetre);
+					fenetreAffichageItems.getContentPane().removeAll();
+					fenetreAffichageItems.repaint();
+					fenetreAffichageItems.setSize(largeurFenetre + 100, 350);
+					fenetreAffichageItems.getContentPane().add(jPanelAffichageItems);
+					jPanelAffichageItems.setVisible(true);
 				}
+				jPanelAffichageItems.vider();
+				TacheLignes tache = new TacheLignes(jPanelAffichageItems) {
+					protected void produire(Writer out) throws Exception {
+						int total = 0, fait = 0;
+						for (ResumeItem item : items)
+							total += item.getNbReviews();
+						for (ResumeItem item : items) {
+							item.writeTo(out);
+							CurseurReviews curseur = item.getReviews();
+							while (curseur != null) {
+								PageReviews page = metier.consulterReviews(curseur, TAILLE_PAGE);
+								for (Review avis : page.getReviews()) {
+									avis.writeTo(out);
+									out.write('\n');
+								}
+								fait += page.getReviews().size();
+								avancer(fait, total);
+								curseur = page.getSuivante();
+							}
+						}
+					}
+				};
+				jPanelAffichageItems.suivre(tache);
+				tache.execute();
+				fenetreAffichageItems.setVisible(true);
+				fenetreAffichageItems.repaint();
 			}
 		}
 
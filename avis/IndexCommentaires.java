@@ -0,0 +1,495 @@
+package avis;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Index inversé des commentaires des reviews : pour chaque terme, la liste des commentaires qui le contiennent.
+ * <p>
+ * Un commentaire indexé reçoit un numéro de document croissant. Chaque liste est compressée : pour chaque document,
+ * l'écart avec le document précédent et un bit indiquant si le terme y apparaît plusieurs fois, en varint, suivis
+ * dans ce cas du nombre d'occurrences. Les positions des termes ne sont pas conservées : une expression est vérifiée
+ * sur le texte des commentaires candidats, qui contiennent déjà tous ses termes.
+ * </p>
+ * <p>
+ * Le dictionnaire ne contient que des tableaux de types primitifs : chaque terme a un numéro, attribué dans l'ordre
+ * d'apparition, qui désigne son texte en UTF-8 et sa liste ; une table à adressage ouvert retrouve ce numéro à partir
+ * du texte. Au-delà de 512 octets, les tableaux ne grandissent que d'un huitième, pour limiter la capacité
+ * inutilisée.
+ * </p>
+ * <p>
+ * Un commentaire remplacé est indexé sous un nouveau numéro ; l'ancien document est ignoré par les recherches.
+ * Les termes sont les suites de lettres et de chiffres, en minuscules. La pertinence est mesurée par BM25.
+ * </p>
+ * <p>
+ * Les ajouts sont sérialisés par le verrou de l'index ; les recherches ne le prennent que le temps de consulter
+ * le dictionnaire des termes, et parcourent les listes sans verrou. Un document désigne une review par son item
+ * et son rang : la review n'est lue, sous le verrou de l'item, que si le document entre dans les résultats.
+ * Le rang d'un document remplacé est effacé, pour que les recherches l'écartent sans lire l'item.
+ * </p>
+ * @author Yann Andreu et Yannick Omnès
+ *
+ */
+class IndexCommentaires {
+
+	// Paramètres de BM25
+	private static final double K1 = 1.2;
+	private static final double B = 0.75;
+
+	private static final byte[] AUCUN_OCTET = new byte[0];
+
+	// Rangs réservés d'un repère : commentaire remplacé, et rang trop grand pour être conservé (l'item le retrouve)
+	private static final int RANG_REMPLACE = 0xFFFFFF;
+	private static final int RANG_INCONNU = 0xFFFFFE;
+
+	// Nombre de termes décodé de chaque longueur quantifiée sur un octet : exact jusqu'à 127,
+	// puis à environ 4 % près (pas de 2^(1/16)) jusqu'à 31 000 environ
+	private static final float[] LONGUEURS = new float[256];
+	static {
+		for (int i = 0; i < LONGUEURS.length; i++)
+			LONGUEURS[i] = (i < 128) ? i : (float) (128 * Math.pow(2, (i - 128) / 16.0));
+	}
+
+	// Item de chaque document, et repère : rang de la review dans l'item (24 bits de poids fort)
+	// et longueur quantifiée (8 bits de poids faible) ; nbDocs est publié après l'écriture des tableaux
+	private Item[] items = new Item[1024];
+	private int[] reperes = new int[1024];
+	private volatile int nbDocs = 0;
+	private long totalLongueurs = 0;
+
+	// Dictionnaire : textes des termes bout à bout, début du texte de chaque terme,
+	// et numéro + 1 des termes selon leur empreinte (0 pour une case vide ; la taille est une puissance de 2)
+	private byte[] textesTermes = new byte[4096];
+	private int tailleTextesTermes = 0;
+	private int[] debutsTermes = new int[256];
+	private int[] tableTermes = new int[512];
+	private int nbTermes = 0;
+
+	// Liste de chaque terme : octets, octets utilisés, nombre de documents et dernier document
+	private byte[][] listes = new byte[256][];
+	private int[] tailles = new int[256];
+	private int[] nbDocsTermes = new int[256];
+	private int[] derniersDocs = new int[256];
+
+	// Codage d'un élément de liste, avant sa copie dans la liste (sous le verrou)
+	private final byte[] tampon = new byte[10];
+
+	/**
+	 * Parcours d'une liste de documents, dans l'ordre croissant
+	 */
+	private static final class Curseur {
+		final int nbDocs;
+		private final byte[] octets;
+		private final int fin;
+		private int position = 0;
+		int doc = -1;
+		int occurrences;
+
+		/**
+		 * Curseur créé sous le verrou de l'index : les octets lus sans verrou ensuite ont été écrits avant
+		 */
+		Curseur(byte[] octets, int fin, int nbDocs) {
+			this.nbDocs = nbDocs;
+			this.fin = fin;
+			this.octets = octets;
+			this.doc = 0;
+			suivant();
+		}
+
+		private int varint() {
+			int v = 0, decalage = 0;
+			byte b;
+			do {
+				b = octets[position++];
+				v |= (b & 0x7F) << decalage;
+				decalage += 7;
+			} while ((b & 0x80) != 0);
+			return v;
+		}
+
+		/** passe au document suivant ; doc vaut -1 à la fin de la liste */
+		void suivant() {
+			if (position >= fin) {
+				doc = -1;
+				return;
+			}
+			int v = varint();
+			doc += v >>> 1;
+			occurrences = ((v & 1) != 0) ? varint() : 1;
+		}
+
+		/** avance jusqu'au premier document supérieur ou égal à cible */
+		void atteindre(int cible) {
+			while (doc != -1 && doc < cible)
+				suivant();
+		}
+	}
+
+	//===================================== INDEXATION =======================================================
+
+	/**
+	 * Indexe le commentaire d'une review, nouvelle ou dont le commentaire vient d'être remplacé.
+	 * L'appelant détient le verrou de l'item, et y enregistre le numéro de document renvoyé.
+	 * @param item item de la review
+	 * @param rang rang de la review dans l'item
+	 * @param ancienDoc numéro du document de l'ancien commentaire de la review, -1 s'il n'a pas été indexé
+	 * @param commentaire commentaire de la review
+	 * @return le numéro du document
+	 */
+	int indexer(Item item, int rang, int ancienDoc, String commentaire) {
+		// Les termes sont extraits et encodés hors du verrou
+		HashMap<String, Integer> occurrences = new HashMap<String, Integer>();
+		ArrayList<String> termesCommentaire = termes(commentaire);
+		for (String t : termesCommentaire) {
+			Integer n = occurrences.get(t);
+			occurrences.put(t, (n == null) ? 1 : n + 1);
+		}
+		byte[][] encodes = new byte[occurrences.size()][];
+		int[] nombres = new int[encodes.length];
+		int i = 0;
+		for (java.util.Map.Entry<String, Integer> e : occurrences.entrySet()) {
+			encodes[i] = e.getKey().getBytes(StandardCharsets.UTF_8);
+			nombres[i++] = e.getValue();
+		}
+		int repere = (Math.min(rang, RANG_INCONNU) << 8) | quantifier(termesCommentaire.size());
+		synchronized (this) {
+			int doc = nbDocs;
+			if (doc == items.length) {
+				items = Arrays.copyOf(items, agrandie(doc, doc + 1));
+				reperes = Arrays.copyOf(reperes, items.length);
+			}
+			items[doc] = item;
+			reperes[doc] = repere;
+			if (ancienDoc >= 0)
+				reperes[ancienDoc] = (RANG_REMPLACE << 8) | (reperes[ancienDoc] & 0xFF);
+			totalLongueurs += termesCommentaire.size();
+			for (i = 0; i < encodes.length; i++)
+				ajouter(terme(encodes[i]), doc, nombres[i]);
+			nbDocs = doc + 1;
+			return doc;
+		}
+	}
+
+	/**
+	 * Découpe un texte en termes : suites de lettres et de chiffres, en minuscules
+	 */
+	static ArrayList<String> termes(String texte) {
+		ArrayList<String> resultat = new ArrayList<String>();
+		if (texte == null)
+			return resultat;
+		StringBuilder terme = new StringBuilder();
+		for (int i = 0, n = texte.length(); i <= n; i++) {
+			char c = (i < n) ? texte.charAt(i) : ' ';
+			if (Character.isLetterOrDigit(c))
+				terme.append(Character.toLowerCase(c));
+			else if (terme.length() > 0) {
+				resultat.add(terme.toString());
+				terme.setLength(0);
+			}
+		}
+		return resultat;
+	}
+
+	/**
+	 * @return la longueur d'un commentaire, quantifiée sur un octet (voir LONGUEURS)
+	 */
+	private static int quantifier(int longueur) {
+		if (longueur < 128)
+			return longueur;
+		return 128 + (int) Math.min(127, Math.round(16 * Math.log(longueur / 128.0) / Math.log(2)));
+	}
+
+	/**
+	 * @return une capacité au moins égale à minimum : moitié en plus pour un petit tableau, un huitième au-delà
+	 */
+	private static int agrandie(int capacite, int minimum) {
+		return Math.max(minimum, capacite + ((capacite < 512) ? capacite >> 1 : capacite >> 3));
+	}
+
+	/**
+	 * Ajoute un document à la fin de la liste d'un terme (sous le verrou)
+	 */
+	private void ajouter(int terme, int doc, int occurrences) {
+		int n = varint(tampon, 0, ((doc - derniersDocs[terme]) << 1) | (occurrences > 1 ? 1 : 0));
+		if (occurrences > 1)
+			n = varint(tampon, n, occurrences);
+		byte[] liste = listes[terme];
+		int taille = tailles[terme];
+		if (taille + n > liste.length)
+			listes[terme] = liste = Arrays.copyOf(liste, agrandie(liste.length, taille + n));
+		System.arraycopy(tampon, 0, liste, taille, n);
+		tailles[terme] = taille + n;
+		nbDocsTermes[terme]++;
+		derniersDocs[terme] = doc;
+	}
+
+	private static int varint(byte[] octets, int t, int v) {
+		while ((v & ~0x7F) != 0) {
+			octets[t++] = (byte) ((v & 0x7F) | 0x80);
+			v >>>= 7;
+		}
+		octets[t++] = (byte) v;
+		return t;
+	}
+
+	//===================================== DICTIONNAIRE =====================================================
+
+	private static int hacher(byte[] octets, int debut, int fin) {
+		int h = 1;
+		for (int i = debut; i < fin; i++)
+			h = 31 * h + octets[i];
+		return h ^ (h >>> 16);
+	}
+
+	private int finTerme(int terme) {
+		return (terme + 1 < nbTermes) ? debutsTermes[terme + 1] : tailleTextesTermes;
+	}
+
+	/**
+	 * @return la case de la table des termes qui contient ce terme, ou la case vide où l'inscrire (sous le verrou)
+	 */
+	private int chercher(byte[] terme) {
+		int masque = tableTermes.length - 1;
+		for (int i = hacher(terme, 0, terme.length) & masque; ; i = (i + 1) & masque) {
+			int t = tableTermes[i] - 1;
+			if (t < 0 || Arrays.equals(textesTermes, debutsTermes[t], finTerme(t), terme, 0, terme.length))
+				return i;
+		}
+	}
+
+	/**
+	 * @return le numéro d'un terme, -1 s'il n'apparaît dans aucun commentaire (sous le verrou)
+	 */
+	private int numero(byte[] terme) {
+		return tableTermes[chercher(terme)] - 1;
+	}
+
+	/**
+	 * @return le numéro d'un terme, attribué à sa première apparition (sous le verrou)
+	 */
+	private int terme(byte[] terme) {
+		int i = chercher(terme);
+		if (tableTermes[i] != 0)
+			return tableTermes[i] - 1;
+		int t = nbTermes;
+		if (t == debutsTermes.length) {
+			int capacite = agrandie(t, t + 1);
+			debutsTermes = Arrays.copyOf(debutsTermes, capacite);
+			listes = Arrays.copyOf(listes, capacite);
+			tailles = Arrays.copyOf(tailles, capacite);
+			nbDocsTermes = Arrays.copyOf(nbDocsTermes, capacite);
+			derniersDocs = Arrays.copyOf(derniersDocs, capacite);
+		}
+		if (tailleTextesTermes + terme.length > textesTermes.length)
+			textesTermes = Arrays.copyOf(textesTermes, agrandie(textesTermes.length, tailleTextesTermes + terme.length));
+		System.arraycopy(terme, 0, textesTermes, tailleTextesTermes, terme.length);
+		debutsTermes[t] = tailleTextesTermes;
+		tailleTextesTermes += terme.length;
+		listes[t] = AUCUN_OCTET;
+		nbTermes = t + 1;
+		tableTermes[i] = t + 1;
+		if (nbTermes * 4 > tableTermes.length * 3)
+			redimensionnerTable(tableTermes.length * 2);
+		return t;
+	}
+
+	private void redimensionnerTable(int taille) {
+		tableTermes = new int[taille];
+		int masque = taille - 1;
+		for (int t = 0; t < nbTermes; t++) {
+			int i = hacher(textesTermes, debutsTermes[t], finTerme(t)) & masque;
+			while (tableTermes[i] != 0)
+				i = (i + 1) & masque;
+			tableTermes[i] = t + 1;
+		}
+	}
+
+	//===================================== RECHERCHE ========================================================
+
+	/**
+	 * Recherche les reviews dont le commentaire contient tous les termes et toutes les expressions d'une requête.
+	 * @param requete termes séparés par des blancs ; une expression entre guillemets doit figurer telle quelle
+	 * (mêmes termes, consécutifs)
+	 * @param max nombre maximal de reviews renvoyées
+	 * @return au plus max reviews, de la plus pertinente à la moins pertinente
+	 */
+	List<Review> rechercher(String requete, int max) {
+		ArrayList<Review> resultat = new ArrayList<Review>();
+		for (Resultat r : meilleurs(requete, max, false)) {
+			// Seules les reviews retenues sont lues dans leur item
+			Review review = r.item.reviewIndexee(r.rang, r.doc);
+			if (review != null)
+				resultat.add(review);
+		}
+		return resultat;
+	}
+
+	/**
+	 * Recherche les items dont au moins un commentaire satisfait une requête, classés selon leur review la plus pertinente.
+	 * @param requete même syntaxe que pour rechercher
+	 * @param max nombre maximal d'items renvoyés
+	 * @return au plus max items, du plus pertinent au moins pertinent
+	 */
+	List<Item> rechercherItems(String requete, int max) {
+		ArrayList<Item> resultat = new ArrayList<Item>();
+		for (Resultat r : meilleurs(requete, max, true))
+			resultat.add(r.item);
+		return resultat;
+	}
+
+	/**
+	 * Evalue les documents qui satisfont une requête et renvoie les max meilleurs, du plus pertinent au moins pertinent.
+	 * @param parItem si vrai, seul le meilleur document de chaque item est retenu
+	 */
+	private List<Resultat> meilleurs(String requete, int max, boolean parItem) {
+		// Analyse de la requête : termes requis, et expressions à vérifier sur le texte
+		ArrayList<String> requis = new ArrayList<String>();
+		ArrayList<List<String>> expressions = new ArrayList<List<String>>();
+		String[] morceaux = requete.split("\"", -1);
+		for (int i = 0; i < morceaux.length; i++) {
+			ArrayList<String> t = termes(morceaux[i]);
+			requis.addAll(t);
+			if (i % 2 == 1 && t.size() > 1)
+				expressions.add(t);
+		}
+		if (requis.isEmpty() || max == 0)
+			return new ArrayList<Resultat>();
+		ArrayList<byte[]> encodes = new ArrayList<byte[]>();
+		for (String t : new java.util.LinkedHashSet<String>(requis))
+			encodes.add(t.getBytes(StandardCharsets.UTF_8));
+
+		int n = nbDocs; // lecture volatile : items et reperes sont au moins aussi récents
+		Item[] items = this.items;
+		int[] reperes = this.reperes;
+		double longueurMoyenne;
+		ArrayList<Curseur> curseurs = new ArrayList<Curseur>();
+		synchronized (this) { // le dictionnaire n'est pas thread-safe : seule sa consultation est verrouillée
+			longueurMoyenne = (n == 0) ? 1.0 : (double) totalLongueurs / n;
+			for (byte[] t : encodes) {
+				int terme = numero(t);
+				if (terme < 0)
+					return new ArrayList<Resultat>();
+				curseurs.add(new Curseur(listes[terme], tailles[terme], nbDocsTermes[terme]));
+			}
+		}
+		// Le terme le plus rare mène l'intersection
+		Collections.sort(curseurs, new Comparator<Curseur>() {
+			public int compare(Curseur a, Curseur b) {
+				return Integer.compare(a.nbDocs, b.nbDocs);
+			}
+		});
+		double[] idf = new double[curseurs.size()];
+		for (int i = 0; i < idf.length; i++) {
+			int df = curseurs.get(i).nbDocs;
+			idf[i] = Math.log(1.0 + (n - df + 0.5) / (df + 0.5));
+		}
+
+		PriorityQueue<Resultat> meilleurs = new PriorityQueue<Resultat>();
+		HashMap<Item, Resultat> parItems = parItem ? new HashMap<Item, Resultat>() : null;
+		Curseur premier = curseurs.get(0);
+		candidats:
+		for (; premier.doc != -1 && premier.doc < n; premier.suivant()) {
+			int doc = premier.doc;
+			for (int i = 1; i < curseurs.size(); i++) {
+				Curseur c = curseurs.get(i);
+				c.atteindre(doc);
+				if (c.doc == -1)
+					break candidats;
+				if (c.doc != doc)
+					continue candidats;
+			}
+			int repere = reperes[doc];
+			int rang = repere >>> 8;
+			if (rang == RANG_REMPLACE) // commentaire remplacé depuis
+				continue;
+			if (rang == RANG_INCONNU)
+				rang = -1;
+			double score = 0.0;
+			double normalisation = K1 * (1 - B + B * LONGUEURS[repere & 0xFF] / longueurMoyenne);
+			for (int i = 0; i < curseurs.size(); i++) {
+				int tf = curseurs.get(i).occurrences;
+				score += idf[i] * tf * (K1 + 1) / (tf + normalisation);
+			}
+			Resultat r = new Resultat(items[doc], rang, score, doc);
+			// Les expressions ne sont vérifiées que pour les documents qui entreraient dans les résultats
+			if (!expressions.isEmpty()) {
+				if (!parItem && meilleurs.size() == max && r.compareTo(meilleurs.peek()) < 0)
+					continue;
+				String commentaire = r.item.commentaireIndexe(rang, doc);
+				if (commentaire == null)
+					continue;
+				ArrayList<String> texte = termes(commentaire);
+				for (List<String> e : expressions)
+					if (Collections.indexOfSubList(texte, e) < 0)
+						continue candidats;
+			}
+			if (parItem) {
+				Resultat meilleur = parItems.get(r.item);
+				if (meilleur == null || r.compareTo(meilleur) > 0)
+					parItems.put(r.item, r);
+			}
+			else
+				retenir(meilleurs, r, max);
+		}
+		if (parItem)
+			for (Resultat r : parItems.values())
+				retenir(meilleurs, r, max);
+		ArrayList<Resultat> tries = new ArrayList<Resultat>(meilleurs);
+		Collections.sort(tries, Collections.reverseOrder());
+		return tries;
+	}
+
+	/**
+	 * Ajoute un résultat au tas des max meilleurs, dont la racine est le moins pertinent
+	 */
+	private static void retenir(PriorityQueue<Resultat> meilleurs, Resultat r, int max) {
+		if (meilleurs.size() < max)
+			meilleurs.add(r);
+		else if (r.compareTo(meilleurs.peek()) > 0) {
+			meilleurs.poll();
+			meilleurs.add(r);
+		}
+	}
+
+	/**
+	 * Review candidate, désignée par son item et son rang (-1 si l'item doit le retrouver), et son score ;
+	 * l'ordre naturel va du moins pertinent au plus pertinent (à score égal, le commentaire indexé le plus tard
+	 * est le moins pertinent)
+	 */
+	private static final class Resultat implements Comparable<Resultat> {
+		final Item item;
+		final int rang;
+		final double score;
+		final int doc;
+
+		Resultat(Item item, int rang, double score, int doc) {
+			this.item = item;
+			this.rang = rang;
+			this.score = score;
+			this.doc = doc;
+		}
+
+		public int compareTo(Resultat o) {
+			int c = Double.compare(score, o.score);
+			return (c != 0) ? c : Integer.compare(o.doc, doc);
+		}
+	}
+
+	/**
+	 * @return la mémoire occupée par l'index, en octets : tableaux des documents, dictionnaire et listes des termes,
+	 * capacité inutilisée comprise (références compressées de 4 octets, en-tête de 16 octets par liste)
+	 */
+	synchronized long octets() {
+		long total = (items.length + reperes.length) * 4L + textesTermes.length + tableTermes.length * 4L
+				+ (debutsTermes.length + listes.length + tailles.length + nbDocsTermes.length + derniersDocs.length) * 4L;
+		for (int t = 0; t < nbTermes; t++)
+			total += 16 + listes[t].length;
+		return total;
+	}
+}
@@ -0,0 +1,129 @@
+package avis;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Index des titres normalisés des films et des livres, pour la recherche au fil de la frappe.
+ * <p>
+ * Les préfixes sont cherchés dans des tables triées par titre (une par type d'item) : O(log N + k)
+ * pour k résultats. Les fragments intérieurs sont cherchés par trigrammes : chaque trigramme d'un titre
+ * référence l'item dans une liste compressée ; une recherche parcourt la liste du trigramme le plus rare
+ * du fragment et ne garde que les titres qui contiennent effectivement le fragment. Le nombre de titres
+ * examinés est borné par MAX_CANDIDATS, quelle que soit la taille du catalogue.
+ * </p>
+ * <p>
+ * Les ajouts sont sérialisés par le verrou de l'index ; les recherches ne prennent aucun verrou.
+ * </p>
+ * @author Yann Andreu et Yannick Omnès
+ *
+ */
+class IndexTitres {
+
+	/**
+	 * Nombre maximal de titres examinés par une recherche de fragment intérieur
+	 */
+	static final int MAX_CANDIDATS = 100000;
+
+	private final ConcurrentSkipListMap<String, Item> films = new ConcurrentSkipListMap<String, Item>();
+	private final ConcurrentSkipListMap<String, Item> books = new ConcurrentSkipListMap<String, Item>();
+	private final ConcurrentHashMap<Long, ListeCroissante> trigrammes = new ConcurrentHashMap<Long, ListeCroissante>();
+
+	// Items et titres normalisés par numéro d'ajout ; nbItems est publié après l'écriture des tableaux
+	private Item[] items = new Item[1024];
+	private String[] cles = new String[1024];
+	private volatile int nbItems = 0;
+
+	/**
+	 * Indexe le titre d'un nouvel item
+	 * @param cle titre normalisé de l'item
+	 * @param item item à indexer
+	 */
+	synchronized void ajouter(String cle, Item item) {
+		int numero = nbItems;
+		if (numero == items.length) {
+			Item[] plusItems = new Item[numero * 2];
+			String[] plusCles = new String[numero * 2];
+			System.arraycopy(items, 0, plusItems, 0, numero);
+			System.arraycopy(cles, 0, plusCles, 0, numero);
+			items = plusItems;
+			cles = plusCles;
+		}
+		items[numero] = item;
+		cles[numero] = cle;
+		for (int i = 0; i + 3 <= cle.length(); i++) {
+			Long t = trigramme(cle, i);
+			ListeCroissante liste = trigrammes.get(t);
+			if (liste == null)
+				trigrammes.put(t, liste = new ListeCroissante());
+			if (liste.nb() == 0 || liste.dernier() != numero) // un trigramme répété dans le titre n'est noté qu'une fois
+				liste.ajouter(numero);
+		}
+		nbItems = numero + 1;
+		((item instanceof Film) ? films : books).put(cle, item);
+	}
+
+	/**
+	 * Recherche les items dont le titre commence par le fragment, puis ceux dont le titre le contient.
+	 * @param fragment fragment normalisé (sans leading ni trailing blanks, en majuscules), non vide
+	 * @param max nombre maximal de résultats
+	 * @return au plus max items : d'abord ceux dont le titre commence par le fragment, dans l'ordre alphabétique
+	 * (films puis livres), puis les autres dans l'ordre d'ajout
+	 */
+	List<Item> rechercher(String fragment, int max) {
+		ArrayList<Item> resultat = new ArrayList<Item>(Math.min(max, 1024));
+		Set<Item> trouves = Collections.newSetFromMap(new IdentityHashMap<Item, Boolean>());
+		prefixes(films, fragment, max, resultat, trouves);
+		prefixes(books, fragment, max, resultat, trouves);
+		if (fragment.length() < 3 || resultat.size() >= max)
+			return resultat;
+
+		// Liste du trigramme le plus rare du fragment
+		ListeCroissante plusRare = null;
+		for (int i = 0; i + 3 <= fragment.length(); i++) {
+			ListeCroissante liste = trigrammes.get(trigramme(fragment, i));
+			if (liste == null)
+				return resultat; // aucun titre ne contient ce trigramme
+			if (plusRare == null || liste.nb() < plusRare.nb())
+				plusRare = liste;
+		}
+		int n = nbItems; // lecture volatile : items et cles sont au moins aussi récents
+		Item[] items = this.items;
+		String[] cles = this.cles;
+		ListeCroissante.Curseur curseur = plusRare.curseur();
+		int examines = 0;
+		for (int numero = curseur.suivant(); numero != -1 && numero < n && examines < MAX_CANDIDATS; numero = curseur.suivant()) {
+			examines++;
+			if (cles[numero].indexOf(fragment) > 0 && trouves.add(items[numero])) {
+				resultat.add(items[numero]);
+				if (resultat.size() >= max)
+					break;
+			}
+		}
+		return resultat;
+	}
+
+	private static void prefixes(ConcurrentSkipListMap<String, Item> table, String fragment, int max, List<Item> resultat, Set<Item> trouves) {
+		ConcurrentNavigableMap<String, Item> suite = table.tailMap(fragment);
+		Iterator<Map.Entry<String, Item>> it = suite.entrySet().iterator();
+		while (resultat.size() < max && it.hasNext()) {
+			Map.Entry<String, Item> e = it.next();
+			if (!e.getKey().startsWith(fragment))
+				break;
+			if (trouves.add(e.getValue()))
+				resultat.add(e.getValue());
+		}
+	}
+
+	private static Long trigramme(String s, int i) {
+		return ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+	}
+}
@@ -0,0 +1,281 @@
+package avis;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Instantané binaire d'un <i>SocialNetwork</i> : membres, films, livres et reviews à un instant donné.
+ * <p>
+ * Disposition du fichier (entiers big-endian, chaînes en UTF-8 précédées de leur longueur en varint) :
+ * en-tête [magique][version][position du journal],
+ * puis [nb membres][pseudo, password, profil, somme des évaluations reçues (double), nb évaluations reçues]*,
+ * puis [nb films][titre, genre, réalisateur, scénariste, durée, nb reviews, [review]*]*,
+ * puis [nb livres][titre, genre, auteur, nb pages, nb reviews, [review]*]*,
+ * chaque review ayant la forme [n° membre, note, poids, commentaire, nb évaluations, [n° membre, note]*].
+ * Les reviews et les évaluations désignent leur auteur par son rang dans la liste des membres.
+ * </p>
+ * <p>
+ * Le karma des membres et le poids des reviews sont restaurés tels quels : les évaluations sont seulement
+ * rattachées à leur review, sans repondérer les reviews de leur auteur. Les instantanés de version 1
+ * (antérieurs aux évaluations) et 2 (sans karma ni poids) restent lisibles ; leurs évaluations sont rejouées.
+ * </p>
+ * <p>
+ * Le chargement projette le fichier en mémoire (FileChannel.map) et le décode sans analyse textuelle :
+ * un démarrage consiste à parcourir la projection et à reconstruire les index.
+ * </p>
+ * @author Yann Andreu et Yannick Omnès
+ *
+ */
+class Instantane {
+
+	private static final int MAGIQUE = 0x534E4150; // "SNAP"
+	private static final int VERSION = 3;
+
+	/**
+	 * Reçoit le contenu d'un instantané : les mutations du journal, et l'état dérivé des évaluations
+	 */
+	interface Chargement extends Journal.Rejeu {
+		/**
+		 * Restaure les évaluations reçues par un membre, avant le chargement des reviews
+		 */
+		void karma(String pseudo, double sommeEvaluations, int nbEvaluations);
+		/**
+		 * Dépose une review avec le poids qu'elle avait lors de l'écriture de l'instantané
+		 */
+		void review(byte typeItem, String pseudo, String titre, float note, String commentaire, float poids);
+		/**
+		 * Rattache une évaluation à sa review, sans changer le karma de son auteur (déjà restauré)
+		 */
+		void evaluationRestauree(byte typeItem, String evaluateur, String titre, String auteur, float note);
+	}
+
+	// Taille maximale d'une fenêtre de projection : les fichiers plus grands sont projetés par morceaux
+	private static final long FENETRE = 1L << 30;
+
+	/**
+	 * Ecrit un instantané dans un fichier temporaire puis le renomme, pour ne jamais laisser d'instantané partiel.
+	 * L'appelant doit garantir qu'aucune mutation n'a lieu pendant l'écriture.
+	 * @param fichier fichier de l'instantané
+	 * @param positionJournal position du journal correspondant à cet instantané (0 sans journal)
+	 * @throws IOException si le fichier ne peut être écrit
+	 */
+	static void ecrire(Path fichier, long positionJournal, Collection<Member> membres, Collection<Film> films, Collection<Book> books) throws IOException {
+		Path temporaire = fichier.resolveSibling(fichier.getFileName() + ".tmp");
+		try (FileChannel canal = FileChannel.open(temporaire, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			OutputStream flux = new BufferedOutputStream(Channels.newOutputStream(canal), 1 << 20);
+			DataOutputStream out = new DataOutputStream(flux);
+			out.writeInt(MAGIQUE);
+			out.writeInt(VERSION);
+			out.writeLong(positionJournal);
+
+			IdentityHashMap<Member, Integer> rangs = new IdentityHashMap<Member, Integer>(membres.size() * 2);
+			out.writeInt(membres.size());
+			for (Member m : membres) {
+				rangs.put(m, rangs.size());
+				ecrireChaine(out, m.getPseudo());
+				ecrireChaine(out, m.getPassword());
+				ecrireChaine(out, m.getProfil());
+				synchronized (m) {
+					out.writeDouble(m.sommeEvaluations());
+					out.writeInt(m.nbEvaluations());
+				}
+			}
+
+			out.writeInt(films.size());
+			for (Film f : films) {
+				ecrireChaine(out, f.getTitre());
+				ecrireChaine(out, f.getGenre());
+				ecrireChaine(out, f.getRealisateur());
+				ecrireChaine(out, f.getScenariste());
+				out.writeInt(f.getDuree());
+				ecrireReviews(out, f, rangs);
+			}
+
+			out.writeInt(books.size());
+			for (Book b : books) {
+				ecrireChaine(out, b.getTitre());
+				ecrireChaine(out, b.getGenre());
+				ecrireChaine(out, b.getAuteur());
+				out.writeInt(b.getNbPages());
+				ecrireReviews(out, b, rangs);
+			}
+			out.flush();
+			canal.force(true);
+		}
+		Files.move(temporaire, fichier, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private static void ecrireReviews(DataOutputStream out, Item item, IdentityHashMap<Member, Integer> rangs) throws IOException {
+		synchronized (item) {
+			ColonnesReviews reviews = item.reviews;
+			out.writeInt(reviews.taille());
+			for (int i = 0; i < reviews.taille(); i++) {
+				out.writeInt(rangs.get(reviews.membre(i)));
+				out.writeFloat(reviews.note(i));
+				out.writeFloat(reviews.poids(i));
+				ecrireChaine(out, reviews.commentaire(i));
+				Map<Member, Float> evaluations = reviews.evaluations(i);
+				if (evaluations==null)
+					out.writeInt(0);
+				else {
+					out.writeInt(evaluations.size());
+					for (Map.Entry<Member, Float> e : evaluations.entrySet()) {
+						out.writeInt(rangs.get(e.getKey()));
+						out.writeFloat(e.getValue());
+					}
+				}
+			}
+		}
+	}
+
+	private static void ecrireChaine(DataOutputStream out, String s) throws IOException {
+		byte[] octets = s.getBytes(StandardCharsets.UTF_8);
+		int n = octets.length;
+		while ((n & ~0x7F) != 0) {
+			out.writeByte((n & 0x7F) | 0x80);
+			n >>>= 7;
+		}
+		out.writeByte(n);
+		out.write(octets);
+	}
+
+	/**
+	 * Charge un instantané en transmettant son contenu, dans l'ordre, au destinataire.
+	 * Les reviews désignent leur membre et leur item par les mêmes instances de String que celles transmises
+	 * lors de la création du membre et de l'item.
+	 * @param fichier fichier de l'instantané
+	 * @param destinataire destinataire des membres, items et reviews lus
+	 * @return la position du journal correspondant à l'instantané
+	 * @throws IOException si le fichier ne peut être lu ou n'est pas un instantané valide
+	 */
+	static long charger(Path fichier, Chargement destinataire) throws IOException {
+		try (FileChannel canal = FileChannel.open(fichier, StandardOpenOption.READ)) {
+			Lecteur in = new Lecteur(canal);
+			int version = (in.entier() == MAGIQUE) ? in.entier() : 0;
+			if (version < 1 || version > VERSION)
+				throw new IOException(fichier + " n'est pas un instantané de SocialNetwork valide.");
+			long positionJournal = in.entierLong();
+
+			String[] pseudos = new String[in.entier()];
+			for (int i = 0; i < pseudos.length; i++) {
+				pseudos[i] = in.chaine();
+				destinataire.membre(pseudos[i], in.chaine(), in.chaine());
+				if (version >= 3)
+					destinataire.karma(pseudos[i], Double.longBitsToDouble(in.entierLong()), in.entier());
+			}
+
+			int nbFilms = in.entier();
+			for (int i = 0; i < nbFilms; i++) {
+				String titre = in.chaine();
+				destinataire.film(titre, in.chaine(), in.chaine(), in.chaine(), in.entier());
+				chargerReviews(in, version, Journal.REVIEW_FILM, titre, pseudos, destinataire);
+			}
+
+			int nbBooks = in.entier();
+			for (int i = 0; i < nbBooks; i++) {
+				String titre = in.chaine();
+				destinataire.book(titre, in.chaine(), in.chaine(), in.entier());
+				chargerReviews(in, version, Journal.REVIEW_BOOK, titre, pseudos, destinataire);
+			}
+			return positionJournal;
+		}
+	}
+
+	private static void chargerReviews(Lecteur in, int version, byte type, String titre, String[] pseudos, Chargement destinataire) throws IOException {
+		byte typeEvaluation = (type == Journal.REVIEW_FILM) ? Journal.EVALUATION_FILM : Journal.EVALUATION_BOOK;
+		int nb = in.entier();
+		for (int i = 0; i < nb; i++) {
+			String auteur = pseudos[in.entier()];
+			float note = Float.intBitsToFloat(in.entier());
+			if (version >= 3) {
+				float poids = Float.intBitsToFloat(in.entier());
+				destinataire.review(type, auteur, titre, note, in.chaine(), poids);
+			}
+			else
+				destinataire.review(type, auteur, titre, note, in.chaine());
+			if (version < 2)
+				continue;
+			int nbEvaluations = in.entier();
+			for (int j = 0; j < nbEvaluations; j++) {
+				String evaluateur = pseudos[in.entier()];
+				float noteEvaluation = Float.intBitsToFloat(in.entier());
+				if (version >= 3)
+					destinataire.evaluationRestauree(typeEvaluation, evaluateur, titre, auteur, noteEvaluation);
+				else
+					destinataire.evaluation(typeEvaluation, evaluateur, titre, auteur, noteEvaluation);
+			}
+		}
+	}
+
+	/**
+	 * Lecture d'un fichier projeté en mémoire par fenêtres successives
+	 */
+	private static class Lecteur {
+		private final FileChannel canal;
+		private final long taille;
+		private MappedByteBuffer fenetre;
+		private long debutFenetre;
+		private byte[] octets = new byte[256];
+
+		Lecteur(FileChannel canal) throws IOException {
+			this.canal = canal;
+			this.taille = canal.size();
+			projeter(0);
+		}
+
+		private void projeter(long position) throws IOException {
+			debutFenetre = position;
+			fenetre = canal.map(FileChannel.MapMode.READ_ONLY, position, Math.min(FENETRE, taille - position));
+		}
+
+		// Garantit que n octets sont lisibles dans la fenêtre courante
+		private void assurer(int n) throws IOException {
+			if (fenetre.remaining() < n) {
+				long position = debutFenetre + fenetre.position();
+				if (taille - position < n)
+					throw new IOException("Instantané tronqué.");
+				projeter(position);
+			}
+		}
+
+		int entier() throws IOException {
+			assurer(4);
+			return fenetre.getInt();
+		}
+
+		long entierLong() throws IOException {
+			assurer(8);
+			return fenetre.getLong();
+		}
+
+		String chaine() throws IOException {
+			assurer((int) Math.min(5, taille - debutFenetre - fenetre.position())); // longueur en varint
+			int n = 0;
+			int decalage = 0;
+			byte b;
+			do {
+				b = fenetre.get();
+				n |= (b & 0x7F) << decalage;
+				decalage += 7;
+			} while ((b & 0x80) != 0);
+			assurer(n);
+			if (octets.length < n)
+				octets = new byte[Math.max(n, octets.length * 2)];
+			fenetre.get(octets, 0, n);
+			return new String(octets, 0, n, StandardCharsets.UTF_8);
+		}
+	}
+}
@@ -1,19 +1,61 @@
 package avis;
 
-import java.util.LinkedList;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Permet de regrouper les items sous un même type
  * On ne factorise aucun attribut et méthode. En effet, ce classe doit rester la plus générique possible pour pouvoir désigner n'importe quel item qui serait ajouté plus tard sur ToutAvis
+ * Les reviews et leurs agrégats sont protégés par le verrou de l'item lui-même.
  * @author Yann Andreu et Yannick Omnès
  *
  */
 public abstract class Item {
 	
-	protected LinkedList<Review> reviews;
+	private static final AtomicLong compteur = new AtomicLong();
+	
+	// Numéro de création, qui départage les items de même moyenne dans les classements
+	final long numero = compteur.incrementAndGet();
+	
+	// Classements auxquels participe l'item (par type, par genre), et sa position dans chacun
+	private Classement<?>[] classements;
+	private Classement.Entree[] entrees;
+	
+	// Index des commentaires auquel l'item signale chaque commentaire déposé ou remplacé
+	private IndexCommentaires indexCommentaires;
+	
+	// Cache de la représentation textuelle, et version de l'item incrémentée à chaque modification qui la change
+	private CacheRepresentations cache;
+	private volatile int version = 0;
+	
+	// Reviews dans l'ordre de dépôt (pour l'affichage), en colonnes, retrouvées par le Member qui les a déposées
+	final ColonnesReviews reviews = new ColonnesReviews();
+	
+	// Agrégats des notes, maintenus à chaque appel de addOrModifyReview (et de reponderer pour les sommes pondérées)
+	private double sommeNotes = 0.0;
+	private double sommeNotesPonderees = 0.0;
+	private double sommePoids = 0.0;
+	private float noteMin = Float.NaN;
+	private float noteMax = Float.NaN;
+	private boolean bornesAJour = true;
 	
 	/**
-	 * Ajoute une review dans la LinkedList reviews attachée à l'item.
+	 * Renvoie le titre de l'item courant
+	 * @return le titre de l'item courant
+	 */
+	public abstract String getTitre();
+	
+	/**
+	 * Renvoie le genre de l'item courant
+	 * @return le genre de l'item courant
+	 */
+	public abstract String getGenre();
+	
+	/**
+	 * Ajoute une review à l'item, ou modifie celle déjà déposée par le même membre (en temps constant).
+	 * La review est pondérée par le karma actuel du membre. Lorsque des reviews peuvent être évaluées en parallèle,
+	 * l'appelant doit détenir le verrou du membre, pour qu'un changement de karma n'oublie pas la nouvelle review.
 	 * @see Review
 	 * @param membre
 	 * 		Member qui évalue l'item
@@ -23,26 +65,329 @@ public abstract class Item {
 	 * 		commentaire rédigé par le membre sur l'item
 	 */
 	public void addOrModifyReview(Member membre, float note, String commentaire){
+		addOrModifyReview(membre, note, commentaire, membre.getKarma());
+	}
+	
+	/**
+	 * Ajoute une review à l'item avec un poids donné, ou modifie celle déjà déposée par le même membre
+	 * (dont le poids est alors conservé).
+	 * @param poids poids de la nouvelle review : le karma de son auteur, ou celui lu dans un instantané
+	 */
+	synchronized void addOrModifyReview(Member membre, float note, String commentaire, float poids){
 		// Si le Member membre a déjà déposé un avis, on le modifie
-		for (int i=0; i<reviews.size();i++)
-			if(reviews.get(i).getMembre().equals(membre)){
-				reviews.get(i).setNote(note);
-				reviews.get(i).setCommentaire(commentaire);
-				return;
-			}
+		int rang = reviews.rang(membre);
+		if (rang>=0) {
+			float ancienneNote = reviews.note(rang);
+			reviews.setNote(rang, note);
+			boolean commentaireModifie = reviews.remplacerCommentaire(rang, commentaire);
+			sommeNotes += note - ancienneNote;
+			sommeNotesPonderees += reviews.poids(rang) * (note - ancienneNote);
+			// Si l'ancienne note était une borne, elle n'est peut-être plus atteinte : recalcul à la demande
+			if (ancienneNote==noteMin || ancienneNote==noteMax)
+				bornesAJour = false;
+			else
+				elargirBornes(note);
+			if (commentaireModifie && indexCommentaires!=null)
+				reviews.setDoc(rang, indexCommentaires.indexer(this, rang, reviews.doc(rang), commentaire));
+			modifie();
+			reclasser();
+			return;
+		}
 		
 		// Si on n'a pas trouvé d'avis pour membre, on en crée un
-		this.reviews.add(new Review(membre, note, commentaire));
+		rang = reviews.ajouter(membre, note, commentaire, poids);
+		membre.itemsEvalues.add(this);
+		sommeNotes += note;
+		sommeNotesPonderees += poids * note;
+		sommePoids += poids;
+		elargirBornes(note);
+		if (indexCommentaires!=null)
+			reviews.setDoc(rang, indexCommentaires.indexer(this, rang, -1, commentaire));
+		modifie();
+		reclasser();
+	}
+	
+	/**
+	 * Ecrit la description de l'item courant dans out, reviews comprises, sans construire de String intermédiaire
+	 * @param out destination de la description
+	 * @throws IOException si l'écriture dans out échoue
+	 */
+	public abstract void writeTo(Appendable out) throws IOException;
+	
+	/**
+	 * Ecrit les informations propres à l'item courant dans out (titre, genre, etc.), sans la note moyenne ni les reviews
+	 * @param out destination des informations
+	 * @throws IOException si l'écriture dans out échoue
+	 */
+	protected abstract void writeEnteteTo(Appendable out) throws IOException;
+	
+	/**
+	 * Renvoie la description de l'item courant, construite à partir de writeTo.
+	 * Si l'item appartient à un <i>SocialNetwork</i>, la description est mémorisée jusqu'à la prochaine modification de l'item.
+	 */
+	public String toString() {
+		CacheRepresentations c = cache;
+		return (c==null) ? representer().texte : c.representation(this);
+	}
+	
+	/**
+	 * Construit la description de l'item courant, avec la version de l'item qu'elle décrit
+	 */
+	synchronized CacheRepresentations.Representation representer() {
+		StringBuilder s = new StringBuilder();
+		try {
+			writeTo(s);
+		} catch (IOException e) { // impossible avec un StringBuilder
+			throw new IllegalStateException(e);
+		}
+		return new CacheRepresentations.Representation(s.toString(), version);
+	}
+	
+	/**
+	 * @return la version de l'item, incrémentée à chaque modification de sa description
+	 */
+	int version() {
+		return version;
+	}
+	
+	/**
+	 * Change la version de l'item après une modification, sous son verrou, et libère sa description en cache
+	 */
+	private void modifie() {
+		version++;
+		if (cache!=null)
+			cache.invalider(this);
+	}
+	
+	/**
+	 * Ecrit la note moyenne puis toutes les reviews de l'item courant dans out
+	 * @param out destination
+	 * @throws IOException si l'écriture dans out échoue
+	 */
+	protected synchronized void writeReviewsTo(Appendable out) throws IOException {
+		writeMoyenneTo(out, this.nbReviews(), this.moyenneNotesReview());
+		for(int i = 0; i < reviews.taille(); i++) { // Ajoute tous les avis déposés sur cet item
+			Review.writeTo(out, reviews.membre(i), reviews.note(i), reviews.commentaire(i));
+			out.append('\n');
+		}
+	}
+	
+	/**
+	 * Ecrit la note moyenne d'un item dans out, suivie de l'en-tête de ses avis
+	 * @param out destination
+	 * @param nbReviews nombre de reviews de l'item
+	 * @param moyenne note moyenne de l'item
+	 * @throws IOException si l'écriture dans out échoue
+	 */
+	static void writeMoyenneTo(Appendable out, int nbReviews, float moyenne) throws IOException {
+		if (nbReviews>0)
+			out.append("Note moyenne : ").append(String.valueOf(moyenne)).append("/5 \n");
+		else
+			out.append("Note moyenne : pas encore noté\n");
+		out.append("Avis : \n");
+	}
+	
+	/**
+	 * Renvoie la moyenne des notes des reviews associées à l'item courant, pondérée par le karma de leurs auteurs,
+	 * en temps constant. Si tous les auteurs ont un karma nul, la moyenne n'est pas pondérée.
+	 * @return la moyenne des notes associées à l'item courant, 0 si l'item n'a pas encore été noté.
+	 */
+	public synchronized float moyenneNotesReview(){
+		if (reviews.taille()==0)
+			return 0.0f;
+		if (sommePoids>0.0)
+			return (float) (sommeNotesPonderees / sommePoids);
+		return (float) (sommeNotes / reviews.taille());	
+	}
+	
+	/**
+	 * Résume l'item courant : moyenne, nombre de reviews et bornes des notes, relevés ensemble.
+	 * @return le résumé de l'item
+	 */
+	synchronized ResumeItem resumer(){
+		return new ResumeItem(this, moyenneNotesReview(), reviews.taille(), noteMin(), noteMax());
+	}
+	
+	/**
+	 * Copie une page de reviews de l'item courant, dans l'ordre de dépôt.
+	 * @param debut rang de la première review copiée
+	 * @param nb nombre maximal de reviews copiées
+	 * @param page liste à laquelle sont ajoutées les copies
+	 * @return le rang de la review qui suit la page, -1 si la page contient la dernière review
+	 */
+	synchronized int copierReviews(int debut, int nb, List<Review> page){
+		int fin = (int) Math.min((long) debut + nb, reviews.taille());
+		for (int i = debut; i < fin; i++)
+			page.add(copier(i));
+		return (fin < reviews.taille()) ? fin : -1;
+	}
+	
+	/**
+	 * Construit une copie de la review de rang donné, rattachée à l'item courant
+	 */
+	private Review copier(int rang){
+		Review copie = new Review(reviews.membre(rang), reviews.note(rang), reviews.commentaire(rang));
+		copie.item = this;
+		return copie;
+	}
+	
+	/**
+	 * Renvoie une copie de la review déposée par un membre sur l'item courant.
+	 * @param membre auteur de la review
+	 * @return la copie de la review, null si le membre n'a pas évalué l'item
+	 */
+	synchronized Review reviewDe(Member membre){
+		int rang = reviews.rang(membre);
+		return (rang<0) ? null : copier(rang);
+	}
+	
+	/**
+	 * @param membre membre quelconque
+	 * @return true si le membre a déposé une review sur l'item courant
+	 */
+	synchronized boolean aEvalue(Member membre){
+		return reviews.rang(membre)>=0;
+	}
+	
+	/**
+	 * Renvoie une copie d'une review de l'item courant, si son commentaire est toujours celui qu'a indexé
+	 * l'index des commentaires sous ce numéro.
+	 * @param rang rang de la review, -1 s'il doit être retrouvé à partir du numéro du commentaire
+	 * @param doc numéro du commentaire dans l'index
+	 * @return la copie de la review, null si son commentaire a été remplacé depuis
+	 */
+	synchronized Review reviewIndexee(int rang, int doc){
+		if (rang<0)
+			rang = reviews.rangIndexe(doc);
+		return (rang>=0 && reviews.doc(rang)==doc) ? copier(rang) : null;
+	}
+	
+	/**
+	 * Renvoie le commentaire d'une review de l'item courant, s'il est toujours celui qu'a indexé l'index
+	 * des commentaires sous ce numéro.
+	 * @param rang rang de la review, -1 s'il doit être retrouvé à partir du numéro du commentaire
+	 * @param doc numéro du commentaire dans l'index
+	 * @return le commentaire, null s'il a été remplacé depuis
+	 */
+	synchronized String commentaireIndexe(int rang, int doc){
+		if (rang<0)
+			rang = reviews.rangIndexe(doc);
+		return (rang>=0 && reviews.doc(rang)==doc) ? reviews.commentaire(rang) : null;
+	}
+	
+	/**
+	 * Ajoute ou modifie l'évaluation de la review d'un membre sur l'item courant par un autre membre.
+	 * @param auteur auteur de la review évaluée
+	 * @param evaluateur membre qui évalue la review
+	 * @param note note attribuée à la review
+	 * L'auteur doit avoir déposé une review sur l'item (voir aEvalue).
+	 * @return l'ancienne note de l'évaluateur, NaN s'il n'avait pas encore évalué cette review
+	 */
+	synchronized float evaluer(Member auteur, Member evaluateur, float note){
+		int rang = reviews.rang(auteur);
+		Float ancienne = reviews.evaluer(rang, evaluateur, note);
+		return (ancienne==null) ? Float.NaN : ancienne;
+	}
+	
+	/**
+	 * Modifie le poids de la review d'un membre sur l'item courant après un changement de son karma, en temps constant.
+	 * @param auteur auteur de la review repondérée
+	 * @param poids nouveau poids
+	 */
+	synchronized void reponderer(Member auteur, float poids){
+		int rang = reviews.rang(auteur);
+		float ancien = reviews.poids(rang);
+		sommeNotesPonderees += (poids - ancien) * reviews.note(rang);
+		sommePoids += poids - ancien;
+		reviews.setPoids(rang, poids);
+		modifie();
+		reclasser();
+	}
+	
+	/**
+	 * Inscrit l'item dans des classements, avant sa publication dans le <i>SocialNetwork</i>.
+	 * @param classements classements auxquels participe l'item
+	 */
+	void classer(Classement<?>... classements){
+		this.classements = classements;
+		this.entrees = new Classement.Entree[classements.length];
+	}
+	
+	/**
+	 * Inscrit l'item dans un index des commentaires, avant sa publication dans le <i>SocialNetwork</i>.
+	 * @param index index qui recevra les commentaires des reviews de l'item
+	 */
+	void indexerCommentaires(IndexCommentaires index){
+		this.indexCommentaires = index;
+	}
+	
+	/**
+	 * Confie la description de l'item à un cache, avant sa publication dans le <i>SocialNetwork</i>.
+	 * @param cache cache des descriptions des items
+	 */
+	void memoriserDans(CacheRepresentations cache){
+		this.cache = cache;
+	}
+	
+	/**
+	 * Met à jour la position de l'item dans ses classements après un changement de moyenne ou de seuil
+	 */
+	synchronized void reclasser(){
+		if (classements==null)
+			return;
+		float moyenne = moyenneNotesReview();
+		for (int i = 0; i < classements.length; i++)
+			entrees[i] = classements[i].mettreAJour(this, entrees[i], moyenne, reviews.taille());
+	}
+	
+	/**
+	 * Renvoie le nombre de reviews déposées sur l'item courant.
+	 * @return le nombre de reviews de l'item courant
+	 */
+	public synchronized int nbReviews(){
+		return reviews.taille();
+	}
+	
+	/**
+	 * Renvoie la plus petite note attribuée à l'item courant.
+	 * @return la note minimale, NaN si l'item n'a pas encore été noté.
+	 */
+	public synchronized float noteMin(){
+		if (!bornesAJour)
+			recalculerBornes();
+		return noteMin;
+	}
+	
+	/**
+	 * Renvoie la plus grande note attribuée à l'item courant.
+	 * @return la note maximale, NaN si l'item n'a pas encore été noté.
+	 */
+	public synchronized float noteMax(){
+		if (!bornesAJour)
+			recalculerBornes();
+		return noteMax;
+	}
+	
+	/**
+	 * Etend les bornes min/max pour inclure une nouvelle note, si elles sont à jour.
+	 */
+	private void elargirBornes(float note){
+		if (!bornesAJour)
+			return;
+		if (Float.isNaN(noteMin) || note<noteMin)
+			noteMin = note;
+		if (Float.isNaN(noteMax) || note>noteMax)
+			noteMax = note;
 	}
 	
 	/**
-	 * Renvoie la moyenne des notes des reviews associées à l'item courant.
-	 * @return la moyenne des notes associées à l'item courant.
+	 * Recalcule les bornes min/max. Ce parcours n'a lieu que lorsqu'une borne a été modifiée.
 	 */
-	public float moyenneNotesReview(){
-		float sommeNotes = 0.0f;
-		for(Review r : reviews)
-			sommeNotes += r.getNote();
-		return (sommeNotes / reviews.size());	
+	private void recalculerBornes(){
+		noteMin = Float.NaN;
+		noteMax = Float.NaN;
+		bornesAJour = true;
+		for(int i = 0; i < reviews.taille(); i++)
+			elargirBornes(reviews.note(i));
 	}
 }
@@ -0,0 +1,437 @@
+package avis;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Journal binaire en ajout seul (write-ahead log) des mutations réussies d'un <i>SocialNetwork</i>.
+ * <p>
+ * Chaque enregistrement a la forme [longueur][type][champs][crc32] : un enregistrement incomplet ou corrompu
+ * en fin de fichier (arrêt brutal pendant une écriture) est ignoré et tronqué à la réouverture.
+ * Les chaînes sont codées en UTF-8 précédées de leur longueur en varint, les entiers et les notes sur 4 octets.
+ * </p>
+ * <p>
+ * Les enregistrements sont d'abord ajoutés à un tampon en mémoire, puis écrits par lots : le premier thread
+ * qui a besoin que son enregistrement soit sur disque écrit (et force, selon la politique) tout le tampon,
+ * validant du même coup les enregistrements des autres threads (group commit).
+ * </p>
+ * <p>
+ * Si une écriture échoue, le lot est conservé et sera réécrit en entier à partir de la fin du dernier lot écrit,
+ * recouvrant un éventuel enregistrement écrit en partie. Tant que ce lot n'est pas écrit, le journal refuse
+ * les nouveaux enregistrements : la mutation correspondante n'est pas appliquée en mémoire. Chaque refus
+ * commence par réessayer d'écrire le lot en attente.
+ * </p>
+ * @author Yann Andreu et Yannick Omnès
+ *
+ */
+class Journal implements Closeable {
+
+	static final byte MEMBRE = 1;
+	static final byte FILM = 2;
+	static final byte BOOK = 3;
+	static final byte REVIEW_FILM = 4;
+	static final byte REVIEW_BOOK = 5;
+	static final byte EVALUATION_FILM = 6;
+	static final byte EVALUATION_BOOK = 7;
+
+	/**
+	 * Reçoit les mutations lues dans le journal lors du rejeu
+	 */
+	interface Rejeu {
+		void membre(String pseudo, String password, String profil);
+		void film(String titre, String genre, String realisateur, String scenariste, int duree);
+		void book(String titre, String genre, String auteur, int nbPages);
+		void review(byte typeItem, String pseudo, String titre, float note, String commentaire);
+		void evaluation(byte typeItem, String evaluateur, String titre, String auteur, float note);
+	}
+
+	private final FileChannel canal;
+	private final PolitiqueSynchronisation politique;
+	private final ScheduledExecutorService synchroniseur;
+
+	// Tampon des enregistrements pas encore écrits, protégé par this
+	private byte[] tampon = new byte[64 * 1024];
+	private int taille = 0;
+	private int debutEnregistrement;
+	// Position (en octets depuis le début du fichier) à la fin du tampon, protégée par this
+	private long positionAjoutee;
+	private final CRC32 crc = new CRC32();
+
+	// Position jusqu'à laquelle le journal est écrit (et forcé si la politique l'exige), protégée par verrouDisque
+	private final Object verrouDisque = new Object();
+	private volatile long positionValidee;
+	private byte[] tamponEcriture = new byte[64 * 1024];
+	// Octets du lot en cours d'écriture, ou dont l'écriture a échoué, au début de tamponEcriture (protégé par verrouDisque)
+	private int enAttente = 0;
+	// Dernier échec d'écriture, null si le journal est à jour ou si le lot en attente n'a pas encore échoué
+	private volatile IOException echec;
+
+	/**
+	 * Ouvre le journal en ajout. Le fichier doit avoir été rejoué (et tronqué à son dernier enregistrement valide) au préalable.
+	 * @param fichier fichier du journal, créé s'il n'existe pas
+	 * @param politique politique de synchronisation sur disque
+	 * @param periodeMillis période de synchronisation, pour la politique PERIODIQUE
+	 * @throws IOException si le fichier ne peut être ouvert
+	 */
+	Journal(Path fichier, PolitiqueSynchronisation politique, long periodeMillis) throws IOException {
+		this(FileChannel.open(fichier, StandardOpenOption.CREATE, StandardOpenOption.WRITE), politique, periodeMillis);
+	}
+
+	/**
+	 * Ouvre le journal en ajout sur un canal déjà ouvert, positionné n'importe où : les lots sont écrits à partir
+	 * de la taille du canal.
+	 * @param canal canal du journal, fermé par close
+	 * @param politique politique de synchronisation sur disque
+	 * @param periodeMillis période de synchronisation, pour la politique PERIODIQUE
+	 * @throws IOException si la taille du canal ne peut être lue
+	 */
+	Journal(FileChannel canal, PolitiqueSynchronisation politique, long periodeMillis) throws IOException {
+		this.canal = canal;
+		this.politique = politique;
+		this.positionAjoutee = canal.size();
+		this.positionValidee = positionAjoutee;
+		if (politique == PolitiqueSynchronisation.PERIODIQUE) {
+			synchroniseur = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "synchronisation-journal");
+					t.setDaemon(true);
+					return t;
+				}
+			});
+			synchroniseur.scheduleWithFixedDelay(new Runnable() {
+				public void run() {
+					try {
+						vider(Long.MAX_VALUE, true);
+					}
+					catch (UncheckedIOException e) {
+						// réessayé à la période suivante
+					}
+				}
+			}, periodeMillis, periodeMillis, TimeUnit.MILLISECONDS);
+		}
+		else
+			synchroniseur = null;
+	}
+
+	//===================================== ENREGISTREMENTS ==================================================
+
+	long membre(String pseudo, String password, String profil) {
+		reprendre();
+		synchronized (this) {
+			commencer(MEMBRE);
+			ecrireChaine(pseudo);
+			ecrireChaine(password);
+			ecrireChaine(profil);
+			return terminer();
+		}
+	}
+
+	long film(String titre, String genre, String realisateur, String scenariste, int duree) {
+		reprendre();
+		synchronized (this) {
+			commencer(FILM);
+			ecrireChaine(titre);
+			ecrireChaine(genre);
+			ecrireChaine(realisateur);
+			ecrireChaine(scenariste);
+			ecrireEntier(duree);
+			return terminer();
+		}
+	}
+
+	long book(String titre, String genre, String auteur, int nbPages) {
+		reprendre();
+		synchronized (this) {
+			commencer(BOOK);
+			ecrireChaine(titre);
+			ecrireChaine(genre);
+			ecrireChaine(auteur);
+			ecrireEntier(nbPages);
+			return terminer();
+		}
+	}
+
+	long review(byte typeItem, String pseudo, String titre, float note, String commentaire) {
+		reprendre();
+		synchronized (this) {
+			commencer(typeItem);
+			ecrireChaine(pseudo);
+			ecrireChaine(titre);
+			ecrireEntier(Float.floatToIntBits(note));
+			ecrireChaine(commentaire);
+			return terminer();
+		}
+	}
+
+	long evaluation(byte typeItem, String evaluateur, String titre, String auteur, float note) {
+		reprendre();
+		synchronized (this) {
+			commencer(typeItem);
+			ecrireChaine(evaluateur);
+			ecrireChaine(titre);
+			ecrireChaine(auteur);
+			ecrireEntier(Float.floatToIntBits(note));
+			return terminer();
+		}
+	}
+
+	/**
+	 * Si une écriture a échoué, réessaie d'écrire le lot en attente avant d'accepter un nouvel enregistrement
+	 * @throws UncheckedIOException si l'écriture échoue encore
+	 */
+	private void reprendre() {
+		if (echec != null)
+			vider(Long.MAX_VALUE, politique == PolitiqueSynchronisation.A_CHAQUE_ECRITURE);
+	}
+
+	/**
+	 * Ecrit et force sur disque tout ce qui a été journalisé. L'appelant empêche les nouveaux enregistrements
+	 * (voir SocialNetwork.ecrireInstantane) : la position renvoyée est alors celle du dernier enregistrement ajouté.
+	 * @return la position jusqu'à laquelle le journal est sur disque
+	 * @throws UncheckedIOException si l'écriture sur disque échoue
+	 */
+	long synchroniser() {
+		vider(Long.MAX_VALUE, true);
+		return positionValidee;
+	}
+
+	/**
+	 * Attend que l'enregistrement se terminant à la position donnée soit écrit selon la politique de synchronisation.
+	 * Avec la politique PERIODIQUE, ne fait rien : l'enregistrement sera écrit à la prochaine période.
+	 * @param position position renvoyée lors de l'ajout de l'enregistrement
+	 * @throws UncheckedIOException si l'écriture sur disque échoue
+	 */
+	void valider(long position) {
+		if (politique != PolitiqueSynchronisation.PERIODIQUE)
+			vider(position, politique == PolitiqueSynchronisation.A_CHAQUE_ECRITURE);
+	}
+
+	/**
+	 * Ecrit tout le tampon sur disque si la position demandée n'est pas encore validée.
+	 * Le lot est écrit à partir de positionValidee : après un échec, il est réécrit en entier au même endroit.
+	 */
+	private void vider(long position, boolean forcer) {
+		if (positionValidee >= position)
+			return;
+		synchronized (verrouDisque) {
+			if (positionValidee >= position) // un autre thread a écrit notre enregistrement avec les siens
+				return;
+			long fin;
+			synchronized (this) {
+				if (enAttente == 0) { // on échange les tampons pour laisser les autres threads continuer à journaliser
+					byte[] plein = tampon;
+					tampon = tamponEcriture;
+					tamponEcriture = plein;
+					enAttente = taille;
+				}
+				else { // le lot précédent n'a pas été écrit : les nouveaux enregistrements le suivent
+					if (enAttente + taille > tamponEcriture.length)
+						tamponEcriture = Arrays.copyOf(tamponEcriture, Math.max(tamponEcriture.length * 2, enAttente + taille));
+					System.arraycopy(tampon, 0, tamponEcriture, enAttente, taille);
+					enAttente += taille;
+				}
+				taille = 0;
+				fin = positionAjoutee;
+			}
+			try {
+				ByteBuffer bb = ByteBuffer.wrap(tamponEcriture, 0, enAttente);
+				long debut = positionValidee;
+				while (bb.hasRemaining())
+					canal.write(bb, debut + bb.position());
+				if (forcer)
+					canal.force(false);
+			}
+			catch (IOException e) {
+				echec = e;
+				throw new UncheckedIOException("Ecriture du journal impossible", e);
+			}
+			enAttente = 0;
+			echec = null;
+			positionValidee = fin;
+		}
+	}
+
+	/**
+	 * Ecrit et force sur disque tout ce qui a été journalisé, puis ferme le journal
+	 */
+	public void close() throws IOException {
+		if (synchroniseur != null)
+			synchroniseur.shutdownNow();
+		try {
+			vider(Long.MAX_VALUE, true);
+		}
+		catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+		finally {
+			canal.close();
+		}
+	}
+
+	//===================================== CODAGE ===========================================================
+
+	private void reserver(int n) {
+		if (taille + n > tampon.length) {
+			byte[] plusGrand = new byte[Math.max(tampon.length * 2, taille + n)];
+			System.arraycopy(tampon, 0, plusGrand, 0, taille);
+			tampon = plusGrand;
+		}
+	}
+
+	private void commencer(byte type) {
+		if (echec != null) // un lot a échoué depuis l'appel à reprendre
+			throw new UncheckedIOException("Journal indisponible depuis un échec d'écriture", echec);
+		reserver(5);
+		debutEnregistrement = taille;
+		taille += 4; // longueur, renseignée dans terminer()
+		tampon[taille++] = type;
+	}
+
+	private long terminer() {
+		int debutContenu = debutEnregistrement + 4;
+		int longueur = taille - debutContenu;
+		ecrireEntierA(debutEnregistrement, longueur);
+		crc.reset();
+		crc.update(tampon, debutContenu, longueur);
+		ecrireEntier((int) crc.getValue());
+		positionAjoutee += taille - debutEnregistrement;
+		return positionAjoutee;
+	}
+
+	private void ecrireEntier(int v) {
+		reserver(4);
+		ecrireEntierA(taille, v);
+		taille += 4;
+	}
+
+	private void ecrireEntierA(int position, int v) {
+		tampon[position] = (byte) (v >>> 24);
+		tampon[position + 1] = (byte) (v >>> 16);
+		tampon[position + 2] = (byte) (v >>> 8);
+		tampon[position + 3] = (byte) v;
+	}
+
+	private void ecrireChaine(String s) {
+		byte[] octets = s.getBytes(StandardCharsets.UTF_8);
+		reserver(5 + octets.length);
+		int n = octets.length;
+		while ((n & ~0x7F) != 0) {
+			tampon[taille++] = (byte) ((n & 0x7F) | 0x80);
+			n >>>= 7;
+		}
+		tampon[taille++] = (byte) n;
+		System.arraycopy(octets, 0, tampon, taille, octets.length);
+		taille += octets.length;
+	}
+
+	//===================================== REJEU ============================================================
+
+	/**
+	 * Rejoue un journal et le tronque après son dernier enregistrement valide.
+	 * @param fichier fichier du journal (ignoré s'il n'existe pas)
+	 * @param depuis position à partir de laquelle rejouer (0 pour tout le journal)
+	 * @param rejeu destinataire des mutations lues
+	 * @return le nombre d'enregistrements rejoués
+	 * @throws IOException si le fichier ne peut être lu, ou s'il s'arrête avant la position depuis : des enregistrements
+	 * validés auraient été perdus, et les suivants, ajoutés avant cette position, ne seraient jamais rejoués
+	 */
+	static long rejouer(Path fichier, long depuis, Rejeu rejeu) throws IOException {
+		if (!fichier.toFile().exists()) {
+			if (depuis > 0)
+				throw new IOException("Journal " + fichier + " absent alors que l'instantané en a lu " + depuis + " octets");
+			return 0;
+		}
+		long nb = 0;
+		long positionValide = depuis;
+		try (FileChannel canal = FileChannel.open(fichier, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			if (canal.size() < depuis)
+				throw new IOException("Journal " + fichier + " plus court (" + canal.size() + " octets) que la position de l'instantané (" + depuis + ")");
+			canal.position(depuis);
+			InputStream flux = new BufferedInputStream(Channels.newInputStream(canal), 1 << 20);
+			DataInputStream in = new DataInputStream(flux);
+			CRC32 crcLu = new CRC32();
+			byte[] contenu = new byte[256];
+			while (true) {
+				int longueur;
+				try {
+					longueur = in.readInt();
+					if (longueur <= 0 || longueur > canal.size())
+						break;
+					if (contenu.length < longueur)
+						contenu = new byte[Math.max(longueur, contenu.length * 2)];
+					in.readFully(contenu, 0, longueur);
+					int crcAttendu = in.readInt();
+					crcLu.reset();
+					crcLu.update(contenu, 0, longueur);
+					if ((int) crcLu.getValue() != crcAttendu)
+						break;
+				}
+				catch (EOFException e) { // enregistrement incomplet : fin du journal exploitable
+					break;
+				}
+				decoder(ByteBuffer.wrap(contenu, 0, longueur), rejeu);
+				positionValide += 8 + longueur;
+				nb++;
+			}
+			if (canal.size() > positionValide)
+				canal.truncate(positionValide);
+		}
+		return nb;
+	}
+
+	private static void decoder(ByteBuffer bb, Rejeu rejeu) {
+		byte type = bb.get();
+		switch (type) {
+		case MEMBRE:
+			rejeu.membre(lireChaine(bb), lireChaine(bb), lireChaine(bb));
+			break;
+		case FILM:
+			rejeu.film(lireChaine(bb), lireChaine(bb), lireChaine(bb), lireChaine(bb), bb.getInt());
+			break;
+		case BOOK:
+			rejeu.book(lireChaine(bb), lireChaine(bb), lireChaine(bb), bb.getInt());
+			break;
+		case REVIEW_FILM:
+		case REVIEW_BOOK:
+			rejeu.review(type, lireChaine(bb), lireChaine(bb), Float.intBitsToFloat(bb.getInt()), lireChaine(bb));
+			break;
+		case EVALUATION_FILM:
+		case EVALUATION_BOOK:
+			rejeu.evaluation(type, lireChaine(bb), lireChaine(bb), lireChaine(bb), Float.intBitsToFloat(bb.getInt()));
+			break;
+		default:
+			throw new IllegalStateException("Type d'enregistrement inconnu dans le journal : " + type);
+		}
+	}
+
+	static String lireChaine(ByteBuffer bb) {
+		int n = 0;
+		int decalage = 0;
+		byte b;
+		do {
+			b = bb.get();
+			n |= (b & 0x7F) << decalage;
+			decalage += 7;
+		} while ((b & 0x80) != 0);
+		String s = new String(bb.array(), bb.arrayOffset() + bb.position(), n, StandardCharsets.UTF_8);
+		bb.position(bb.position() + n);
+		return s;
+	}
+}
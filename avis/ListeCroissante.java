@@ -0,0 +1,95 @@
+package avis;
+
+/**
+ * Liste compressée d'entiers positifs croissants, en ajout seul : chaque entier est codé par son écart
+ * avec le précédent, en varint (1 octet pour un écart inférieur à 128).
+ * <p>
+ * Les ajouts doivent être faits sous un verrou commun à l'appelant ; la lecture se fait sans verrou :
+ * un lecteur voit au moins tous les entiers ajoutés avant qu'il ne commence à lire.
+ * </p>
+ * @author Yann Andreu et Yannick Omnès
+ *
+ */
+class ListeCroissante {
+
+	private byte[] octets = new byte[4];
+	private volatile int taille = 0; // octets utilisés, publié après l'écriture des octets
+	private int nb = 0;
+	private int dernier = 0;
+
+	/**
+	 * Ajoute un entier, supérieur ou égal au dernier ajouté
+	 */
+	void ajouter(int v) {
+		int ecart = v - dernier;
+		int t = taille;
+		if (t + 5 > octets.length) {
+			byte[] plusGrand = new byte[Math.max(octets.length + (octets.length >> 1), t + 5)];
+			System.arraycopy(octets, 0, plusGrand, 0, t);
+			octets = plusGrand;
+		}
+		while ((ecart & ~0x7F) != 0) {
+			octets[t++] = (byte) ((ecart & 0x7F) | 0x80);
+			ecart >>>= 7;
+		}
+		octets[t++] = (byte) ecart;
+		dernier = v;
+		nb++;
+		taille = t;
+	}
+
+	/**
+	 * @return le dernier entier ajouté (0 si la liste est vide)
+	 */
+	int dernier() {
+		return dernier;
+	}
+
+	/**
+	 * @return le nombre d'entiers de la liste (approché pendant un ajout concurrent)
+	 */
+	int nb() {
+		return nb;
+	}
+
+	/**
+	 * @return un curseur sur les entiers ajoutés jusqu'ici
+	 */
+	Curseur curseur() {
+		int t = taille; // lecture volatile : octets est au moins aussi récent
+		return new Curseur(octets, t);
+	}
+
+	/**
+	 * Parcours des entiers d'une liste, dans l'ordre croissant
+	 */
+	static final class Curseur {
+		private final byte[] octets;
+		private final int fin;
+		private int position = 0;
+		private int valeur = 0;
+
+		Curseur(byte[] octets, int fin) {
+			this.octets = octets;
+			this.fin = fin;
+		}
+
+		/**
+		 * @return l'entier suivant, -1 à la fin de la liste
+		 */
+		int suivant() {
+			if (position >= fin)
+				return valeur = -1;
+			int ecart = 0;
+			int decalage = 0;
+			byte b;
+			do {
+				b = octets[position++];
+				ecart |= (b & 0x7F) << decalage;
+				decalage += 7;
+			} while ((b & 0x80) != 0);
+			valeur += ecart;
+			return valeur;
+		}
+	}
+}
@@ -0,0 +1,131 @@
+package avis;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lot de membres, items et reviews à importer en une fois dans un <i>SocialNetwork</i> (voir SocialNetwork.importer).
+ * Les paramètres de chaque ligne sont ceux de l'opération unitaire correspondante.
+ * @author Yann Andreu et Yannick Omnès
+ *
+ */
+public class LotImport {
+
+	/**
+	 * Type d'une ligne d'import, nommé comme dans les fichiers CSV et JSONL
+	 */
+	enum Type {
+		MEMBRE("membre"), FILM("film"), BOOK("livre"), REVIEW_FILM("avis_film"), REVIEW_BOOK("avis_livre");
+
+		final String nom;
+
+		Type(String nom) {
+			this.nom = nom;
+		}
+
+		static Type depuisNom(String nom) {
+			for (Type t : values())
+				if (t.nom.equalsIgnoreCase(nom))
+					return t;
+			return null;
+		}
+	}
+
+	/**
+	 * Une ligne du lot, et le résultat de son traitement
+	 */
+	static class Ligne {
+		Type type;
+		int numero;
+		String pseudo, password, profil, titre, genre, realisateur, scenariste, auteur, commentaire;
+		int entier; // durée d'un film ou nombre de pages d'un livre
+		float note;
+
+		// Renseignés si la ligne est rejetée
+		CategorieErreur erreur;
+		String message;
+
+		void rejeter(CategorieErreur erreur, String message) {
+			this.erreur = erreur;
+			this.message = message;
+		}
+
+		void rejeter(Statut statut) {
+			rejeter(statut.getCategorie(), statut.getMessage());
+		}
+	}
+
+	private final ArrayList<Ligne> lignes = new ArrayList<Ligne>();
+
+	public void membre(String pseudo, String password, String profil) {
+		Ligne l = nouvelle(Type.MEMBRE);
+		l.pseudo = pseudo;
+		l.password = password;
+		l.profil = profil;
+	}
+
+	public void film(String pseudo, String password, String titre, String genre, String realisateur, String scenariste, int duree) {
+		Ligne l = nouvelle(Type.FILM);
+		l.pseudo = pseudo;
+		l.password = password;
+		l.titre = titre;
+		l.genre = genre;
+		l.realisateur = realisateur;
+		l.scenariste = scenariste;
+		l.entier = duree;
+	}
+
+	public void book(String pseudo, String password, String titre, String genre, String auteur, int nbPages) {
+		Ligne l = nouvelle(Type.BOOK);
+		l.pseudo = pseudo;
+		l.password = password;
+		l.titre = titre;
+		l.genre = genre;
+		l.auteur = auteur;
+		l.entier = nbPages;
+	}
+
+	public void reviewFilm(String pseudo, String password, String titre, float note, String commentaire) {
+		review(Type.REVIEW_FILM, pseudo, password, titre, note, commentaire);
+	}
+
+	public void reviewBook(String pseudo, String password, String titre, float note, String commentaire) {
+		review(Type.REVIEW_BOOK, pseudo, password, titre, note, commentaire);
+	}
+
+	private void review(Type type, String pseudo, String password, String titre, float note, String commentaire) {
+		Ligne l = nouvelle(type);
+		l.pseudo = pseudo;
+		l.password = password;
+		l.titre = titre;
+		l.note = note;
+		l.commentaire = commentaire;
+	}
+
+	/**
+	 * @return le nombre de lignes du lot
+	 */
+	public int size() {
+		return lignes.size();
+	}
+
+	private Ligne nouvelle(Type type) {
+		Ligne l = new Ligne();
+		l.type = type;
+		ajouter(l);
+		return l;
+	}
+
+	/**
+	 * Ajoute une ligne déjà construite (par le chargeur de fichiers), numérotée à la suite des précédentes
+	 */
+	void ajouter(Ligne l) {
+		lignes.add(l);
+		if (l.numero == 0)
+			l.numero = lignes.size();
+	}
+
+	List<Ligne> lignes() {
+		return lignes;
+	}
+}
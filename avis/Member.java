@@ -1,5 +1,7 @@
 package avis;
 
+import java.io.IOException;
+import java.util.ArrayList;
 
 /**
  * 
@@ -9,9 +11,24 @@ package avis;
 
 public class Member {
 	
-	private String pseudo;
-	private String password;
-	private String profil;
+	private final String pseudo;
+	private final String password;
+	private final String profil;
+	
+	// Identité stable du membre : son pseudo sans leading ni trailing blanks et en majuscules
+	private final String cle;
+	
+	/**
+	 * Karma d'un membre dont aucune review n'a encore été évaluée
+	 */
+	public static final float KARMA_INITIAL = 2.5f;
+	
+	// Evaluations reçues par les reviews du membre, et items sur lesquels il a déposé une review, protégés par le verrou du membre.
+	// Le karma est publié pour être lu sans verrou lors du dépôt d'une review.
+	private double sommeEvaluations = 0.0;
+	private int nbEvaluations = 0;
+	private volatile float karma = KARMA_INITIAL;
+	final ArrayList<Item> itemsEvalues = new ArrayList<Item>();
 	
 	/**
 	 * Construit un nouveau Member
@@ -26,6 +43,7 @@ public class Member {
 		this.pseudo = pseudo;
 		this.password = password;
 		this.profil = profil;
+		this.cle = SocialNetwork.normaliser(pseudo);
 	}
 	
 	/**
@@ -37,6 +55,15 @@ public class Member {
 		return this.pseudo;
 	}
 	
+	/**
+	 * Obtenir le password du membre courant, pour sa persistance uniquement
+	 * @return
+	 * 		Renvoie le password du membre courant
+	 */
+	String getPassword() {
+		return this.password;
+	}
+	
 	/**
 	 * Obtenir le profil du membre courant
 	 * @return
@@ -47,6 +74,60 @@ public class Member {
 	}
 	
 	
+	/**
+	 * Obtenir le karma du membre courant : la moyenne des notes attribuées aux reviews qu'il a déposées
+	 * @return
+	 * 		le karma du membre, KARMA_INITIAL si aucune de ses reviews n'a été évaluée
+	 */
+	public float getKarma() {
+		return this.karma;
+	}
+	
+	/**
+	 * Prend en compte une évaluation (nouvelle ou modifiée) d'une review du membre courant, puis propage le nouveau
+	 * karma aux items qu'il a évalués : seules ses reviews sont repondérées, sans recalcul des autres moyennes.
+	 * @param ecartNotes
+	 * 		note de l'évaluation, ou écart avec l'ancienne note si l'évaluation est modifiée
+	 * @param nouvelle
+	 * 		true pour une nouvelle évaluation, false pour une évaluation modifiée
+	 * @return
+	 * 		le nouveau karma du membre
+	 */
+	synchronized float prendreEnCompteEvaluation(float ecartNotes, boolean nouvelle) {
+		sommeEvaluations += ecartNotes;
+		if (nouvelle)
+			nbEvaluations++;
+		float nouveauKarma = (float) (sommeEvaluations / nbEvaluations);
+		this.karma = nouveauKarma;
+		for (Item item : itemsEvalues)
+			item.reponderer(this, nouveauKarma);
+		return nouveauKarma;
+	}
+	
+	/**
+	 * @return la somme des notes des évaluations reçues par les reviews du membre (sous le verrou du membre)
+	 */
+	double sommeEvaluations() {
+		return sommeEvaluations;
+	}
+	
+	/**
+	 * @return le nombre d'évaluations reçues par les reviews du membre (sous le verrou du membre)
+	 */
+	int nbEvaluations() {
+		return nbEvaluations;
+	}
+	
+	/**
+	 * Restaure les évaluations reçues par le membre, lues dans un instantané, avant le chargement de ses reviews :
+	 * le karma est recalculé sans être propagé.
+	 */
+	synchronized void restaurerEvaluations(double sommeEvaluations, int nbEvaluations) {
+		this.sommeEvaluations = sommeEvaluations;
+		this.nbEvaluations = nbEvaluations;
+		this.karma = (nbEvaluations==0) ? KARMA_INITIAL : (float) (sommeEvaluations / nbEvaluations);
+	}
+	
 	/**
 	 * Renvoie un String décrivant le Member courant
 	 */
@@ -55,6 +136,28 @@ public class Member {
 		return s;
 	}
 	
+	/**
+	 * Ecrit la description du Member courant dans out
+	 * @param out destination de la description
+	 * @throws IOException si l'écriture dans out échoue
+	 */
+	public void writeTo(Appendable out) throws IOException {
+		out.append(this.pseudo).append(" : ").append(this.profil).append('\n');
+	}
+	
+	/**
+	 * @param saisi pseudo saisi par un visiteur pour s'authentifier (instancié)
+	 * @return true si le pseudo saisi, sans ses leading et trailing blanks, est exactement celui du Member
+	 */
+	boolean pseudoCorrespond(String saisi) {
+		int debut = 0, fin = saisi.length();
+		while (debut<fin && saisi.charAt(debut)<=' ')
+			debut++;
+		while (fin>debut && saisi.charAt(fin-1)<=' ')
+			fin--;
+		return fin-debut==pseudo.length() && pseudo.regionMatches(0, saisi, debut, fin-debut);
+	}
+	
 	/**
 	 * 
 	 * @param EnteredPassword
@@ -67,14 +170,23 @@ public class Member {
 	}
 	
 
+	/**
+	 * Deux Member sont égaux s'ils ont le même pseudo, indifféremment de la casse et des leading et trailing blanks :
+	 * c'est le critère d'unicité des membres dans le SocialNetwork.
+	 */
 	@Override
 	public boolean equals(Object o){
 		
-		if (o==null || !(o instanceof Member))
-			return false;
-		else if (((Member)o).pseudo == this.pseudo && ((Member)o).profil == this.profil && ((Member)o).password == this.password)
+		if (o==this)
 			return true;
-		else
+		else if (o==null || !(o instanceof Member))
 			return false;
+		else
+			return ((Member)o).cle.equals(this.cle);
+	}
+	
+	@Override
+	public int hashCode(){
+		return cle.hashCode();
 	}
 }
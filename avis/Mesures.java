@@ -0,0 +1,193 @@
+package avis;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compteurs d'appels et histogrammes de durée des opérations d'un <i>SocialNetwork</i>.
+ * <p>
+ * Chaque appel incrémente, sans verrou, le compteur de son opération et de son statut. Un appel sur ECHANTILLONNAGE,
+ * tiré au hasard, est chronométré et sa durée classée dans l'histogramme de l'opération : la lecture de l'horloge
+ * coûte à elle seule plusieurs dizaines de nanosecondes, et les centiles d'un échantillon aléatoire restent représentatifs.
+ * Les classes de durée sont logarithmiques, avec 8 sous-classes par puissance de 2 : un centile est donné
+ * par excès, à 12,5 % près. Les lectures ne bloquent pas les appels ; une lecture concurrente d'appels
+ * peut ne pas compter les derniers.
+ * </p>
+ * @author Yann Andreu et Yannick Omnès
+ *
+ */
+class Mesures implements MesuresMXBean {
+
+	/**
+	 * Opérations mesurées, nommées d'après la méthode publique correspondante
+	 */
+	enum Operation {
+		ADD_MEMBER("addMember"),
+		ADD_ITEM_FILM("addItemFilm"),
+		ADD_ITEM_BOOK("addItemBook"),
+		CONSULT_ITEMS("consultItems"),
+		REVIEW_ITEM_FILM("reviewItemFilm"),
+		REVIEW_ITEM_BOOK("reviewItemBook"),
+		REVIEW_OPINION_FILM("reviewOpinionFilm"),
+		REVIEW_OPINION_BOOK("reviewOpinionBook");
+
+		final String nom;
+
+		Operation(String nom) {
+			this.nom = nom;
+		}
+	}
+
+	/** un appel sur ECHANTILLONNAGE est chronométré (puissance de 2) */
+	static final int ECHANTILLONNAGE = 8;
+
+	/** début d'un appel non chronométré */
+	static final long NON_CHRONOMETRE = Long.MIN_VALUE;
+
+	// 8 classes exactes pour 0..7 ns, puis 8 sous-classes pour chaque puissance de 2 de 2^3 à 2^63
+	private static final int NB_CLASSES = 8 * 62;
+
+	private final LongAdder[][] appels = new LongAdder[Operation.values().length][Statut.values().length];
+	private final AtomicLongArray[] durees = new AtomicLongArray[Operation.values().length];
+
+	Mesures() {
+		for (int o = 0; o < appels.length; o++) {
+			for (int s = 0; s < appels[o].length; s++)
+				appels[o][s] = new LongAdder();
+			durees[o] = new AtomicLongArray(NB_CLASSES);
+		}
+	}
+
+	/**
+	 * Début d'un appel
+	 * @return l'instant du début selon System.nanoTime() si l'appel est chronométré, NON_CHRONOMETRE sinon
+	 */
+	static long debut() {
+		if ((ThreadLocalRandom.current().nextInt() & (ECHANTILLONNAGE - 1)) != 0)
+			return NON_CHRONOMETRE;
+		return System.nanoTime();
+	}
+
+	/**
+	 * Enregistre la fin d'un appel
+	 * @param debut valeur renvoyée par debut() au début de l'appel
+	 * @return statut, pour l'enchaîner au retour de l'opération
+	 */
+	Statut fin(Operation operation, Statut statut, long debut) {
+		appels[operation.ordinal()][statut.ordinal()].increment();
+		if (debut != NON_CHRONOMETRE)
+			durees[operation.ordinal()].incrementAndGet(classe(System.nanoTime() - debut));
+		return statut;
+	}
+
+	/**
+	 * Enregistre la fin d'un appel qui renvoie un ResultatReview
+	 * @return resultat, pour l'enchaîner au retour de l'opération
+	 */
+	ResultatReview fin(Operation operation, ResultatReview resultat, long debut) {
+		fin(operation, resultat.getStatut(), debut);
+		return resultat;
+	}
+
+	/** classe d'une durée en nanosecondes */
+	static int classe(long duree) {
+		if (duree < 8)
+			return (duree < 0) ? 0 : (int) duree;
+		int exposant = 63 - Long.numberOfLeadingZeros(duree);
+		return (exposant - 2) * 8 + (int) ((duree >>> (exposant - 3)) & 7);
+	}
+
+	/** plus grande durée de la classe c */
+	static long borne(int c) {
+		if (c < 8)
+			return c;
+		if (c == NB_CLASSES - 1)
+			return Long.MAX_VALUE;
+		int exposant = c / 8 + 2;
+		return ((8L + c % 8 + 1) << (exposant - 3)) - 1;
+	}
+
+	/**
+	 * @return la plus petite durée (par excès) qui dépasse la proportion p des appels chronométrés de l'opération,
+	 * 0 si aucun appel n'a été chronométré
+	 */
+	long centile(Operation operation, double p) {
+		AtomicLongArray h = durees[operation.ordinal()];
+		long[] nb = new long[NB_CLASSES];
+		long total = 0;
+		for (int c = 0; c < NB_CLASSES; c++)
+			total += nb[c] = h.get(c);
+		if (total == 0)
+			return 0;
+		long rang = (long) Math.ceil(p * total);
+		long cumul = 0;
+		for (int c = 0; c < NB_CLASSES; c++) {
+			cumul += nb[c];
+			if (cumul >= Math.max(1, rang))
+				return borne(c);
+		}
+		return borne(NB_CLASSES - 1);
+	}
+
+	public Map<String, Long> getAppels() {
+		LinkedHashMap<String, Long> resultat = new LinkedHashMap<String, Long>();
+		for (Operation o : Operation.values())
+			for (Statut s : Statut.values()) {
+				long n = appels[o.ordinal()][s.ordinal()].sum();
+				if (n > 0)
+					resultat.put(o.nom + ":" + s.name(), n);
+			}
+		return resultat;
+	}
+
+	public Map<String, Long> getP50Nanos() {
+		return centiles(0.5);
+	}
+
+	public Map<String, Long> getP99Nanos() {
+		return centiles(0.99);
+	}
+
+	public Map<String, Long> getP999Nanos() {
+		return centiles(0.999);
+	}
+
+	private Map<String, Long> centiles(double p) {
+		LinkedHashMap<String, Long> resultat = new LinkedHashMap<String, Long>();
+		for (Operation o : Operation.values())
+			resultat.put(o.nom, centile(o, p));
+		return resultat;
+	}
+
+	public String getRapport() {
+		StringBuilder s = new StringBuilder();
+		s.append(String.format("%-18s %10s %10s %10s %10s%n", "operation", "appels", "p50 (ns)", "p99 (ns)", "p999 (ns)"));
+		for (Operation o : Operation.values()) {
+			long total = 0;
+			StringBuilder detail = new StringBuilder();
+			for (Statut st : Statut.values()) {
+				long n = appels[o.ordinal()][st.ordinal()].sum();
+				total += n;
+				if (n > 0 && st != Statut.OK)
+					detail.append("    ").append(st.name()).append(" (").append(st.getCategorie()).append(") : ").append(n).append('\n');
+			}
+			if (total == 0)
+				continue;
+			s.append(String.format("%-18s %10d %10d %10d %10d%n", o.nom, total, centile(o, 0.5), centile(o, 0.99), centile(o, 0.999)));
+			s.append(detail);
+		}
+		return s.toString();
+	}
+
+	public void reinitialiser() {
+		for (int o = 0; o < appels.length; o++) {
+			for (LongAdder a : appels[o])
+				a.reset();
+			for (int c = 0; c < NB_CLASSES; c++)
+				durees[o].set(c, 0);
+		}
+	}
+}
@@ -0,0 +1,43 @@
+package avis;
+
+import java.util.Map;
+
+/**
+ * Interface JMX des mesures d'un <i>SocialNetwork</i> (voir SocialNetwork.exposerMesures).
+ * Les opérations sont désignées par le nom de la méthode publique mesurée (addMember, reviewItemBook...) ;
+ * les variantes try et les variantes avec session sont comptées avec elles.
+ * @author Yann Andreu et Yannick Omnès
+ *
+ */
+public interface MesuresMXBean {
+
+	/**
+	 * @return le nombre d'appels de chaque opération par résultat, sous la forme "operation:STATUT"
+	 */
+	Map<String, Long> getAppels();
+
+	/**
+	 * @return la durée médiane de chaque opération, en nanosecondes
+	 */
+	Map<String, Long> getP50Nanos();
+
+	/**
+	 * @return le 99e centile de la durée de chaque opération, en nanosecondes
+	 */
+	Map<String, Long> getP99Nanos();
+
+	/**
+	 * @return le 999e millile de la durée de chaque opération, en nanosecondes
+	 */
+	Map<String, Long> getP999Nanos();
+
+	/**
+	 * @return toutes les mesures sous forme de texte
+	 */
+	String getRapport();
+
+	/**
+	 * Remet toutes les mesures à zéro
+	 */
+	void reinitialiser();
+}
@@ -0,0 +1,34 @@
+package avis;
+
+import java.util.List;
+
+/**
+ * Page de reviews d'un item, renvoyée par SocialNetwork.consulterReviews.
+ * Les reviews de la page sont des copies, relevées sous le verrou de l'item.
+ * @author Yann Andreu et Yannick Omnès
+ *
+ */
+public final class PageReviews {
+
+	private final List<Review> reviews;
+	private final CurseurReviews suivante;
+
+	PageReviews(List<Review> reviews, CurseurReviews suivante) {
+		this.reviews = reviews;
+		this.suivante = suivante;
+	}
+
+	/**
+	 * @return les reviews de la page, dans l'ordre de dépôt
+	 */
+	public List<Review> getReviews() {
+		return reviews;
+	}
+
+	/**
+	 * @return le curseur de la page suivante, null si la page contient la dernière review de l'item
+	 */
+	public CurseurReviews getSuivante() {
+		return suivante;
+	}
+}
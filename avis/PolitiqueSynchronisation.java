@@ -0,0 +1,27 @@
+package avis;
+
+/**
+ * Politique de synchronisation sur disque du journal des mutations d'un <i>SocialNetwork</i>.
+ * @author Yann Andreu et Yannick Omnès
+ *
+ */
+public enum PolitiqueSynchronisation {
+
+	/**
+	 * Chaque mutation n'est validée qu'une fois forcée sur disque (fsync).
+	 * Les mutations concurrentes sont regroupées dans un même fsync (group commit).
+	 */
+	A_CHAQUE_ECRITURE,
+
+	/**
+	 * Le journal est écrit et forcé sur disque périodiquement, toutes les N millisecondes :
+	 * une panne peut faire perdre les mutations de la dernière période.
+	 */
+	PERIODIQUE,
+
+	/**
+	 * Chaque mutation est écrite dans le fichier sans fsync : le système d'exploitation
+	 * décide du moment où les données atteignent le disque.
+	 */
+	SYSTEME
+}
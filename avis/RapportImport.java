@@ -0,0 +1,50 @@
+package avis;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Bilan d'un import en masse : nombre de lignes acceptées et erreurs ligne par ligne
+ * @author Yann Andreu et Yannick Omnès
+ *
+ */
+public class RapportImport {
+
+	private final int nbLignes;
+	private final List<ErreurImport> erreurs;
+
+	RapportImport(int nbLignes, ArrayList<ErreurImport> erreurs) {
+		this.nbLignes = nbLignes;
+		this.erreurs = Collections.unmodifiableList(erreurs);
+	}
+
+	/**
+	 * @return le nombre de lignes traitées
+	 */
+	public int nbLignes() {
+		return nbLignes;
+	}
+
+	/**
+	 * @return le nombre de lignes appliquées au SocialNetwork
+	 */
+	public int nbAcceptees() {
+		return nbLignes - erreurs.size();
+	}
+
+	/**
+	 * @return les lignes rejetées, par numéro de ligne croissant
+	 */
+	public List<ErreurImport> getErreurs() {
+		return erreurs;
+	}
+
+	public String toString() {
+		StringBuilder s = new StringBuilder();
+		s.append("Import : ").append(nbAcceptees()).append(" ligne(s) acceptée(s) / ").append(nbLignes).append('\n');
+		for (ErreurImport e : erreurs)
+			s.append(e).append('\n');
+		return s.toString();
+	}
+}
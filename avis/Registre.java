@@ -0,0 +1,76 @@
+package avis;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Registre thread-safe d'éléments indexés par clé normalisée (pseudo ou titre).
+ * L'unicité des clés est garantie même en cas d'ajouts concurrents : l'insertion repose sur
+ * ConcurrentHashMap.putIfAbsent, qui ne verrouille que la partie de la table concernée par la clé.
+ * L'ordre d'insertion est conservé pour l'affichage.
+ * @author Yann Andreu et Yannick Omnès
+ *
+ * @param <V> type des éléments enregistrés
+ */
+class Registre<V> {
+
+	private final ConcurrentHashMap<String, V> parCle = new ConcurrentHashMap<String, V>();
+	private final ConcurrentLinkedQueue<V> ordre = new ConcurrentLinkedQueue<V>();
+
+	// Verrous répartis par clé, pour les opérations qui doivent précéder la publication d'un élément (journalisation)
+	private final Object[] verrous = new Object[64];
+
+	Registre() {
+		for (int i = 0; i < verrous.length; i++)
+			verrous[i] = new Object();
+	}
+
+	/**
+	 * Enregistre un élément s'il n'existe pas déjà d'élément de même clé
+	 * @param cle clé normalisée de l'élément
+	 * @param valeur élément à enregistrer
+	 * @return true si l'élément a été enregistré, false si la clé était déjà prise
+	 */
+	boolean ajouter(String cle, V valeur) {
+		if (parCle.putIfAbsent(cle, valeur) != null)
+			return false;
+		ordre.add(valeur);
+		return true;
+	}
+
+	/**
+	 * Renvoie le verrou de la tranche à laquelle appartient une clé. Tenir ce verrou garantit qu'aucun autre élément
+	 * de même clé n'est ajouté entre une vérification et un ajout, sans bloquer les clés des autres tranches.
+	 * @param cle clé normalisée
+	 * @return le verrou associé à la clé
+	 */
+	Object verrou(String cle) {
+		int h = cle.hashCode();
+		return verrous[(h ^ (h >>> 16)) & (verrous.length - 1)];
+	}
+
+	/**
+	 * @param cle clé normalisée
+	 * @return l'élément de cette clé, null s'il n'existe pas
+	 */
+	V get(String cle) {
+		return parCle.get(cle);
+	}
+
+	int size() {
+		return parCle.size();
+	}
+
+	boolean isEmpty() {
+		return parCle.isEmpty();
+	}
+
+	/**
+	 * @return les éléments dans leur ordre d'insertion (vue faiblement cohérente en cas d'ajouts concurrents)
+	 */
+	Collection<V> values() {
+		return Collections.unmodifiableCollection(ordre);
+	}
+}
@@ -0,0 +1,49 @@
+package avis;
+
+/**
+ * Résultat de tryReviewItemFilm et tryReviewItemBook : un statut et, si la review a été déposée,
+ * la note moyenne de l'item. Pour tryReviewOpinionFilm et tryReviewOpinionBook, la valeur est
+ * le nouveau karma de l'auteur de la review évaluée.
+ * Les résultats de refus sont partagés : seul un dépôt réussi alloue un résultat.
+ * @author Yann Andreu et Yannick Omnès
+ *
+ */
+public final class ResultatReview {
+
+	private static final ResultatReview[] REFUS = new ResultatReview[Statut.values().length];
+	static {
+		for (Statut s : Statut.values())
+			REFUS[s.ordinal()] = new ResultatReview(s, Float.NaN);
+	}
+
+	private final Statut statut;
+	private final float moyenne;
+
+	private ResultatReview(Statut statut, float moyenne) {
+		this.statut = statut;
+		this.moyenne = moyenne;
+	}
+
+	static ResultatReview ok(float moyenne) {
+		return new ResultatReview(Statut.OK, moyenne);
+	}
+
+	static ResultatReview refus(Statut statut) {
+		return REFUS[statut.ordinal()];
+	}
+
+	/**
+	 * @return le statut de l'opération
+	 */
+	public Statut getStatut() {
+		return statut;
+	}
+
+	/**
+	 * @return la note moyenne de l'item après dépôt de la review (ou le karma de l'auteur après évaluation de sa review),
+	 * NaN si l'opération a été refusée
+	 */
+	public float getMoyenne() {
+		return moyenne;
+	}
+}
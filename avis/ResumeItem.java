@@ -0,0 +1,101 @@
+package avis;
+
+import java.io.IOException;
+
+/**
+ * Résumé d'un item, renvoyé par SocialNetwork.consulterItems : ses informations et l'agrégat de ses notes,
+ * relevés ensemble sous le verrou de l'item, sans ses reviews. Les reviews se lisent page par page
+ * à partir de getReviews, avec SocialNetwork.consulterReviews.
+ * @author Yann Andreu et Yannick Omnès
+ *
+ */
+public final class ResumeItem {
+
+	private final Item item;
+	private final float moyenne;
+	private final int nbReviews;
+	private final float noteMin;
+	private final float noteMax;
+
+	ResumeItem(Item item, float moyenne, int nbReviews, float noteMin, float noteMax) {
+		this.item = item;
+		this.moyenne = moyenne;
+		this.nbReviews = nbReviews;
+		this.noteMin = noteMin;
+		this.noteMax = noteMax;
+	}
+
+	/**
+	 * @return l'item résumé (Film ou Book)
+	 */
+	public Item getItem() {
+		return item;
+	}
+
+	/**
+	 * @return le titre de l'item
+	 */
+	public String getTitre() {
+		return item.getTitre();
+	}
+
+	/**
+	 * @return le genre de l'item
+	 */
+	public String getGenre() {
+		return item.getGenre();
+	}
+
+	/**
+	 * @return la note moyenne de l'item, 0 s'il n'a pas encore été noté
+	 */
+	public float getMoyenne() {
+		return moyenne;
+	}
+
+	/**
+	 * @return le nombre de reviews de l'item
+	 */
+	public int getNbReviews() {
+		return nbReviews;
+	}
+
+	/**
+	 * @return la plus petite note de l'item, NaN s'il n'a pas encore été noté
+	 */
+	public float getNoteMin() {
+		return noteMin;
+	}
+
+	/**
+	 * @return la plus grande note de l'item, NaN s'il n'a pas encore été noté
+	 */
+	public float getNoteMax() {
+		return noteMax;
+	}
+
+	/**
+	 * @return un curseur sur la première review de l'item, dans l'ordre de dépôt
+	 */
+	public CurseurReviews getReviews() {
+		return new CurseurReviews(item, 0);
+	}
+
+	/**
+	 * Ecrit la description de l'item dans out, comme Item.writeTo, mais sans ses reviews :
+	 * la note moyenne est celle du résumé
+	 * @param out destination de la description
+	 * @throws IOException si l'écriture dans out échoue
+	 */
+	public void writeTo(Appendable out) throws IOException {
+		item.writeEnteteTo(out);
+		Item.writeMoyenneTo(out, nbReviews, moyenne);
+	}
+
+	/**
+	 * Renvoie le résumé sous forme d'une chaine de caractères, sans les reviews
+	 */
+	public String toString() {
+		return getTitre() + " (" + getGenre() + ") : " + ((nbReviews == 0) ? "pas encore noté" : moyenne + "/5, " + nbReviews + " avis");
+	}
+}
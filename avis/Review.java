@@ -1,7 +1,11 @@
 package avis;
 
+import java.io.IOException;
+
 /**
- * Représente une review
+ * Représente une review.
+ * Les reviews déposées sont rangées en colonnes par leur item : les objets Review en sont des copies,
+ * construites à la demande, que setNote et setCommentaire modifient sans changer la review déposée.
  * @author Yann Andreu et Yannick Omnès
  * @version 1.0
  *
@@ -14,6 +18,9 @@ public class Review {
 	private float note;
 	private String commentaire;
 	
+	// Item évalué, renseigné lorsque la review est copiée depuis son item
+	Item item;
+	
 	
 	/**
 	 * Construit une nouvelle review
@@ -55,6 +62,14 @@ public class Review {
 		return membre;
 	}
 
+	/**
+	 * Renvoie l'item évalué par la review courante
+	 * @return l'item auquel la review est attachée
+	 */
+	public Item getItem() {
+		return item;
+	}
+
 	/**
 	 * Renvoie la note associée à la review courante
 	 * @return la note associée à la review courante
@@ -63,15 +78,44 @@ public class Review {
 		return note;
 	}
 
+	/**
+	 * Renvoie le commentaire associé à la review courante
+	 * @return le commentaire associé à la review courante
+	 */
+	public String getCommentaire() {
+		return commentaire;
+	}
+
 	/**
 	 * Renvoie le contenu de l'avis sous forme d'une chaine de caractères
 	 * @return la description de la review sous forme d'un String
 	 */
 	public String toString() {
-		String s = "Avis de "+ this.membre.getPseudo() + " : \n";
-		s+= "Note : "+ this.note +"/5 \n";
-		s+= "Commentaire : "+ this.commentaire;
-		return s;
+		StringBuilder s = new StringBuilder();
+		try {
+			writeTo(s);
+		} catch (IOException e) { // impossible avec un StringBuilder
+			throw new IllegalStateException(e);
+		}
+		return s.toString();
+	}
+	
+	/**
+	 * Ecrit la description de la review courante dans out, sans construire de String intermédiaire
+	 * @param out destination de la description
+	 * @throws IOException si l'écriture dans out échoue
+	 */
+	public void writeTo(Appendable out) throws IOException {
+		writeTo(out, this.membre, this.note, this.commentaire);
+	}
+	
+	/**
+	 * Ecrit la description d'une review dans out, à partir de ses champs, sans construire d'objet Review
+	 */
+	static void writeTo(Appendable out, Member membre, float note, String commentaire) throws IOException {
+		out.append("Avis de ").append(membre.getPseudo()).append(" : \n");
+		out.append("Note : ").append(String.valueOf(note)).append("/5 \n");
+		out.append("Commentaire : ").append(commentaire);
 	}
 
 }
@@ -0,0 +1,22 @@
+package avis;
+
+/**
+ * Jeton de session d'un membre authentifié, obtenu par SocialNetwork.login.
+ * Le jeton est opaque : il ne peut servir qu'au <i>SocialNetwork</i> qui l'a délivré, jusqu'à
+ * son expiration, sa fermeture par logout ou son éviction lorsque le nombre de sessions ouvertes est atteint.
+ * @author Yann Andreu et Yannick Omnès
+ *
+ */
+public final class Session {
+
+	final Sessions origine;
+	final Member membre;
+	final long expiration; // en nanosecondes, selon System.nanoTime()
+	volatile boolean ouverte = true;
+
+	Session(Sessions origine, Member membre, long expiration) {
+		this.origine = origine;
+		this.membre = membre;
+		this.expiration = expiration;
+	}
+}
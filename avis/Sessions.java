@@ -0,0 +1,82 @@
+package avis;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+
+/**
+ * Cache borné des sessions ouvertes d'un <i>SocialNetwork</i>.
+ * <p>
+ * Une session expire une durée fixe après son ouverture. Les sessions sont conservées dans leur ordre
+ * d'ouverture, qui est aussi leur ordre d'expiration : les sessions expirées sont purgées en tête
+ * à chaque ouverture, et si la capacité est atteinte la plus ancienne session est fermée.
+ * </p>
+ * <p>
+ * Retrouver le membre d'une session ne prend aucun verrou : la session porte son membre,
+ * son expiration et son état.
+ * </p>
+ * @author Yann Andreu et Yannick Omnès
+ *
+ */
+class Sessions {
+
+	private final int capacite;
+	private final long dureeNanos;
+	private final LinkedHashSet<Session> ouvertes = new LinkedHashSet<Session>();
+
+	/**
+	 * @param capacite nombre maximal de sessions ouvertes
+	 * @param dureeMillis durée de validité d'une session en millisecondes
+	 */
+	Sessions(int capacite, long dureeMillis) {
+		if (capacite<1 || dureeMillis<1)
+			throw new IllegalArgumentException("La capacité et la durée des sessions doivent être positives.");
+		this.capacite = capacite;
+		this.dureeNanos = dureeMillis * 1000000L;
+	}
+
+	/**
+	 * Ouvre une session pour un membre authentifié
+	 */
+	Session ouvrir(Member membre) {
+		long maintenant = System.nanoTime();
+		Session s = new Session(this, membre, maintenant + dureeNanos);
+		synchronized (this) {
+			Iterator<Session> it = ouvertes.iterator();
+			while (it.hasNext()) {
+				Session ancienne = it.next();
+				if (ancienne.expiration - maintenant > 0 && ouvertes.size() < capacite)
+					break;
+				ancienne.ouverte = false;
+				it.remove();
+			}
+			ouvertes.add(s);
+		}
+		return s;
+	}
+
+	/**
+	 * @return le membre de la session, null si elle n'a pas été ouverte ici, est expirée ou fermée
+	 */
+	Member membre(Session s) {
+		if (s.origine!=this || !s.ouverte || s.expiration - System.nanoTime() <= 0)
+			return null;
+		return s.membre;
+	}
+
+	/**
+	 * Ferme une session (sans effet si elle n'a pas été ouverte ici ou est déjà fermée)
+	 */
+	synchronized void fermer(Session s) {
+		if (s.origine==this && ouvertes.remove(s))
+			s.ouverte = false;
+	}
+
+	/**
+	 * Ferme toutes les sessions
+	 */
+	synchronized void fermerTout() {
+		for (Session s : ouvertes)
+			s.ouverte = false;
+		ouvertes.clear();
+	}
+}
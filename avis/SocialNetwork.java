@@ -1,8 +1,29 @@
 package avis;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+import javax.management.JMException;
+import javax.management.ObjectName;
 
+
+import avis.Mesures.Operation;
 import exception.BadEntry;
 import exception.ItemFilmAlreadyExists;
 import exception.ItemBookAlreadyExists;
@@ -39,14 +60,114 @@ import exception.NotMember;
  * être évaluée. Chaque membre se voit dans cette version décerner un "karma" qui mesure
  * la moyenne des notes portant sur les opinions qu'il a émises.
  * L'impact des opinions entrant dans le calcul de la note moyenne attribuée à un item
- * est pondéré par le karma des membres qui les émettent.
+ * est pondéré par le karma des membres qui les émettent (voir reviewOpinionFilm et reviewOpinionBook).
+ * </p>
+ * <p>
+ * Un <i>SocialNetwork</i> peut être utilisé par plusieurs threads sans synchronisation externe.
+ * Les inscriptions et créations d'items s'appuient sur des registres concurrents qui garantissent
+ * l'unicité des pseudos et des titres ; les reviews verrouillent uniquement l'item concerné.
+ * </p>
+ * <p>
+ * Un <i>SocialNetwork</i> peut être rendu durable en lui associant un journal : chaque mutation réussie
+ * y est ajoutée, et le journal est rejoué à la construction. Il doit alors être fermé par close().
+ * Si le journal ne peut plus être écrit, les mutations lèvent une UncheckedIOException : celles dont l'écriture a échoué
+ * sont appliquées en mémoire et seront écrites dès que le journal pourra l'être de nouveau ; les suivantes sont refusées
+ * sans être appliquées tant que ces écritures échouent.
+ * Un instantané binaire peut aussi être écrit à tout moment, puis chargé au démarrage :
+ * seule la partie du journal postérieure à l'instantané est alors rejouée.
+ * </p>
+ * <p>
+ * Un membre qui enchaîne les opérations peut ouvrir une session par login : les variantes avec session
+ * de addItemFilm, addItemBook, reviewItemFilm et reviewItemBook ne l'authentifient plus à chaque appel.
  * </p>
  */
 
-public class SocialNetwork {
+public class SocialNetwork implements Closeable {
+
+	/**
+	 * Registre des membres, indexé par pseudo normalisé (sans leading ni trailing blanks, en majuscules).
+	 * L'ordre d'insertion est conservé pour l'affichage.
+	 */
+	private final Registre<Member> members;
+	
+	/**
+	 * Items partitionnés par type concret, chaque partition étant indexée par titre normalisé
+	 * et conservant l'ordre d'insertion. Un nouveau type d'item aura sa propre partition.
+	 */
+	private final Registre<Film> films;
+	private final Registre<Book> books;
+	
+	/**
+	 * Journal des mutations, null si le <i>SocialNetwork</i> n'est pas durable (et pendant le rejeu)
+	 */
+	private final Journal journal;
+	
+	/**
+	 * Partagé par les mutations, exclusif pendant l'écriture d'un instantané
+	 */
+	private final ReentrantReadWriteLock verrouInstantane = new ReentrantReadWriteLock();
+
+	/**
+	 * Index des titres normalisés, pour la recherche par préfixe ou fragment (voir rechercherItems)
+	 */
+	private final IndexTitres indexTitres = new IndexTitres();
+
+	/**
+	 * Index inversé des commentaires des reviews, tenu à jour par les items (voir rechercherReviews)
+	 */
+	private final IndexCommentaires indexCommentaires = new IndexCommentaires();
+
+	/** mémoire maximale par défaut des descriptions d'items en cache, en octets */
+	public static final long BUDGET_CACHE = 32L * 1024 * 1024;
+
+	/**
+	 * Cache des descriptions des items, invalidées à chaque modification (voir configurerCache)
+	 */
+	private final CacheRepresentations cacheRepresentations = new CacheRepresentations(BUDGET_CACHE);
+
+	/**
+	 * Abonnés aux modifications du <i>SocialNetwork</i> (voir abonner)
+	 */
+	private final CopyOnWriteArrayList<EcouteurReseau> ecouteurs = new CopyOnWriteArrayList<EcouteurReseau>();
+
+	/**
+	 * Compteurs d'appels et durées des opérations (voir getMesures)
+	 */
+	private final Mesures mesures = new Mesures();
+	private volatile ObjectName nomMesures;
+
+	/** nombre minimal de reviews par défaut pour qu'un item figure dans les classements */
+	public static final int SEUIL_CLASSEMENT = 3;
+
+	/**
+	 * Classements des items par note moyenne, par type puis par genre normalisé (voir topFilms et topBooks)
+	 */
+	private volatile int seuilClassement = SEUIL_CLASSEMENT;
+	private final Classement<Film> classementFilms = new Classement<Film>(SEUIL_CLASSEMENT);
+	private final Classement<Book> classementBooks = new Classement<Book>(SEUIL_CLASSEMENT);
+	private final ConcurrentHashMap<String, Classement<Film>> classementsFilmsParGenre = new ConcurrentHashMap<String, Classement<Film>>();
+	private final ConcurrentHashMap<String, Classement<Book>> classementsBooksParGenre = new ConcurrentHashMap<String, Classement<Book>>();
+
+	/**
+	 * Facettes des items par genre normalisé : nombre d'items, moyenne et liste par note (voir facettesFilms)
+	 */
+	private final ConcurrentHashMap<String, Facette<Film>> facettesFilms = new ConcurrentHashMap<String, Facette<Film>>();
+	private final ConcurrentHashMap<String, Facette<Book>> facettesBooks = new ConcurrentHashMap<String, Facette<Book>>();
+
+	/**
+	 * false si les exceptions sont levées sans pile d'appels (voir setPileAppelsExceptions)
+	 */
+	private volatile boolean pileAppels = true;
 
-	private LinkedList<Member> members;
-	private LinkedList<Item> items;
+	/** nombre maximal de sessions ouvertes par défaut */
+	public static final int CAPACITE_SESSIONS = 10000;
+	/** durée de validité d'une session par défaut : 30 minutes */
+	public static final long DUREE_SESSION_MILLIS = 30 * 60 * 1000L;
+
+	/**
+	 * Sessions ouvertes par login (voir configurerSessions)
+	 */
+	private volatile Sessions sessions = new Sessions(CAPACITE_SESSIONS, DUREE_SESSION_MILLIS);
 
 	/**
 	 * constructeur de <i>SocialNetwok</i> 
@@ -54,8 +175,49 @@ public class SocialNetwork {
 	 */
 
 	public SocialNetwork() {
-		members = new LinkedList<Member>();
-		items = new LinkedList<Item>();
+		members = new Registre<Member>();
+		films = new Registre<Film>();
+		books = new Registre<Book>();
+		journal = null;
+	}
+
+	/**
+	 * constructeur d'un <i>SocialNetwok</i> durable : le journal est rejoué s'il existe, puis
+	 * chaque mutation réussie (addMember, addItemFilm, addItemBook, reviewItemFilm, reviewItemBook) y est ajoutée.
+	 * 
+	 * @param fichierJournal fichier du journal, créé s'il n'existe pas
+	 * @param politique politique de synchronisation du journal sur disque
+	 * @param periodeMillis période de synchronisation en millisecondes, utilisée par la politique PERIODIQUE
+	 * @throws IOException si le journal ne peut être lu ou ouvert
+	 */
+	public SocialNetwork(Path fichierJournal, PolitiqueSynchronisation politique, long periodeMillis) throws IOException {
+		this(null, fichierJournal, politique, periodeMillis);
+	}
+
+	/**
+	 * constructeur d'un <i>SocialNetwok</i> démarrant depuis un instantané (voir ecrireInstantane) :
+	 * l'instantané est chargé s'il existe, puis seule la fin du journal, postérieure à l'instantané, est rejouée.
+	 * 
+	 * @param fichierInstantane fichier de l'instantané, ignoré s'il est null ou n'existe pas
+	 * @param fichierJournal fichier du journal, créé s'il n'existe pas ; null pour un <i>SocialNetwork</i> non durable
+	 * @param politique politique de synchronisation du journal sur disque
+	 * @param periodeMillis période de synchronisation en millisecondes, utilisée par la politique PERIODIQUE
+	 * @throws IOException si l'instantané ou le journal ne peut être lu, ou si le journal ne peut être ouvert
+	 */
+	public SocialNetwork(Path fichierInstantane, Path fichierJournal, PolitiqueSynchronisation politique, long periodeMillis) throws IOException {
+		members = new Registre<Member>();
+		films = new Registre<Film>();
+		books = new Registre<Book>();
+		RejeuJournal chargement = new RejeuJournal();
+		long depuis = 0;
+		if (fichierInstantane!=null && fichierInstantane.toFile().exists())
+			depuis = Instantane.charger(fichierInstantane, chargement);
+		if (fichierJournal!=null) {
+			Journal.rejouer(fichierJournal, depuis, chargement);
+			journal = new Journal(fichierJournal, politique, periodeMillis);
+		}
+		else
+			journal = null;
 	}
 
 	/**
@@ -73,11 +235,7 @@ public class SocialNetwork {
 	 * @return le nombre de films
 	 */
 	public int nbFilms() {
-		int nbFilms=0;
-		for(Item i : items)
-			if (i instanceof Film)
-				nbFilms++;
-		return nbFilms;
+		return films.size();
 	}
 
 	/**
@@ -86,11 +244,7 @@ public class SocialNetwork {
 	 * @return le nombre de livres
 	 */
 	public int nbBooks() {
-		int nbBooks=0;
-		for (Item i : items)
-			if (i instanceof Book)
-				nbBooks++;
-		return nbBooks;
+		return books.size();
 	}
 
 
@@ -119,32 +273,47 @@ public class SocialNetwork {
 		System.out.println("password :"+password+".");
 		System.out.println("profil :"+profil+".");*/
 		
-		//===================================== ANALYSE DES CAS D'ERREURS =======================================
+		Statut s = tryAddMember(pseudo, password, profil);
+		if (s==Statut.MEMBER_ALREADY_EXISTS)
+			throw new MemberAlreadyExists(pileAppels);
+		if (s!=Statut.OK)
+			throw new BadEntry(s.getMessage(), pileAppels);
+		//System.out.println(" Un nouveau membre correctement ajouté.");
+	}
+
+	/**
+	 * Ajouter un nouveau membre au <i>SocialNetwork</i>, sans lever d'exception en cas de refus.
+	 * 
+	 * @param pseudo son pseudo
+	 * @param password son mot de passe 
+	 * @param profil un slogan choisi par le membre pour se définir
+	 * @return OK si le membre a été ajouté, sinon le motif du refus (dans les cas où addMember lèverait une exception)
+	 * @throws UncheckedIOException si le journal associé ne peut enregistrer l'inscription (voir la description de la classe)
+	 */
+	public Statut tryAddMember(String pseudo, String password, String profil) {
+		long debut = Mesures.debut();
 		
-		// Si l'une des informations n'est pas instanciée, on lève l'exception BadEntry
-		if (pseudo==null || password==null || profil==null)
-			throw new BadEntry("le pseudo, le password et le profil doivent être instanciés");
+		//===================================== ANALYSE DES CAS D'ERREURS =======================================
 		
-		// Si le pseudo a moins de 1 caractère autres que des espaces on lève BadEntry
-		if (pseudo.replaceAll(" ", "").length()<1)
-			throw new BadEntry("Le pseudo doit contenir au moins un caractère qui n'est pas un espace.");
+		Statut s = Validation.membre(pseudo, password, profil);
+		if (s!=Statut.OK)
+			return mesures.fin(Operation.ADD_MEMBER, s, debut);
 		
-		//Si le password a moins de 4 caractères autres que des leading ou trailing blanks, on lève BadEntry
-		if(password.trim().length()<4)
-			throw new BadEntry("Le mot de passe doit contenir au moins 4 caractères autres que des espaces en début et en fin.");
-			
 		// Si le pseudo correspond déjà à un membre, on refuse l'inscription
-		// On prend en compte les leading et trailing blanks, ainsi que la casse (tout en majuscules)
-		for(Member membre:members)
-			if (membre.getPseudo().toUpperCase().equals(pseudo.trim().toUpperCase()))
-				throw new MemberAlreadyExists();
-		
-		
-		// ====================================== AJOUT D'UN MEMBRE ===============================================
-		// Si on arrive ici, c'est que les informations saisies ont été considérées comme acceptables
-		// On entre le pseudo en majuscules et sans ses trailing et leading blanks.
-		members.add(new Member(pseudo.trim(), password, profil));
-		//System.out.println(" Un nouveau membre correctement ajouté.");
+		// On prend en compte les leading et trailing blanks, ainsi que la casse (clé normalisée du registre)
+		// La vérification et l'ajout sont atomiques : deux inscriptions concurrentes du même pseudo ne peuvent réussir toutes les deux.
+		// Si on arrive à l'ajout, c'est que les informations saisies ont été considérées comme acceptables
+		// On entre le pseudo sans ses trailing et leading blanks.
+		// Si le journal ne peut valider l'inscription, déjà appliquée en mémoire, l'appel est tout de même mesuré
+		Statut resultat = Statut.OK;
+		try {
+			if (!inscrire(pseudo.trim(), password, profil))
+				resultat = Statut.MEMBER_ALREADY_EXISTS;
+		}
+		finally {
+			mesures.fin(Operation.ADD_MEMBER, resultat, debut);
+		}
+		return resultat;
 	}
 
 
@@ -174,53 +343,42 @@ public class SocialNetwork {
 	 * 
 	 */
 	public void addItemFilm(String pseudo, String password, String titre, String genre, String realisateur, String scenariste, int duree) throws BadEntry, NotMember, ItemFilmAlreadyExists {
+		leverSiRefusFilm(tryAddItemFilm(pseudo, password, titre, genre, realisateur, scenariste, duree));
+	}
+
+	/**
+	 * Ajouter un nouvel item de film au <i>SocialNetwork</i>, sans lever d'exception en cas de refus.
+	 * Les paramètres sont ceux de addItemFilm.
+	 * 
+	 * @return OK si le film a été ajouté, sinon le motif du refus (dans les cas où addItemFilm lèverait une exception)
+	 * @throws UncheckedIOException si le journal associé ne peut enregistrer l'ajout du film (voir la description de la classe)
+	 */
+	public Statut tryAddItemFilm(String pseudo, String password, String titre, String genre, String realisateur, String scenariste, int duree) {
+		long debut = Mesures.debut();
 		
-		boolean allowed = false;
 		//===================================== ANALYSE DES CAS D'ERREURS =======================================
 		
-		// Si le pseudo, le password, le titre, le genre, le réalisateur ou le scénariste n'est (ne sont) pas instancié(s)
-		if (pseudo==null || password==null || titre==null || genre==null || realisateur==null || scenariste==null)
-			throw new BadEntry("Le pseudo, le password, le réalisateur, le titre, le genre, le réalisateur et le scénariste doivent être instanciés.");
-		
-		//Si le pseudo a moins d'un caractère autre que des espaces
-		if (pseudo.replaceAll(" ","").length()<1)
-			throw new BadEntry ("Le pseudo doit comporter au moins un caractère autre que des espaces.");
-		
-		// Si le password possède moins de 4 caractères autres que des leading or trailing blanks
-		if (password.trim().length()<4)
-			throw new BadEntry ("Le password doit comporter au moins 4 caractères autres que des espaces de début ou fin.");
-		
-		//Si le titre a moins de 1 caractère autre que des espaces
-		if (titre.replaceAll(" ","").length()<1)
-			throw new BadEntry ("Le titre doit contenir au moins 1 caractère autre que des espaces.");
-		
-		// Si la durée n'est pas positive
-		if (duree<0)
-			throw new BadEntry ("La durée doit être positive et saisie en minutes.");
+		Statut s = Validation.film(pseudo, password, titre, genre, realisateur, scenariste, duree);
+		if (s!=Statut.OK)
+			return mesures.fin(Operation.ADD_ITEM_FILM, s, debut);
 		
 		// Si le membre n'existe pas ou si le password est incorrect
-		for (Member m: members)
-			if(m.getPseudo().trim().equals(pseudo.trim()))
-			{
-				if (m.passwordMatches(password))
-					allowed = true;
-				else
-					break; //Inutile de continuer si on a déjà trouvé le membre mais que son password est faux
-			}
-		if (!allowed)
-			throw new NotMember("Les informations fournies n'ont pas permis de vous authentifier. Vérifiez votre pseudo et votre password.");
-		
-		// Si le film existe déjà
-		for (Item i : items)
-			if (i instanceof Film) // On recherche uniquement parmi les films
-			{
-				if(((Film)i).getTitre().trim().toUpperCase().equals(titre.trim().toUpperCase()))
-					throw new ItemFilmAlreadyExists();
-			}
+		if (authentifier(pseudo, password)==null)
+			return mesures.fin(Operation.ADD_ITEM_FILM, Statut.NOT_MEMBER, debut);
 		
 		// ====================================== AJOUT D'UN FILM ===============================================	
-		items.add(new Film(titre, genre, realisateur, scenariste, duree));
+		// Si le film existe déjà (on recherche uniquement parmi les films), l'ajout est refusé de manière atomique
+		// Mesuré même si le journal ne peut valider l'ajout, déjà appliqué en mémoire
+		Statut resultat = Statut.OK;
+		try {
+			if (!creerFilm(titre, genre, realisateur, scenariste, duree))
+				resultat = Statut.ITEM_FILM_ALREADY_EXISTS;
+		}
+		finally {
+			mesures.fin(Operation.ADD_ITEM_FILM, resultat, debut);
+		}
 		//System.out.println("Un nouveau film ajouté avec succès");
+		return resultat;
 	}
 
 	/**
@@ -248,53 +406,42 @@ public class SocialNetwork {
 	 * 
 	 */
 	public void addItemBook(String pseudo, String password, String titre, String genre, String auteur, int nbPages) throws  BadEntry, NotMember, ItemBookAlreadyExists{
+		leverSiRefusBook(tryAddItemBook(pseudo, password, titre, genre, auteur, nbPages));
+	}
+
+	/**
+	 * Ajouter un nouvel item de livre au <i>SocialNetwork</i>, sans lever d'exception en cas de refus.
+	 * Les paramètres sont ceux de addItemBook.
+	 * 
+	 * @return OK si le livre a été ajouté, sinon le motif du refus (dans les cas où addItemBook lèverait une exception)
+	 * @throws UncheckedIOException si le journal associé ne peut enregistrer l'ajout du livre (voir la description de la classe)
+	 */
+	public Statut tryAddItemBook(String pseudo, String password, String titre, String genre, String auteur, int nbPages) {
+		long debut = Mesures.debut();
 
-		boolean allowed = false;
 		//===================================== ANALYSE DES CAS D'ERREURS =======================================
 		
-		// Si le pseudo, le password, le titre, le genre ou l'auteur n'est (ne sont) pas instancié(s)
-		if (pseudo==null || password==null || titre==null || genre==null || auteur==null)
-			throw new BadEntry("Le pseudo, le password, l'auteur, le titre et le genre doivent être instanciés.");
-		
-		//Si le pseudo a moins d'un caractère autre que des espaces
-		if (pseudo.replaceAll(" ","").length()<1)
-			throw new BadEntry ("Le pseudo doit comporter au moins un caractère autre que des espaces.");
-		
-		// Si le password possède moins de 4 caractères autres que des leading or trailing blanks
-		if (password.trim().length()<4)
-			throw new BadEntry ("Le password doit comporter au moins 4 caractères autres que des espaces de début ou fin.");
-		
-		//Si le titre a moins de 1 caractère autre que des espaces
-		if (titre.replaceAll(" ","").length()<1)
-			throw new BadEntry ("Le titre doit contenir au moins 1 caractère autre que des espaces.");
-		
-		// Si le nombre de pages n'est pas positif
-		if (nbPages<0)
-			throw new BadEntry ("Lae nombre de pages doit être positif.");
+		Statut s = Validation.book(pseudo, password, titre, genre, auteur, nbPages);
+		if (s!=Statut.OK)
+			return mesures.fin(Operation.ADD_ITEM_BOOK, s, debut);
 		
 		// Si le membre n'existe pas ou si le password est incorrect
-		for (Member m: members)
-			if(m.getPseudo().trim().equals(pseudo.trim()))
-			{
-				if (m.passwordMatches(password))
-					allowed = true;
-				else
-					break; //Inutile de continuer si on a déjà trouvé le membre mais que son password est faux
-			}
-		if (!allowed)
-			throw new NotMember("Les informations fournies n'ont pas permis de vous authentifier. Vérifiez votre pseudo et votre password.");
-		
-		// Si le Book existe déjà
-		for (Item i : items)
-			if (i instanceof Book) // On recherche uniquement parmi les Book
-			{
-				if(((Book)i).getTitre().trim().toUpperCase().equals(titre.trim().toUpperCase()))
-					throw new ItemBookAlreadyExists();
-			}
+		if (authentifier(pseudo, password)==null)
+			return mesures.fin(Operation.ADD_ITEM_BOOK, Statut.NOT_MEMBER, debut);
 		
 		// ====================================== AJOUT D'UN BOOK ===============================================	
-		items.add(new Book(titre, genre, auteur, nbPages));
+		// Si le Book existe déjà (on recherche uniquement parmi les Book), l'ajout est refusé de manière atomique
+		// Mesuré même si le journal ne peut valider l'ajout, déjà appliqué en mémoire
+		Statut resultat = Statut.OK;
+		try {
+			if (!creerBook(titre, genre, auteur, nbPages))
+				resultat = Statut.ITEM_BOOK_ALREADY_EXISTS;
+		}
+		finally {
+			mesures.fin(Operation.ADD_ITEM_BOOK, resultat, debut);
+		}
 		//System.out.println("Un nouveau livre ajouté avec succès");
+		return resultat;
 	}
 
 	/**
@@ -307,37 +454,119 @@ public class SocialNetwork {
 	 * @return LinkedList <String> : la liste des représentations de tous les items ayant ce nom 
 	 * Cette représentation contiendra la note de l'item s'il a été noté.
 	 * (une liste vide si aucun item ne correspond) 
+	 * Chaque représentation contient toutes les reviews de l'item : pour un item très commenté,
+	 * consulterItems et consulterReviews lisent les reviews page par page.
 	 */
 	public LinkedList <String> consultItems(String nom) throws BadEntry {
 		LinkedList<String> result = new LinkedList<String>();
-		Film film = null;
-		Book book = null;
+		Statut s = tryConsultItems(nom, result);
+		if (s!=Statut.OK)
+			throw new BadEntry(s.getMessage(), pileAppels);
+		return result;
+	}
+
+	/**
+	 * Consulter les items du <i>SocialNetwork</i> par nom, sans lever d'exception.
+	 * 
+	 * @param nom son nom (eg. titre d'un film, d'un livre, etc.)
+	 * @param result collection à laquelle sont ajoutées les représentations de tous les items ayant ce nom
+	 * @return OK, ou NOM_INCORRECT si le nom n'est pas instancié ou a moins de 1 caractère autre que des espaces
+	 */
+	public Statut tryConsultItems(String nom, Collection<String> result) {
+		long debut = Mesures.debut();
 		
 		//===================================== ANALYSE DES CAS D'ERREURS =======================================
 		
-		if (nom==null || nom.replaceAll(" ", "").length()<1)
-			throw new BadEntry("Le nom de l'item à rechercher doit être instancié et comporter au moins un caractère différent d'un espace)");
+		Statut s = Validation.nom(nom);
+		if (s!=Statut.OK)
+			return mesures.fin(Operation.CONSULT_ITEMS, s, debut);
 		
 		//===================================== RECHERCHE DANS LES ITEMS ========================================
 		
-		// On regarde le nom de chaque item. S'il correspond, on le rajoute à la liste de chaines result
-		for (Item i : items)
-		{
-			if ( i instanceof Film)
-			{
-				film = (Film)i;
-				if (film.getTitre().trim().toUpperCase().equals(nom.trim().toUpperCase())) // On passe tout en majuscules pour ignorer la casse lors de la comparaison. On élimine également les espaces en début et fin
-					result.add(film.toString());
-			}
-			else if (i instanceof Book)
-			{
-				book = (Book)i;
-				if (book.getTitre().trim().toUpperCase().equals(nom.trim().toUpperCase()))
-					result.add(book.toString());
-			}
-		}
+		// Un titre est unique par type d'item : on interroge directement l'index de chaque type.
+		// La clé normalisée ignore la casse ainsi que les espaces en début et fin.
+		String cle = normaliser(nom);
+		Film film = films.get(cle);
+		if (film!=null)
+			result.add(film.toString());
+		Book book = books.get(cle);
+		if (book!=null)
+			result.add(book.toString());
 		
-		return result;
+		return mesures.fin(Operation.CONSULT_ITEMS, Statut.OK, debut);
+	}
+
+
+
+	/**
+	 * Rechercher les items du <i>SocialNetwork</i> dont le titre commence par un fragment ou le contient,
+	 * par exemple pour proposer des titres au fil de la frappe. La recherche est indifférente à la casse
+	 * et aux leading et trailing blanks du fragment. Sa durée ne dépend pas de la taille du catalogue :
+	 * pour un fragment très courant, seule une partie des titres qui le contiennent peut être renvoyée.
+	 * 
+	 * @param fragment début ou partie du titre recherché ; un fragment de moins de 3 caractères n'est cherché qu'en début de titre
+	 * @param max nombre maximal d'items renvoyés
+	 * 
+	 * @throws BadEntry : si le fragment n'est pas instancié ou a moins de 1 caractère autre que des espaces, ou si max est négatif.
+	 * 
+	 * @return au plus max items : d'abord ceux dont le titre commence par le fragment, dans l'ordre alphabétique
+	 * (films puis livres), puis ceux dont le titre contient le fragment, dans l'ordre d'ajout
+	 */
+	public List<Item> rechercherItems(String fragment, int max) throws BadEntry {
+		Statut s = Validation.nom(fragment);
+		if (s!=Statut.OK)
+			throw new BadEntry(s.getMessage(), pileAppels);
+		if (max<0)
+			throw new BadEntry(Statut.NOMBRE_INCORRECT.getMessage(), pileAppels);
+		return indexTitres.rechercher(normaliser(fragment), max);
+	}
+
+
+
+	/**
+	 * Rechercher les reviews dont le commentaire contient des termes ou des expressions. Les termes sont les suites
+	 * de lettres et de chiffres, sans distinction de casse. Les reviews sont classées par pertinence (BM25) :
+	 * les termes rares, répétés dans un commentaire court, comptent le plus.
+	 * 
+	 * @param requete termes séparés par des blancs ou de la ponctuation, tous requis ; une expression entre guillemets
+	 * doit figurer telle quelle, par exemple <code>"fin inattendue" acteurs</code>
+	 * @param max nombre maximal de reviews renvoyées
+	 * 
+	 * @throws BadEntry : si la requête n'est pas instanciée ou a moins de 1 caractère autre que des espaces, ou si max est négatif.
+	 * 
+	 * @return au plus max reviews, de la plus pertinente à la moins pertinente ; l'item de chacune est donné par getItem
+	 */
+	public List<Review> rechercherReviews(String requete, int max) throws BadEntry {
+		verifierRequete(requete, max);
+		return indexCommentaires.rechercher(requete, max);
+	}
+
+
+
+	/**
+	 * Rechercher les items dont au moins un commentaire satisfait une requête (voir rechercherReviews).
+	 * 
+	 * @param requete termes et expressions entre guillemets, tous requis dans un même commentaire
+	 * @param max nombre maximal d'items renvoyés
+	 * 
+	 * @throws BadEntry : si la requête n'est pas instanciée ou a moins de 1 caractère autre que des espaces, ou si max est négatif.
+	 * 
+	 * @return au plus max items, classés selon la pertinence de leur meilleur commentaire
+	 */
+	public List<Item> rechercherItemsParCommentaire(String requete, int max) throws BadEntry {
+		verifierRequete(requete, max);
+		return indexCommentaires.rechercherItems(requete, max);
+	}
+
+	/**
+	 * Vérifie une requête de recherche dans les commentaires
+	 */
+	private void verifierRequete(String requete, int max) throws BadEntry {
+		Statut s = Validation.nom(requete);
+		if (s!=Statut.OK)
+			throw new BadEntry(s.getMessage(), pileAppels);
+		if (max<0)
+			throw new BadEntry(Statut.NOMBRE_INCORRECT.getMessage(), pileAppels);
 	}
 
 
@@ -367,55 +596,19 @@ public class SocialNetwork {
 	 * @return la note moyenne des notes sur ce film  
 	 */
 	public float reviewItemFilm(String pseudo, String password, String titre, float note, String commentaire) throws BadEntry, NotMember, NotItem {
-		
-		Member membre = null;
-		Film film = null;
-		//===================================== ANALYSE DES CAS D'ERREURS =======================================
-		
-		// Si pseudo, password, titre ou commentaire pas instanciés
-		if (pseudo==null || password==null || titre==null || commentaire==null)
-			throw new BadEntry("Le pseudo, le password, le titre et le commentaire doivent être instanciés.");
-		
-		// Si le pseudo a moins de 1 caractère autre que des espaces
-		if (pseudo.replaceAll(" ", "").length()<1)
-			throw new BadEntry("Le pseudo doit présenter au moins un caractère qui n'est pas un espace.");
-		
-		// Si le password a moins de 4 caractères autres que des leading ou trailing blanks
-		if (password.trim().length()<4)
-			throw new BadEntry("Le password doit comporter au moins 4 caractères autres que des leading ou trailing blanks.");
-		
-		// Si le titre a moins de 1 caractère autre que des espaces
-		if (titre.replaceAll(" ", "").length()<1)
-			throw new BadEntry("Le titre doit comporter au moins un caractère différent d'un espace.");
-		
-		// Si la note n'est pas comprise entre 0.0 et 5.0
-		if (note<0.0f || note>5.0f)
-			throw new BadEntry("La note doit être comprise entre 0.0 et 5.0.");
-		
-		// Si le membre n'existe pas ou si le password est incorrect
-		for (Member m: members)
-			if(m.getPseudo().equals(pseudo))
-			{
-				if (m.passwordMatches(password))
-					membre = m;
-				else
-					break; //Inutile de continuer si on a déjà trouvé le membre mais que son password est faux
-			}
-		if (membre==null)
-			throw new NotMember("Les informations fournies n'ont pas permis de vous authentifier. Vérifiez votre pseudo et votre password.");
-			
-		// Si le titre n'est pas celui d'un film
-		for (Item i : items)
-			if (i instanceof Film)
-				if (((Film) i).getTitre().trim().toUpperCase().equals(titre.trim().toUpperCase()))
-					film = (Film)i;
-		if (film==null)
-			throw new NotItem("Le titre saisi ne correspond pas à un film répertorié.");
-			
-		
-		//===================================== AJOUT DE LA REVIEW AU BON FILM ==================================
-		film.addOrModifyReview(membre, note, commentaire); 
-		return film.moyenneNotesReview();
+		return moyenneOuException(tryReviewItemFilm(pseudo, password, titre, note, commentaire));
+	}
+
+	/**
+	 * Donner son opinion sur un item film, sans lever d'exception en cas de refus.
+	 * Les paramètres sont ceux de reviewItemFilm.
+	 * 
+	 * @return le statut OK et la note moyenne des notes sur ce film, ou le motif du refus
+	 * (dans les cas où reviewItemFilm lèverait une exception)
+	 * @throws UncheckedIOException si le journal associé ne peut enregistrer la review (voir la description de la classe)
+	 */
+	public ResultatReview tryReviewItemFilm(String pseudo, String password, String titre, float note, String commentaire) {
+		return tryReview(films, Journal.REVIEW_FILM, Statut.FILM_INCONNU, pseudo, password, titre, note, commentaire);
 	}
 
 
@@ -445,87 +638,1371 @@ public class SocialNetwork {
 	 * @return la note moyenne des notes sur ce livre
 	 */
 	public float reviewItemBook(String pseudo, String password, String titre, float note, String commentaire) throws BadEntry, NotMember, NotItem {
+		return moyenneOuException(tryReviewItemBook(pseudo, password, titre, note, commentaire));
+	}
+
+	/**
+	 * Donner son opinion sur un item livre, sans lever d'exception en cas de refus.
+	 * Les paramètres sont ceux de reviewItemBook.
+	 * 
+	 * @return le statut OK et la note moyenne des notes sur ce livre, ou le motif du refus
+	 * (dans les cas où reviewItemBook lèverait une exception)
+	 * @throws UncheckedIOException si le journal associé ne peut enregistrer la review (voir la description de la classe)
+	 */
+	public ResultatReview tryReviewItemBook(String pseudo, String password, String titre, float note, String commentaire) {
+		return tryReview(books, Journal.REVIEW_BOOK, Statut.BOOK_INCONNU, pseudo, password, titre, note, commentaire);
+	}
+
+	/**
+	 * Dépôt d'une review, commun aux films et aux livres
+	 * @param registre registre des items du type concerné
+	 * @param typeJournal type d'enregistrement (Journal.REVIEW_FILM ou Journal.REVIEW_BOOK)
+	 * @param inconnu statut renvoyé si le titre n'est pas celui d'un item du registre
+	 */
+	private ResultatReview tryReview(Registre<? extends Item> registre, byte typeJournal, Statut inconnu, String pseudo, String password, String titre, float note, String commentaire) {
+		long debut = Mesures.debut();
 		
-		Member membre = null;
-		Book book = null;
 		//===================================== ANALYSE DES CAS D'ERREURS =======================================
 		
-		// Si pseudo, password, titre ou commentaire pas instanciés
-		if (pseudo==null || password==null || titre==null || commentaire==null)
-			throw new BadEntry("Le pseudo, le password, le titre et le commentaire doivent être instanciés.");
-		
-		// Si le pseudo a moins de 1 caractère autre que des espaces
-		if (pseudo.replaceAll(" ", "").length()<1)
-			throw new BadEntry("Le pseudo doit présenter au moins un caractère qui n'est pas un espace.");
-		
-		// Si le password a moins de 4 caractères autres que des leading ou trailing blanks
-		if (password.trim().length()<4)
-			throw new BadEntry("Le password doit comporter au moins 4 caractères autres que des leading ou trailing blanks.");
-		
-		// Si le titre a moins de 1 caractère autre que des espaces
-		if (titre.replaceAll(" ", "").length()<1)
-			throw new BadEntry("Le titre doit comporter au moins un caractère différent d'un espace.");
-		
-		// Si la note n'est pas comprise entre 0.0 et 5.0
-		if (note<0.0f || note>5.0f)
-			throw new BadEntry("La note doit être comprise entre 0.0 et 5.0.");
+		Statut s = Validation.review(pseudo, password, titre, note, commentaire);
+		if (s!=Statut.OK)
+			return mesures.fin(operation(typeJournal), ResultatReview.refus(s), debut);
 		
 		// Si le membre n'existe pas ou si le password est incorrect
-		for (Member m: members)
-			if(m.getPseudo().equals(pseudo))
-			{
-				if (m.passwordMatches(password))
-					membre = m;
-				else
-					break; //Inutile de continuer si on a déjà trouvé le membre mais que son password est faux
-			}
+		Member membre = authentifier(pseudo, password);
 		if (membre==null)
-			throw new NotMember("Les informations fournies n'ont pas permis de vous authentifier. Vérifiez votre pseudo et votre password.");
-			
-		// Si le titre n'est pas celui d'un livre
-		for (Item i : items)
-			if (i instanceof Book)
-				if (((Book) i).getTitre().trim().toUpperCase().equals(titre.trim().toUpperCase()))
-					book = (Book)i;
-		if (book==null)
-			throw new NotItem("Le titre saisi ne correspond pas à un livre répertorié.");
-			
+			return mesures.fin(operation(typeJournal), ResultatReview.refus(Statut.NOT_MEMBER), debut);
+		return deposer(registre, typeJournal, inconnu, membre, titre, note, commentaire, debut);
+	}
+
+	/**
+	 * Dépôt par un membre authentifié d'une review dont les paramètres ont été vérifiés.
+	 * L'appel est mesuré même si le journal ne peut valider la review, déjà déposée en mémoire.
+	 * @param debut valeur renvoyée par Mesures.debut() au début de l'appel
+	 */
+	private ResultatReview deposer(Registre<? extends Item> registre, byte typeJournal, Statut inconnu, Member membre, String titre, float note, String commentaire, long debut) {
+		// Si le titre n'est pas celui d'un item de ce type
+		Item item = registre.get(normaliser(titre));
+		if (item==null)
+			return mesures.fin(operation(typeJournal), ResultatReview.refus(inconnu), debut);
 		
-		//===================================== AJOUT DE LA REVIEW AU BON FILM ==================================
-		book.addOrModifyReview(membre, note, commentaire); 
-		return book.moyenneNotesReview();
+		//===================================== AJOUT DE LA REVIEW A L'ITEM =====================================
+		float moyenne;
+		try {
+			moyenne = deposerReview(item, typeJournal, membre, note, commentaire);
+		}
+		finally {
+			mesures.fin(operation(typeJournal), Statut.OK, debut);
+		}
+		return ResultatReview.ok(moyenne);
+	}
+
+	/**
+	 * Traduit le résultat d'une variante try* de reviewItemFilm ou reviewItemBook en exception
+	 * @return la note moyenne si la review a été déposée
+	 */
+	private float moyenneOuException(ResultatReview r) throws BadEntry, NotMember, NotItem {
+		Statut s = r.getStatut();
+		if (s==Statut.OK)
+			return r.getMoyenne();
+		switch (s.getCategorie()) {
+		case NOT_MEMBER:
+			throw new NotMember(s.getMessage(), pileAppels);
+		case NOT_ITEM:
+			throw new NotItem(s.getMessage(), pileAppels);
+		default:
+			throw new BadEntry(s.getMessage(), pileAppels);
+		}
+	}
+
+	/**
+	 * Configurer le cache des descriptions d'items renvoyées par consultItems. Une description est construite
+	 * à la première consultation de l'item, puis servie jusqu'à la prochaine modification de l'item ; au-delà
+	 * du budget, les descriptions les moins récemment consultées sont évincées.
+	 * 
+	 * @param budget mémoire maximale des descriptions en cache, en octets (BUDGET_CACHE par défaut) ; 0 désactive le cache
+	 * @throws IllegalArgumentException si le budget est négatif
+	 */
+	public void configurerCache(long budget) {
+		cacheRepresentations.setBudget(budget);
 	}
 
+	//===================================== ABONNEMENTS ========================================================
+	// Les ajouts de membres et d'items et les dépôts de reviews sont signalés aux abonnés, qui tiennent à jour
+	// ce qu'ils en ont tiré (un affichage, par exemple) sans tout relire.
 
 	/**
-	 * Obtenir une représentation textuelle du <i>SocialNetwork</i>.
+	 * Abonner un écouteur aux modifications du <i>SocialNetwork</i>.
 	 * 
-	 * @return la chaîne de caractères représentation textuelle du <i>SocialNetwork</i> 
+	 * @param ecouteur l'abonné
+	 * @param etatActuel si vrai, l'abonné reçoit d'abord, sur le thread appelant, un ajout pour chaque membre et chaque item
+	 * déjà présent ; un élément ajouté pendant ce parcours peut lui être signalé deux fois
+	 * @throws BadEntry : si l'écouteur n'est pas instancié.
 	 */
-	public String toString() {
-		String s = "Le SocialNetwork est composé des éléments suivants:\n";
-		
-		s+= "\nMEMBRES (" + nbMembers() + ") : \n";
-		if (!members.isEmpty())
-			for(Member m:members)
-				s+=m;
-		else
-			s+= "Aucun membre.\n";
-			
-		if(!items.isEmpty()) {
-			s+="\nLIVRES (" + nbBooks() + ") : \n";
-			for(Item i: items)
-				if (i instanceof Book)
-					s+= (Book)i;
-			
-			s+= "\nFILMS (" + nbFilms() + ") : \n";
-			for(Item i : items)
-				if (i instanceof Film)
-					s+= (Film)i;
+	public void abonner(EcouteurReseau ecouteur, boolean etatActuel) throws BadEntry {
+		if (ecouteur==null)
+			throw new BadEntry(Statut.PARAMETRE_NON_INSTANCIE.getMessage(), pileAppels);
+		ecouteurs.add(ecouteur);
+		if (!etatActuel)
+			return;
+		for (Member m : members.values())
+			ecouteur.membreAjoute(m);
+		for (Book b : books.values())
+			ecouteur.itemAjoute(b);
+		for (Film f : films.values())
+			ecouteur.itemAjoute(f);
+	}
+
+	/**
+	 * Désabonner un écouteur (sans effet s'il n'est pas abonné)
+	 * 
+	 * @param ecouteur l'abonné
+	 */
+	public void desabonner(EcouteurReseau ecouteur) {
+		ecouteurs.remove(ecouteur);
+	}
+
+	/**
+	 * Signale une modification à un abonné ; une exception de l'abonné n'annule pas la modification
+	 */
+	private static void signaler(EcouteurReseau e, Member membre, Item item, Review review) {
+		try {
+			if (membre!=null)
+				e.membreAjoute(membre);
+			else if (item!=null)
+				e.itemAjoute(item);
+			else
+				e.reviewDeposee(review);
 		}
-		else
-			s+= "\n AUCUN ITEM.\n";
-		
-		return s;
+		catch (RuntimeException ignoree) {
+		}
+	}
+
+	/**
+	 * Signale à un abonné un item repondéré après un changement de karma (voir signaler)
+	 */
+	private static void signalerRepondere(EcouteurReseau e, Item item) {
+		try {
+			e.itemRepondere(item);
+		}
+		catch (RuntimeException ignoree) {
+		}
+	}
+
+	//===================================== MESURES ===========================================================
+	// Chaque appel de addMember, addItemFilm, addItemBook, consultItems, reviewItemFilm, reviewItemBook,
+	// reviewOpinionFilm et reviewOpinionBook (variantes try et avec session comprises) est compté par statut,
+	// sans verrou ; la durée d'un appel sur Mesures.ECHANTILLONNAGE est classée dans un histogramme.
+
+	/**
+	 * Obtenir les mesures des opérations du <i>SocialNetwork</i> : nombre d'appels par statut (chaque statut de refus
+	 * correspond à une exception, voir Statut.getCategorie) et centiles des durées.
+	 * 
+	 * @return les mesures, dont getRapport donne un résumé textuel
+	 */
+	public MesuresMXBean getMesures() {
+		return mesures;
+	}
+
+	/**
+	 * Exposer les mesures par JMX, dans le serveur de MBeans de la plateforme, jusqu'à la fermeture du <i>SocialNetwork</i>.
+	 * Un nouvel appel sous un autre nom retire l'exposition précédente avant la nouvelle ; sous le même nom, il est sans effet.
+	 * 
+	 * @param nom nom du <i>SocialNetwork</i>, qui distingue ses mesures de celles d'autres instances
+	 * @return le nom JMX des mesures (avis:type=SocialNetwork,name=nom)
+	 * @throws JMException si le nom est incorrect ou déjà utilisé par un autre MBean
+	 */
+	public ObjectName exposerMesures(String nom) throws JMException {
+		ObjectName nomJmx = new ObjectName("avis:type=SocialNetwork,name=" + ObjectName.quote(nom));
+		synchronized (mesures) {
+			ObjectName ancien = nomMesures;
+			if (nomJmx.equals(ancien))
+				return nomJmx;
+			// Un MXBean ne peut être enregistré que sous un seul nom : l'ancien est retiré d'abord
+			retirer(ancien);
+			nomMesures = null;
+			ManagementFactory.getPlatformMBeanServer().registerMBean(mesures, nomJmx);
+			nomMesures = nomJmx;
+		}
+		return nomJmx;
+	}
+
+	/**
+	 * Retire des mesures exposées par JMX (sans effet si le nom est null ou déjà retiré)
+	 */
+	private static void retirer(ObjectName nom) {
+		if (nom==null)
+			return;
+		try {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(nom);
+		}
+		catch (JMException e) { // déjà retiré
+		}
+	}
+
+	/**
+	 * Opération mesurée correspondant à un type d'enregistrement du journal
+	 */
+	private static Operation operation(byte typeJournal) {
+		switch (typeJournal) {
+		case Journal.REVIEW_FILM: return Operation.REVIEW_ITEM_FILM;
+		case Journal.REVIEW_BOOK: return Operation.REVIEW_ITEM_BOOK;
+		case Journal.EVALUATION_FILM: return Operation.REVIEW_OPINION_FILM;
+		default: return Operation.REVIEW_OPINION_BOOK;
+		}
+	}
+
+	//===================================== CONSULTATION PAR PAGES ============================================
+	// Les items sont résumés sans leurs reviews, qui se lisent page par page derrière un curseur : la mémoire
+	// d'une consultation est bornée par la taille de page, quel que soit le nombre de reviews de l'item.
+
+	/** taille de page maximale de consulterReviews */
+	public static final int TAILLE_PAGE_MAX = 1000;
+
+	/**
+	 * Consulter les items du <i>SocialNetwork</i> par nom, sous forme de résumés sans les reviews.
+	 * 
+	 * @param nom son nom (eg. titre d'un film, d'un livre, etc.)
+	 * 
+	 * @throws BadEntry : si le nom n'est pas instancié ou a moins de 1 caractère autre que des espaces.
+	 * 
+	 * @return les résumés des items ayant ce nom, le film avant le livre (une liste vide si aucun item ne correspond)
+	 */
+	public List<ResumeItem> consulterItems(String nom) throws BadEntry {
+		Statut s = Validation.nom(nom);
+		if (s!=Statut.OK)
+			throw new BadEntry(s.getMessage(), pileAppels);
+		ArrayList<ResumeItem> resumes = new ArrayList<ResumeItem>(2);
+		String cle = normaliser(nom);
+		Film film = films.get(cle);
+		if (film!=null)
+			resumes.add(film.resumer());
+		Book book = books.get(cle);
+		if (book!=null)
+			resumes.add(book.resumer());
+		return resumes;
+	}
+
+	/**
+	 * Lire une page de reviews d'un item, à partir d'un curseur obtenu par ResumeItem.getReviews
+	 * ou par la page précédente.
+	 * 
+	 * @param curseur position de la première review de la page
+	 * @param taillePage nombre maximal de reviews de la page
+	 * 
+	 * @throws BadEntry : si le curseur n'est pas instancié, ou si la taille de page n'est pas comprise entre 1 et TAILLE_PAGE_MAX.
+	 * 
+	 * @return la page, avec le curseur de la page suivante s'il reste des reviews
+	 */
+	public PageReviews consulterReviews(CurseurReviews curseur, int taillePage) throws BadEntry {
+		if (curseur==null)
+			throw new BadEntry(Statut.PARAMETRE_NON_INSTANCIE.getMessage(), pileAppels);
+		if (taillePage<1 || taillePage>TAILLE_PAGE_MAX)
+			throw new BadEntry(Statut.TAILLE_PAGE_INCORRECTE.getMessage(), pileAppels);
+		ArrayList<Review> page = new ArrayList<Review>(taillePage);
+		int suivante = curseur.item.copierReviews(curseur.position, taillePage, page);
+		return new PageReviews(page, (suivante<0) ? null : new CurseurReviews(curseur.item, suivante));
+	}
+
+	//===================================== CLASSEMENTS =======================================================
+	// Les classements sont tenus à jour à chaque changement de moyenne : une page "meilleurs items" ne parcourt
+	// que les items qu'elle affiche.
+
+	/**
+	 * Obtenir les films les mieux notés du <i>SocialNetwork</i>.
+	 * Seuls les films ayant reçu au moins le nombre de reviews fixé par setSeuilClassement sont classés.
+	 * A note moyenne égale, le film ajouté le premier est classé devant.
+	 * 
+	 * @param k nombre de films demandés
+	 * @throws BadEntry : si k est négatif.
+	 * @return les k films les mieux notés (moins s'il y a moins de k films classés), du mieux noté au moins bien noté
+	 */
+	public List<Film> topFilms(int k) throws BadEntry {
+		if (k<0)
+			throw new BadEntry(Statut.NOMBRE_INCORRECT.getMessage(), pileAppels);
+		return classementFilms.premiers(k);
+	}
+
+	/**
+	 * Obtenir les films d'un genre les mieux notés du <i>SocialNetwork</i>, comme topFilms.
+	 * 
+	 * @param genre le genre (indifférent à la casse et aux leading et trailing blanks)
+	 * @param k nombre de films demandés
+	 * @throws BadEntry : si le genre n'est pas instancié ou a moins de 1 caractère autre que des espaces, ou si k est négatif.
+	 * @return les k films de ce genre les mieux notés, du mieux noté au moins bien noté (une liste vide pour un genre inconnu)
+	 */
+	public List<Film> topFilms(String genre, int k) throws BadEntry {
+		return premiers(classementsFilmsParGenre, genre, k);
+	}
+
+	/**
+	 * Obtenir les livres les mieux notés du <i>SocialNetwork</i>, comme topFilms.
+	 * 
+	 * @param k nombre de livres demandés
+	 * @throws BadEntry : si k est négatif.
+	 * @return les k livres les mieux notés (moins s'il y a moins de k livres classés), du mieux noté au moins bien noté
+	 */
+	public List<Book> topBooks(int k) throws BadEntry {
+		if (k<0)
+			throw new BadEntry(Statut.NOMBRE_INCORRECT.getMessage(), pileAppels);
+		return classementBooks.premiers(k);
+	}
+
+	/**
+	 * Obtenir les livres d'un genre les mieux notés du <i>SocialNetwork</i>, comme topFilms.
+	 * 
+	 * @param genre le genre (indifférent à la casse et aux leading et trailing blanks)
+	 * @param k nombre de livres demandés
+	 * @throws BadEntry : si le genre n'est pas instancié ou a moins de 1 caractère autre que des espaces, ou si k est négatif.
+	 * @return les k livres de ce genre les mieux notés, du mieux noté au moins bien noté (une liste vide pour un genre inconnu)
+	 */
+	public List<Book> topBooks(String genre, int k) throws BadEntry {
+		return premiers(classementsBooksParGenre, genre, k);
+	}
+
+	/**
+	 * Fixer le nombre minimal de reviews pour qu'un item figure dans les classements (SEUIL_CLASSEMENT par défaut).
+	 * Tous les items sont reclassés.
+	 * 
+	 * @param nbReviewsMin nombre minimal de reviews
+	 * @throws BadEntry : si nbReviewsMin est négatif.
+	 */
+	public void setSeuilClassement(int nbReviewsMin) throws BadEntry {
+		if (nbReviewsMin<0)
+			throw new BadEntry(Statut.NOMBRE_INCORRECT.getMessage(), pileAppels);
+		seuilClassement = nbReviewsMin;
+		classementFilms.setNbReviewsMin(nbReviewsMin);
+		classementBooks.setNbReviewsMin(nbReviewsMin);
+		for (Classement<Film> c : classementsFilmsParGenre.values())
+			c.setNbReviewsMin(nbReviewsMin);
+		for (Classement<Book> c : classementsBooksParGenre.values())
+			c.setNbReviewsMin(nbReviewsMin);
+		for (Film f : films.values())
+			f.reclasser();
+		for (Book b : books.values())
+			b.reclasser();
+	}
+
+	/**
+	 * Premiers items d'un classement par genre
+	 */
+	private <I extends Item> List<I> premiers(ConcurrentHashMap<String, Classement<I>> parGenre, String genre, int k) throws BadEntry {
+		if (genre==null || !Validation.nonBlanc(genre))
+			throw new BadEntry(Statut.GENRE_INCORRECT.getMessage(), pileAppels);
+		if (k<0)
+			throw new BadEntry(Statut.NOMBRE_INCORRECT.getMessage(), pileAppels);
+		Classement<I> c = parGenre.get(normaliser(genre));
+		return (c==null) ? new ArrayList<I>() : c.premiers(k);
+	}
+
+	/**
+	 * Classement d'un genre, créé au premier item de ce genre
+	 */
+	private <I extends Item> Classement<I> classementGenre(ConcurrentHashMap<String, Classement<I>> parGenre, String genre) {
+		String cle = normaliser(genre);
+		Classement<I> c = parGenre.get(cle);
+		if (c==null) {
+			Classement<I> nouveau = new Classement<I>(seuilClassement);
+			c = parGenre.putIfAbsent(cle, nouveau);
+			if (c==null)
+				c = nouveau;
+		}
+		return c;
+	}
+
+	//===================================== FACETTES PAR GENRE ================================================
+	// Chaque genre tient le compte de ses items, la moyenne de leurs notes et la liste de ses items notés par note :
+	// "tous les films de ce genre par note" ne parcourt que les films de ce genre.
+
+	/**
+	 * Obtenir le nombre de films de chaque genre.
+	 * Les genres sont comparés sans tenir compte de la casse ni des leading et trailing blanks ; chacun est nommé
+	 * tel que saisi pour son premier film.
+	 * 
+	 * @return le nombre de films de chaque genre, du genre le plus fourni au moins fourni
+	 */
+	public Map<String, Integer> facettesFilms() {
+		return compter(facettesFilms);
+	}
+
+	/**
+	 * Obtenir le nombre de livres de chaque genre, comme facettesFilms.
+	 * 
+	 * @return le nombre de livres de chaque genre, du genre le plus fourni au moins fourni
+	 */
+	public Map<String, Integer> facettesBooks() {
+		return compter(facettesBooks);
+	}
+
+	/**
+	 * Obtenir la note moyenne des films d'un genre : la moyenne des moyennes de ses films notés, en temps constant.
+	 * 
+	 * @param genre le genre (indifférent à la casse et aux leading et trailing blanks)
+	 * @throws BadEntry : si le genre n'est pas instancié ou a moins de 1 caractère autre que des espaces.
+	 * @return la note moyenne du genre, 0 si aucun de ses films n'est noté ou si le genre est inconnu
+	 */
+	public float moyenneFilms(String genre) throws BadEntry {
+		Facette<Film> f = facette(facettesFilms, genre);
+		return (f==null) ? 0.0f : f.moyenne();
+	}
+
+	/**
+	 * Obtenir la note moyenne des livres d'un genre, comme moyenneFilms.
+	 * 
+	 * @param genre le genre (indifférent à la casse et aux leading et trailing blanks)
+	 * @throws BadEntry : si le genre n'est pas instancié ou a moins de 1 caractère autre que des espaces.
+	 * @return la note moyenne du genre, 0 si aucun de ses livres n'est noté ou si le genre est inconnu
+	 */
+	public float moyenneBooks(String genre) throws BadEntry {
+		Facette<Book> f = facette(facettesBooks, genre);
+		return (f==null) ? 0.0f : f.moyenne();
+	}
+
+	/**
+	 * Obtenir les films notés d'un genre par note moyenne décroissante, sans seuil de nombre de reviews
+	 * (contrairement à topFilms). A note moyenne égale, le film ajouté le premier est classé devant.
+	 * 
+	 * @param genre le genre (indifférent à la casse et aux leading et trailing blanks)
+	 * @param k nombre maximal de films renvoyés
+	 * @throws BadEntry : si le genre n'est pas instancié ou a moins de 1 caractère autre que des espaces, ou si k est négatif.
+	 * @return les k premiers films notés du genre, une liste vide pour un genre inconnu
+	 */
+	public List<Film> filmsParNote(String genre, int k) throws BadEntry {
+		if (k<0)
+			throw new BadEntry(Statut.NOMBRE_INCORRECT.getMessage(), pileAppels);
+		Facette<Film> f = facette(facettesFilms, genre);
+		return (f==null) ? new ArrayList<Film>() : f.premiers(k);
+	}
+
+	/**
+	 * Obtenir les livres notés d'un genre par note moyenne décroissante, comme filmsParNote.
+	 * 
+	 * @param genre le genre (indifférent à la casse et aux leading et trailing blanks)
+	 * @param k nombre maximal de livres renvoyés
+	 * @throws BadEntry : si le genre n'est pas instancié ou a moins de 1 caractère autre que des espaces, ou si k est négatif.
+	 * @return les k premiers livres notés du genre, une liste vide pour un genre inconnu
+	 */
+	public List<Book> booksParNote(String genre, int k) throws BadEntry {
+		if (k<0)
+			throw new BadEntry(Statut.NOMBRE_INCORRECT.getMessage(), pileAppels);
+		Facette<Book> f = facette(facettesBooks, genre);
+		return (f==null) ? new ArrayList<Book>() : f.premiers(k);
+	}
+
+	/**
+	 * Facette d'un genre, null si le genre est inconnu
+	 */
+	private <I extends Item> Facette<I> facette(ConcurrentHashMap<String, Facette<I>> facettes, String genre) throws BadEntry {
+		if (genre==null || !Validation.nonBlanc(genre))
+			throw new BadEntry(Statut.GENRE_INCORRECT.getMessage(), pileAppels);
+		return facettes.get(normaliser(genre));
+	}
+
+	/**
+	 * Nombre d'items de chaque genre, du plus fourni au moins fourni
+	 */
+	private static <I extends Item> Map<String, Integer> compter(ConcurrentHashMap<String, Facette<I>> facettes) {
+		ArrayList<Facette<I>> triees = new ArrayList<Facette<I>>(facettes.values());
+		Collections.sort(triees, new Comparator<Facette<I>>() {
+			public int compare(Facette<I> a, Facette<I> b) {
+				int c = Integer.compare(b.nbItems(), a.nbItems());
+				return (c != 0) ? c : a.getNom().compareTo(b.getNom());
+			}
+		});
+		LinkedHashMap<String, Integer> nombres = new LinkedHashMap<String, Integer>();
+		for (Facette<I> f : triees)
+			nombres.put(f.getNom(), f.nbItems());
+		return nombres;
+	}
+
+	/**
+	 * Facette d'un genre, créée au premier item de ce genre
+	 */
+	private static <I extends Item> Facette<I> facetteGenre(ConcurrentHashMap<String, Facette<I>> facettes, String genre) {
+		String cle = normaliser(genre);
+		Facette<I> f = facettes.get(cle);
+		if (f==null) {
+			Facette<I> nouvelle = new Facette<I>(genre.trim());
+			f = facettes.putIfAbsent(cle, nouvelle);
+			if (f==null)
+				f = nouvelle;
+		}
+		return f;
+	}
+
+	//===================================== EVALUATION DES REVIEWS (VERSION 2) ================================
+	// Le karma d'un membre est la moyenne des notes attribuées à ses reviews ; il pondère ses reviews dans la
+	// moyenne de chaque item. Un changement de karma ne repondère que les reviews du membre concerné.
+
+	/**
+	 * Evaluer la review d'un autre membre sur un item film.
+	 * Si ce membre a déjà évalué cette review, son évaluation est mise à jour avec la nouvelle note.
+	 * Le karma de l'auteur de la review, et donc la moyenne des films qu'il a évalués, est mis à jour.
+	 * 
+	 * @param pseudo pseudo du membre qui évalue la review
+	 * @param password son mot de passe
+	 * @param titre titre du film concerné
+	 * @param auteur pseudo de l'auteur de la review évaluée
+	 * @param note la note attribuée à la review
+	 * 
+	 * @throws BadEntry :
+	 * <ul>
+	 *  <li>  si le pseudo n'est pas instancié ou a moins de 1 caractère autre que des espaces .  </li>
+	 *  <li>  si le password n'est pas instancié ou a moins de 4 caractères autres que des leading or trailing blanks. </li>
+	 *  <li>  si le titre n'est pas instancié ou a moins de 1 caractère autre que des espaces.  </li>
+	 *  <li>  si l'auteur n'est pas instancié ou a moins de 1 caractère autre que des espaces.  </li>
+	 *  <li>  si la note n'est pas comprise entre 0.0 et 5.0. </li>
+	 *  <li>  si le membre évalue sa propre review. </li>
+	 * </ul><br>       
+	 * @throws NotMember : si le pseudo n'est pas celui d'un membre ou si le pseudo et le password ne correspondent pas.
+	 * @throws NotItem : si le titre n'est pas le titre d'un film, ou si l'auteur n'a pas déposé de review sur ce film.
+	 * 
+	 * @return le nouveau karma de l'auteur de la review
+	 */
+	public float reviewOpinionFilm(String pseudo, String password, String titre, String auteur, float note) throws BadEntry, NotMember, NotItem {
+		return moyenneOuException(tryReviewOpinionFilm(pseudo, password, titre, auteur, note));
+	}
+
+	/**
+	 * Evaluer la review d'un autre membre sur un item film, sans lever d'exception en cas de refus.
+	 * Les paramètres sont ceux de reviewOpinionFilm.
+	 * 
+	 * @return le statut OK et le nouveau karma de l'auteur de la review (getMoyenne), ou le motif du refus
+	 * (dans les cas où reviewOpinionFilm lèverait une exception)
+	 * @throws UncheckedIOException si le journal associé ne peut enregistrer l'évaluation (voir la description de la classe)
+	 */
+	public ResultatReview tryReviewOpinionFilm(String pseudo, String password, String titre, String auteur, float note) {
+		return tryOpinion(films, Journal.EVALUATION_FILM, Statut.FILM_INCONNU, pseudo, password, titre, auteur, note);
+	}
+
+	/**
+	 * Evaluer la review d'un autre membre sur un item livre.
+	 * Comme reviewOpinionFilm, pour un livre.
+	 * 
+	 * @param pseudo pseudo du membre qui évalue la review
+	 * @param password son mot de passe
+	 * @param titre titre du livre concerné
+	 * @param auteur pseudo de l'auteur de la review évaluée
+	 * @param note la note attribuée à la review
+	 * 
+	 * @throws BadEntry : dans les cas décrits par reviewOpinionFilm
+	 * @throws NotMember : si le pseudo n'est pas celui d'un membre ou si le pseudo et le password ne correspondent pas.
+	 * @throws NotItem : si le titre n'est pas le titre d'un livre, ou si l'auteur n'a pas déposé de review sur ce livre.
+	 * 
+	 * @return le nouveau karma de l'auteur de la review
+	 */
+	public float reviewOpinionBook(String pseudo, String password, String titre, String auteur, float note) throws BadEntry, NotMember, NotItem {
+		return moyenneOuException(tryReviewOpinionBook(pseudo, password, titre, auteur, note));
+	}
+
+	/**
+	 * Evaluer la review d'un autre membre sur un item livre, sans lever d'exception en cas de refus.
+	 * Les paramètres sont ceux de reviewOpinionBook.
+	 * 
+	 * @return le statut OK et le nouveau karma de l'auteur de la review (getMoyenne), ou le motif du refus
+	 * @throws UncheckedIOException si le journal associé ne peut enregistrer l'évaluation (voir la description de la classe)
+	 */
+	public ResultatReview tryReviewOpinionBook(String pseudo, String password, String titre, String auteur, float note) {
+		return tryOpinion(books, Journal.EVALUATION_BOOK, Statut.BOOK_INCONNU, pseudo, password, titre, auteur, note);
+	}
+
+	/**
+	 * Evaluation d'une review, commune aux films et aux livres
+	 * @param typeJournal type d'enregistrement (Journal.EVALUATION_FILM ou Journal.EVALUATION_BOOK)
+	 * @param inconnu statut renvoyé si le titre n'est pas celui d'un item du registre
+	 */
+	private ResultatReview tryOpinion(Registre<? extends Item> registre, byte typeJournal, Statut inconnu, String pseudo, String password, String titre, String auteur, float note) {
+		long debut = Mesures.debut();
+		
+		//===================================== ANALYSE DES CAS D'ERREURS =======================================
+		
+		Statut s = Validation.opinion(pseudo, password, titre, auteur, note);
+		if (s!=Statut.OK)
+			return mesures.fin(operation(typeJournal), ResultatReview.refus(s), debut);
+		
+		// Si le membre n'existe pas ou si le password est incorrect
+		Member evaluateur = authentifier(pseudo, password);
+		if (evaluateur==null)
+			return mesures.fin(operation(typeJournal), ResultatReview.refus(Statut.NOT_MEMBER), debut);
+		
+		// Si le titre n'est pas celui d'un item de ce type
+		Item item = registre.get(normaliser(titre));
+		if (item==null)
+			return mesures.fin(operation(typeJournal), ResultatReview.refus(inconnu), debut);
+		
+		// Si l'auteur n'a pas déposé de review sur cet item, ou s'il s'agit de l'évaluateur
+		Member membreAuteur = members.get(normaliser(auteur));
+		if (membreAuteur==null)
+			return mesures.fin(operation(typeJournal), ResultatReview.refus(Statut.REVIEW_INCONNUE), debut);
+		if (membreAuteur==evaluateur)
+			return mesures.fin(operation(typeJournal), ResultatReview.refus(Statut.AUTO_EVALUATION), debut);
+		
+		//===================================== EVALUATION ET PROPAGATION DU KARMA ==============================
+		// Mesurée même si le journal ne peut valider l'évaluation, déjà prise en compte en mémoire
+		Statut resultat = Statut.OK;
+		float karma;
+		try {
+			karma = evaluer(item, typeJournal, membreAuteur, evaluateur, note);
+			if (Float.isNaN(karma))
+				resultat = Statut.REVIEW_INCONNUE;
+		}
+		finally {
+			mesures.fin(operation(typeJournal), resultat, debut);
+		}
+		return resultat.estOk() ? ResultatReview.ok(karma) : ResultatReview.refus(resultat);
+	}
+
+	//===================================== SESSIONS ==========================================================
+	// Un membre qui enchaîne les opérations s'authentifie une seule fois par login, puis présente sa session.
+
+	/**
+	 * Ouvrir une session : le membre est authentifié une fois pour toutes, jusqu'à l'expiration de la session
+	 * (par défaut 30 minutes après son ouverture), sa fermeture par logout ou son éviction par de nouvelles sessions
+	 * lorsque le nombre maximal de sessions ouvertes est atteint.
+	 * 
+	 * @param pseudo le pseudo du membre (indifférent aux leading et trailing blanks)
+	 * @param password le password du membre
+	 * 
+	 * @throws BadEntry :
+	 * <ul>
+	 *  <li>  si le pseudo n'est pas instancié ou a moins de 1 caractère autre que des espaces .  </li>
+	 *  <li>  si le password n'est pas instancié ou a moins de 4 caractères autres que des leading or trailing blanks. </li>
+	 * </ul><br>       
+	 * @throws NotMember : si le pseudo n'est pas celui d'un membre ou si le pseudo et le password ne correspondent pas.
+	 * 
+	 * @return le jeton de la session, à présenter aux variantes avec session de addItemFilm, addItemBook, reviewItemFilm et reviewItemBook
+	 */
+	public Session login(String pseudo, String password) throws BadEntry, NotMember {
+		Statut s = Validation.identifiants(pseudo, password);
+		if (s!=Statut.OK)
+			throw new BadEntry(s.getMessage(), pileAppels);
+		Member membre = authentifier(pseudo, password);
+		if (membre==null)
+			throw new NotMember(Statut.NOT_MEMBER.getMessage(), pileAppels);
+		return sessions.ouvrir(membre);
+	}
+
+	/**
+	 * Ouvrir une session, sans lever d'exception.
+	 * Les paramètres sont ceux de login.
+	 * 
+	 * @return le jeton de la session, null dans les cas où login lèverait une exception
+	 */
+	public Session tryLogin(String pseudo, String password) {
+		if (Validation.identifiants(pseudo, password)!=Statut.OK)
+			return null;
+		Member membre = authentifier(pseudo, password);
+		return (membre==null) ? null : sessions.ouvrir(membre);
+	}
+
+	/**
+	 * Fermer une session : son jeton n'est plus accepté. Sans effet si la session est déjà fermée ou expirée.
+	 * 
+	 * @param session le jeton obtenu par login
+	 */
+	public void logout(Session session) {
+		if (session!=null)
+			sessions.fermer(session);
+	}
+
+	/**
+	 * Configurer les sessions. Les sessions déjà ouvertes sont fermées.
+	 * 
+	 * @param capacite nombre maximal de sessions ouvertes ; au-delà, la plus ancienne est fermée
+	 * @param dureeMillis durée de validité d'une session, en millisecondes à partir de son ouverture
+	 * @throws IllegalArgumentException si la capacité ou la durée n'est pas strictement positive
+	 */
+	public void configurerSessions(int capacite, long dureeMillis) {
+		Sessions nouvelles = new Sessions(capacite, dureeMillis);
+		Sessions anciennes = sessions;
+		sessions = nouvelles;
+		anciennes.fermerTout();
+	}
+
+	/**
+	 * Ajouter un nouvel item de film au <i>SocialNetwork</i>, au nom du membre d'une session.
+	 * Comme addItemFilm, dont les autres paramètres sont repris.
+	 * 
+	 * @param session le jeton obtenu par login
+	 * @throws BadEntry : si la session n'est pas instanciée, ou dans les cas décrits par addItemFilm
+	 * @throws NotMember : si la session est expirée ou fermée
+	 * @throws ItemFilmAlreadyExists : item film de même titre déjà présent
+	 */
+	public void addItemFilm(Session session, String titre, String genre, String realisateur, String scenariste, int duree) throws BadEntry, NotMember, ItemFilmAlreadyExists {
+		leverSiRefusFilm(tryAddItemFilm(session, titre, genre, realisateur, scenariste, duree));
+	}
+
+	/**
+	 * Variante avec session de tryAddItemFilm.
+	 * 
+	 * @return OK si le film a été ajouté, sinon le motif du refus (SESSION_INVALIDE si la session est expirée ou fermée)
+	 * @throws UncheckedIOException si le journal associé ne peut enregistrer l'ajout du film (voir la description de la classe)
+	 */
+	public Statut tryAddItemFilm(Session session, String titre, String genre, String realisateur, String scenariste, int duree) {
+		long debut = Mesures.debut();
+		Statut s = (session==null) ? Statut.PARAMETRE_NON_INSTANCIE : Validation.film(titre, genre, realisateur, scenariste, duree);
+		if (s!=Statut.OK)
+			return mesures.fin(Operation.ADD_ITEM_FILM, s, debut);
+		if (sessions.membre(session)==null)
+			return mesures.fin(Operation.ADD_ITEM_FILM, Statut.SESSION_INVALIDE, debut);
+		Statut resultat = Statut.OK;
+		try {
+			if (!creerFilm(titre, genre, realisateur, scenariste, duree))
+				resultat = Statut.ITEM_FILM_ALREADY_EXISTS;
+		}
+		finally {
+			mesures.fin(Operation.ADD_ITEM_FILM, resultat, debut);
+		}
+		return resultat;
+	}
+
+	/**
+	 * Ajouter un nouvel item de livre au <i>SocialNetwork</i>, au nom du membre d'une session.
+	 * Comme addItemBook, dont les autres paramètres sont repris.
+	 * 
+	 * @param session le jeton obtenu par login
+	 * @throws BadEntry : si la session n'est pas instanciée, ou dans les cas décrits par addItemBook
+	 * @throws NotMember : si la session est expirée ou fermée
+	 * @throws ItemBookAlreadyExists : item livre de même titre déjà présent
+	 */
+	public void addItemBook(Session session, String titre, String genre, String auteur, int nbPages) throws BadEntry, NotMember, ItemBookAlreadyExists {
+		leverSiRefusBook(tryAddItemBook(session, titre, genre, auteur, nbPages));
+	}
+
+	/**
+	 * Variante avec session de tryAddItemBook.
+	 * 
+	 * @return OK si le livre a été ajouté, sinon le motif du refus (SESSION_INVALIDE si la session est expirée ou fermée)
+	 * @throws UncheckedIOException si le journal associé ne peut enregistrer l'ajout du livre (voir la description de la classe)
+	 */
+	public Statut tryAddItemBook(Session session, String titre, String genre, String auteur, int nbPages) {
+		long debut = Mesures.debut();
+		Statut s = (session==null) ? Statut.PARAMETRE_NON_INSTANCIE : Validation.book(titre, genre, auteur, nbPages);
+		if (s!=Statut.OK)
+			return mesures.fin(Operation.ADD_ITEM_BOOK, s, debut);
+		if (sessions.membre(session)==null)
+			return mesures.fin(Operation.ADD_ITEM_BOOK, Statut.SESSION_INVALIDE, debut);
+		Statut resultat = Statut.OK;
+		try {
+			if (!creerBook(titre, genre, auteur, nbPages))
+				resultat = Statut.ITEM_BOOK_ALREADY_EXISTS;
+		}
+		finally {
+			mesures.fin(Operation.ADD_ITEM_BOOK, resultat, debut);
+		}
+		return resultat;
+	}
+
+	/**
+	 * Donner son opinion sur un item film, au nom du membre d'une session.
+	 * Comme reviewItemFilm, dont les autres paramètres sont repris.
+	 * 
+	 * @param session le jeton obtenu par login
+	 * @throws BadEntry : si la session n'est pas instanciée, ou dans les cas décrits par reviewItemFilm
+	 * @throws NotMember : si la session est expirée ou fermée
+	 * @throws NotItem : si le titre n'est pas le titre d'un film.
+	 * @return la note moyenne des notes sur ce film
+	 */
+	public float reviewItemFilm(Session session, String titre, float note, String commentaire) throws BadEntry, NotMember, NotItem {
+		return moyenneOuException(tryReviewItemFilm(session, titre, note, commentaire));
+	}
+
+	/**
+	 * Variante avec session de tryReviewItemFilm.
+	 * 
+	 * @return le statut OK et la note moyenne des notes sur ce film, ou le motif du refus
+	 * @throws UncheckedIOException si le journal associé ne peut enregistrer la review (voir la description de la classe)
+	 */
+	public ResultatReview tryReviewItemFilm(Session session, String titre, float note, String commentaire) {
+		return tryReview(films, Journal.REVIEW_FILM, Statut.FILM_INCONNU, session, titre, note, commentaire);
+	}
+
+	/**
+	 * Donner son opinion sur un item livre, au nom du membre d'une session.
+	 * Comme reviewItemBook, dont les autres paramètres sont repris.
+	 * 
+	 * @param session le jeton obtenu par login
+	 * @throws BadEntry : si la session n'est pas instanciée, ou dans les cas décrits par reviewItemBook
+	 * @throws NotMember : si la session est expirée ou fermée
+	 * @throws NotItem : si le titre n'est pas le titre d'un livre.
+	 * @return la note moyenne des notes sur ce livre
+	 */
+	public float reviewItemBook(Session session, String titre, float note, String commentaire) throws BadEntry, NotMember, NotItem {
+		return moyenneOuException(tryReviewItemBook(session, titre, note, commentaire));
+	}
+
+	/**
+	 * Variante avec session de tryReviewItemBook.
+	 * 
+	 * @return le statut OK et la note moyenne des notes sur ce livre, ou le motif du refus
+	 * @throws UncheckedIOException si le journal associé ne peut enregistrer la review (voir la description de la classe)
+	 */
+	public ResultatReview tryReviewItemBook(Session session, String titre, float note, String commentaire) {
+		return tryReview(books, Journal.REVIEW_BOOK, Statut.BOOK_INCONNU, session, titre, note, commentaire);
+	}
+
+	/**
+	 * Dépôt d'une review au nom du membre d'une session, commun aux films et aux livres
+	 */
+	private ResultatReview tryReview(Registre<? extends Item> registre, byte typeJournal, Statut inconnu, Session session, String titre, float note, String commentaire) {
+		long debut = Mesures.debut();
+		Statut s = (session==null) ? Statut.PARAMETRE_NON_INSTANCIE : Validation.review(titre, note, commentaire);
+		if (s!=Statut.OK)
+			return mesures.fin(operation(typeJournal), ResultatReview.refus(s), debut);
+		Member membre = sessions.membre(session);
+		if (membre==null)
+			return mesures.fin(operation(typeJournal), ResultatReview.refus(Statut.SESSION_INVALIDE), debut);
+		return deposer(registre, typeJournal, inconnu, membre, titre, note, commentaire, debut);
+	}
+
+	/**
+	 * Traduit le statut d'une variante try* de addItemFilm en exception
+	 */
+	private void leverSiRefusFilm(Statut s) throws BadEntry, NotMember, ItemFilmAlreadyExists {
+		if (s==Statut.OK)
+			return;
+		switch (s.getCategorie()) {
+		case NOT_MEMBER:
+			throw new NotMember(s.getMessage(), pileAppels);
+		case ITEM_FILM_ALREADY_EXISTS:
+			throw new ItemFilmAlreadyExists(pileAppels);
+		default:
+			throw new BadEntry(s.getMessage(), pileAppels);
+		}
+	}
+
+	/**
+	 * Traduit le statut d'une variante try* de addItemBook en exception
+	 */
+	private void leverSiRefusBook(Statut s) throws BadEntry, NotMember, ItemBookAlreadyExists {
+		if (s==Statut.OK)
+			return;
+		switch (s.getCategorie()) {
+		case NOT_MEMBER:
+			throw new NotMember(s.getMessage(), pileAppels);
+		case ITEM_BOOK_ALREADY_EXISTS:
+			throw new ItemBookAlreadyExists(pileAppels);
+		default:
+			throw new BadEntry(s.getMessage(), pileAppels);
+		}
+	}
+
+	/**
+	 * Choisir le mode de construction des exceptions levées par les opérations du <i>SocialNetwork</i>.
+	 * Par défaut les exceptions capturent leur pile d'appels. Sans pile, elles sont bien moins coûteuses,
+	 * ce qui compte lorsque les refus sont fréquents ; les variantes try* restent toutefois préférables.
+	 * 
+	 * @param pileAppels false pour lever des exceptions légères, sans pile d'appels
+	 */
+	public void setPileAppelsExceptions(boolean pileAppels) {
+		this.pileAppels = pileAppels;
+	}
+
+
+	/**
+	 * Importer en masse des membres, items et reviews.
+	 * <p>
+	 * Chaque ligne du lot a le même effet que l'opération unitaire correspondante, mais le lot est traité par phases :
+	 * les paramètres de toutes les lignes sont d'abord vérifiés en parallèle, puis les membres sont inscrits,
+	 * puis les items créés, et enfin les reviews sont déposées en parallèle, item par item.
+	 * Une review peut donc porter sur un membre ou un item défini plus loin dans le lot.
+	 * Pour un même pseudo ou un même titre, la première ligne du lot l'emporte.
+	 * </p>
+	 * <p>
+	 * Une ligne rejetée n'interrompt pas l'import : elle figure dans le rapport, avec la catégorie de l'exception
+	 * qu'aurait levée l'opération unitaire.
+	 * </p>
+	 * 
+	 * @param lot les lignes à importer
+	 * @return le rapport d'import
+	 */
+	public RapportImport importer(LotImport lot) {
+		List<LotImport.Ligne> lignes = lot.lignes();
+
+		//===================================== VERIFICATION DES PARAMETRES =====================================
+		lignes.parallelStream().forEach(new Consumer<LotImport.Ligne>() {
+			public void accept(LotImport.Ligne l) {
+				if (l.erreur!=null) // ligne mal formée dans le fichier d'import
+					return;
+				Statut s;
+				switch (l.type) {
+				case MEMBRE:
+					s = Validation.membre(l.pseudo, l.password, l.profil);
+					break;
+				case FILM:
+					s = Validation.film(l.pseudo, l.password, l.titre, l.genre, l.realisateur, l.scenariste, l.entier);
+					break;
+				case BOOK:
+					s = Validation.book(l.pseudo, l.password, l.titre, l.genre, l.auteur, l.entier);
+					break;
+				default:
+					s = Validation.review(l.pseudo, l.password, l.titre, l.note, l.commentaire);
+				}
+				if (s!=Statut.OK)
+					l.rejeter(s);
+			}
+		});
+
+		//===================================== MEMBRES =========================================================
+		for (LotImport.Ligne l : lignes)
+			if (l.erreur==null && l.type==LotImport.Type.MEMBRE && !inscrire(l.pseudo.trim(), l.password, l.profil))
+				l.rejeter(Statut.MEMBER_ALREADY_EXISTS);
+
+		//===================================== ITEMS ===========================================================
+		// Les reviews sont regroupées par item au passage, dans l'ordre du lot
+		LinkedHashMap<String, ArrayList<LotImport.Ligne>> reviewsParItem = new LinkedHashMap<String, ArrayList<LotImport.Ligne>>();
+		for (LotImport.Ligne l : lignes) {
+			if (l.erreur!=null || l.type==LotImport.Type.MEMBRE)
+				continue;
+			if (l.type==LotImport.Type.REVIEW_FILM || l.type==LotImport.Type.REVIEW_BOOK) {
+				String cle = l.type.nom + ':' + normaliser(l.titre);
+				ArrayList<LotImport.Ligne> groupe = reviewsParItem.get(cle);
+				if (groupe==null)
+					reviewsParItem.put(cle, groupe = new ArrayList<LotImport.Ligne>());
+				groupe.add(l);
+				continue;
+			}
+			if (authentifier(l.pseudo, l.password)==null)
+				l.rejeter(Statut.NOT_MEMBER);
+			else if (l.type==LotImport.Type.FILM && !creerFilm(l.titre, l.genre, l.realisateur, l.scenariste, l.entier))
+				l.rejeter(Statut.ITEM_FILM_ALREADY_EXISTS);
+			else if (l.type==LotImport.Type.BOOK && !creerBook(l.titre, l.genre, l.auteur, l.entier))
+				l.rejeter(Statut.ITEM_BOOK_ALREADY_EXISTS);
+		}
+
+		//===================================== REVIEWS =========================================================
+		// Chaque item est traité par un seul thread, dans l'ordre du lot ; des items différents en parallèle
+		reviewsParItem.values().parallelStream().forEach(new Consumer<ArrayList<LotImport.Ligne>>() {
+			public void accept(ArrayList<LotImport.Ligne> groupe) {
+				LotImport.Ligne premiere = groupe.get(0);
+				boolean film = premiere.type==LotImport.Type.REVIEW_FILM;
+				Item item = film ? films.get(normaliser(premiere.titre)) : books.get(normaliser(premiere.titre));
+				for (LotImport.Ligne l : groupe) {
+					if (item==null) {
+						l.rejeter(film ? Statut.FILM_INCONNU : Statut.BOOK_INCONNU);
+						continue;
+					}
+					Member membre = authentifier(l.pseudo, l.password);
+					if (membre==null)
+						l.rejeter(Statut.NOT_MEMBER);
+					else
+						deposerReview(item, film ? Journal.REVIEW_FILM : Journal.REVIEW_BOOK, membre, l.note, l.commentaire);
+				}
+			}
+		});
+
+		//===================================== RAPPORT =========================================================
+		ArrayList<ErreurImport> erreurs = new ArrayList<ErreurImport>();
+		for (LotImport.Ligne l : lignes)
+			if (l.erreur!=null)
+				erreurs.add(new ErreurImport(l.numero, l.erreur, l.message));
+		return new RapportImport(lignes.size(), erreurs);
+	}
+
+	/**
+	 * Importer en masse un fichier CSV ou JSONL de membres, items et reviews (voir ChargeurImport pour le format).
+	 * 
+	 * @param fichier fichier à importer
+	 * @return le rapport d'import, dont les erreurs sont numérotées selon les lignes du fichier
+	 * @throws IOException si le fichier ne peut être lu
+	 */
+	public RapportImport importer(Path fichier) throws IOException {
+		return importer(ChargeurImport.charger(fichier));
+	}
+
+	//===================================== MUTATIONS ========================================================
+	// Les mutations sont journalisées avant d'être publiées : un enregistrement n'en précède jamais
+	// un autre dont il dépend (une review suit toujours le membre et l'item concernés).
+	// Une mutation appliquée en mémoire est signalée aux abonnés même si le journal ne peut la valider.
+
+	/**
+	 * Inscrit un membre dont les informations ont été vérifiées
+	 * @return false si un membre de même pseudo existe déjà
+	 */
+	private boolean inscrire(String pseudo, String password, String profil) {
+		String cle = normaliser(pseudo);
+		long position = 0;
+		Member membre;
+		verrouInstantane.readLock().lock();
+		try {
+			synchronized (members.verrou(cle)) {
+				if (members.get(cle)!=null)
+					return false;
+				if (journal!=null)
+					position = journal.membre(pseudo, password, profil);
+				membre = new Member(pseudo, password, profil);
+				members.ajouter(cle, membre);
+			}
+		}
+		finally {
+			verrouInstantane.readLock().unlock();
+		}
+		try {
+			valider(position);
+		}
+		finally {
+			for (EcouteurReseau e : ecouteurs)
+				signaler(e, membre, null, null);
+		}
+		return true;
+	}
+
+	/**
+	 * Crée un film dont les informations ont été vérifiées
+	 * @return false si un film de même titre existe déjà
+	 */
+	private boolean creerFilm(String titre, String genre, String realisateur, String scenariste, int duree) {
+		String cle = normaliser(titre);
+		long position = 0;
+		Film film;
+		verrouInstantane.readLock().lock();
+		try {
+			synchronized (films.verrou(cle)) {
+				if (films.get(cle)!=null)
+					return false;
+				if (journal!=null)
+					position = journal.film(titre, genre, realisateur, scenariste, duree);
+				film = new Film(titre, genre, realisateur, scenariste, duree);
+				Facette<Film> facette = facetteGenre(facettesFilms, genre);
+				film.classer(classementFilms, classementGenre(classementsFilmsParGenre, genre), facette);
+				facette.compter();
+				film.indexerCommentaires(indexCommentaires);
+				film.memoriserDans(cacheRepresentations);
+				films.ajouter(cle, film);
+				indexTitres.ajouter(cle, film);
+			}
+		}
+		finally {
+			verrouInstantane.readLock().unlock();
+		}
+		try {
+			valider(position);
+		}
+		finally {
+			for (EcouteurReseau e : ecouteurs)
+				signaler(e, null, film, null);
+		}
+		return true;
+	}
+
+	/**
+	 * Crée un livre dont les informations ont été vérifiées
+	 * @return false si un livre de même titre existe déjà
+	 */
+	private boolean creerBook(String titre, String genre, String auteur, int nbPages) {
+		String cle = normaliser(titre);
+		long position = 0;
+		Book book;
+		verrouInstantane.readLock().lock();
+		try {
+			synchronized (books.verrou(cle)) {
+				if (books.get(cle)!=null)
+					return false;
+				if (journal!=null)
+					position = journal.book(titre, genre, auteur, nbPages);
+				book = new Book(titre, genre, auteur, nbPages);
+				Facette<Book> facette = facetteGenre(facettesBooks, genre);
+				book.classer(classementBooks, classementGenre(classementsBooksParGenre, genre), facette);
+				facette.compter();
+				book.indexerCommentaires(indexCommentaires);
+				book.memoriserDans(cacheRepresentations);
+				books.ajouter(cle, book);
+				indexTitres.ajouter(cle, book);
+			}
+		}
+		finally {
+			verrouInstantane.readLock().unlock();
+		}
+		try {
+			valider(position);
+		}
+		finally {
+			for (EcouteurReseau e : ecouteurs)
+				signaler(e, null, book, null);
+		}
+		return true;
+	}
+
+	/**
+	 * Ajoute ou modifie la review d'un membre authentifié sur un item.
+	 * L'item sert de verrou : les reviews sur des items différents se font en parallèle. Le verrou du membre est pris
+	 * au préalable, pour qu'une propagation de son karma n'oublie pas la review déposée.
+	 * @param typeJournal type d'enregistrement (Journal.REVIEW_FILM ou Journal.REVIEW_BOOK)
+	 * @return la note moyenne de l'item après ajout de la review
+	 */
+	private float deposerReview(Item item, byte typeJournal, Member membre, float note, String commentaire) {
+		long position = 0;
+		float moyenne;
+		Review review;
+		verrouInstantane.readLock().lock();
+		try {
+			synchronized (membre) {
+				synchronized (item) {
+					if (journal!=null)
+						position = journal.review(typeJournal, membre.getPseudo(), item.getTitre(), note, commentaire);
+					item.addOrModifyReview(membre, note, commentaire);
+					moyenne = item.moyenneNotesReview();
+					review = ecouteurs.isEmpty() ? null : item.reviewDe(membre);
+				}
+			}
+		}
+		finally {
+			verrouInstantane.readLock().unlock();
+		}
+		try {
+			valider(position);
+		}
+		finally {
+			if (review!=null)
+				for (EcouteurReseau e : ecouteurs)
+					signaler(e, null, null, review);
+		}
+		return moyenne;
+	}
+
+	/**
+	 * Ajoute ou modifie l'évaluation de la review d'un membre sur un item, puis propage le karma de l'auteur.
+	 * Tout se fait sous le verrou de l'auteur, pris avant celui de l'item comme au dépôt d'une review : les évaluations
+	 * de ses reviews sont prises en compte une à une, dans l'ordre où elles sont enregistrées, si bien qu'un écart
+	 * ne précède jamais la première évaluation dont il dérive. La propagation se fait après avoir rendu le verrou de l'item.
+	 * Une fois l'évaluation validée, chaque item où l'auteur a déposé une review est signalé aux abonnés comme repondéré.
+	 * @param typeJournal type d'enregistrement (Journal.EVALUATION_FILM ou Journal.EVALUATION_BOOK)
+	 * @return le nouveau karma de l'auteur, NaN si l'auteur n'a pas déposé de review sur cet item
+	 */
+	private float evaluer(Item item, byte typeJournal, Member auteur, Member evaluateur, float note) {
+		long position = 0;
+		float karma;
+		Item[] repondere;
+		verrouInstantane.readLock().lock();
+		try {
+			synchronized (auteur) {
+				float ancienne;
+				synchronized (item) {
+					if (!item.aEvalue(auteur))
+						return Float.NaN;
+					if (journal!=null)
+						position = journal.evaluation(typeJournal, evaluateur.getPseudo(), item.getTitre(), auteur.getPseudo(), note);
+					ancienne = item.evaluer(auteur, evaluateur, note);
+				}
+				if (Float.isNaN(ancienne))
+					karma = auteur.prendreEnCompteEvaluation(note, true);
+				else
+					karma = auteur.prendreEnCompteEvaluation(note - ancienne, false);
+				repondere = ecouteurs.isEmpty() ? null : auteur.itemsEvalues.toArray(new Item[0]);
+			}
+		}
+		finally {
+			verrouInstantane.readLock().unlock();
+		}
+		try {
+			valider(position);
+		}
+		finally {
+			if (repondere!=null)
+				for (EcouteurReseau e : ecouteurs)
+					for (Item i : repondere)
+						signalerRepondere(e, i);
+		}
+		return karma;
+	}
+
+	/**
+	 * Attend que la mutation journalisée à cette position soit écrite selon la politique de synchronisation
+	 */
+	private void valider(long position) {
+		if (journal!=null)
+			journal.valider(position);
+	}
+
+	/**
+	 * Réapplique les mutations lues dans le journal, sans les journaliser à nouveau.
+	 * Le journal contient les pseudos et titres tels qu'ils sont enregistrés : les reviews retrouvent
+	 * leur membre et leur item par simple égalité, sans recalculer de clé normalisée.
+	 */
+	private class RejeuJournal implements Instantane.Chargement {
+		private final HashMap<String, Member> membresLus = new HashMap<String, Member>();
+		private final HashMap<String, Item> filmsLus = new HashMap<String, Item>();
+		private final HashMap<String, Item> booksLus = new HashMap<String, Item>();
+
+		public void membre(String pseudo, String password, String profil) {
+			inscrire(pseudo, password, profil);
+			membresLus.put(pseudo, members.get(normaliser(pseudo)));
+		}
+		public void film(String titre, String genre, String realisateur, String scenariste, int duree) {
+			creerFilm(titre, genre, realisateur, scenariste, duree);
+			filmsLus.put(titre, films.get(normaliser(titre)));
+		}
+		public void book(String titre, String genre, String auteur, int nbPages) {
+			creerBook(titre, genre, auteur, nbPages);
+			booksLus.put(titre, books.get(normaliser(titre)));
+		}
+		public void review(byte typeItem, String pseudo, String titre, float note, String commentaire) {
+			Member membre = membresLus.get(pseudo);
+			Item item = (typeItem==Journal.REVIEW_FILM) ? filmsLus.get(titre) : booksLus.get(titre);
+			if (membre==null || item==null)
+				throw new IllegalStateException("Journal incohérent : review de " + pseudo + " sur " + titre + " sans membre ou item correspondant.");
+			deposerReview(item, typeItem, membre, note, commentaire);
+		}
+		public void evaluation(byte typeItem, String evaluateur, String titre, String auteur, float note) {
+			Member membreEvaluateur = membresLus.get(evaluateur);
+			Member membreAuteur = membresLus.get(auteur);
+			Item item = (typeItem==Journal.EVALUATION_FILM) ? filmsLus.get(titre) : booksLus.get(titre);
+			if (membreEvaluateur==null || membreAuteur==null || item==null || Float.isNaN(evaluer(item, typeItem, membreAuteur, membreEvaluateur, note)))
+				throw new IllegalStateException("Journal incohérent : évaluation par " + evaluateur + " de la review de " + auteur + " sur " + titre + " sans review correspondante.");
+		}
+		public void karma(String pseudo, double sommeEvaluations, int nbEvaluations) {
+			membresLus.get(pseudo).restaurerEvaluations(sommeEvaluations, nbEvaluations);
+		}
+		public void review(byte typeItem, String pseudo, String titre, float note, String commentaire, float poids) {
+			Member membre = membresLus.get(pseudo);
+			Item item = (typeItem==Journal.REVIEW_FILM) ? filmsLus.get(titre) : booksLus.get(titre);
+			if (membre==null || item==null)
+				throw new IllegalStateException("Instantané incohérent : review de " + pseudo + " sur " + titre + " sans membre ou item correspondant.");
+			item.addOrModifyReview(membre, note, commentaire, poids);
+		}
+		public void evaluationRestauree(byte typeItem, String evaluateur, String titre, String auteur, float note) {
+			Member membreEvaluateur = membresLus.get(evaluateur);
+			Member membreAuteur = membresLus.get(auteur);
+			Item item = (typeItem==Journal.EVALUATION_FILM) ? filmsLus.get(titre) : booksLus.get(titre);
+			if (membreEvaluateur==null || membreAuteur==null || item==null || !item.aEvalue(membreAuteur))
+				throw new IllegalStateException("Instantané incohérent : évaluation par " + evaluateur + " de la review de " + auteur + " sur " + titre + " sans review correspondante.");
+			item.evaluer(membreAuteur, membreEvaluateur, note);
+		}
+	}
+
+	/**
+	 * Ecrire un instantané binaire du <i>SocialNetwork</i> (membres, films, livres et reviews), chargeable au démarrage
+	 * par le constructeur SocialNetwork(Path, Path, PolitiqueSynchronisation, long).
+	 * Les mutations sont suspendues pendant l'écriture, afin que l'instantané corresponde à un état précis
+	 * et à une position précise du journal. Le journal est d'abord forcé sur disque, quelle que soit sa politique :
+	 * la position enregistrée ne dépasse jamais la fin du journal sur disque. L'instantané est écrit dans un fichier
+	 * temporaire puis renommé.
+	 * 
+	 * @param fichier fichier de l'instantané, remplacé s'il existe
+	 * @throws IOException si le journal ou l'instantané ne peut être écrit
+	 */
+	public void ecrireInstantane(Path fichier) throws IOException {
+		verrouInstantane.writeLock().lock();
+		try {
+			long position = 0;
+			if (journal!=null) {
+				try {
+					position = journal.synchroniser();
+				}
+				catch (UncheckedIOException e) {
+					throw e.getCause();
+				}
+			}
+			Instantane.ecrire(fichier, position, members.values(), films.values(), books.values());
+		}
+		finally {
+			verrouInstantane.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Fermer le <i>SocialNetwork</i> : si un journal lui est associé, tout ce qui a été journalisé est forcé sur disque
+	 * et le journal est fermé. Sans effet pour un <i>SocialNetwork</i> non durable.
+	 * 
+	 * @throws IOException si le journal ne peut être écrit
+	 */
+	public void close() throws IOException {
+		synchronized (mesures) {
+			retirer(nomMesures);
+			nomMesures = null;
+		}
+		if (journal!=null)
+			journal.close();
+	}
+
+	/**
+	 * Authentifie un membre à partir du registre.
+	 * @param pseudo le pseudo saisi, comparé au pseudo enregistré (sans leading ni trailing blanks) une fois le membre trouvé
+	 * @param password le password saisi
+	 * @return le Member authentifié, null si aucun membre ne correspond au pseudo ou si le password est incorrect
+	 */
+	private Member authentifier(String pseudo, String password) {
+		Member m = members.get(normaliser(pseudo));
+		if (m==null || !m.pseudoCorrespond(pseudo) || !m.passwordMatches(password))
+			return null;
+		return m;
+	}
+
+	/**
+	 * Calcule la clé d'indexation d'un pseudo ou d'un titre : sans leading ni trailing blanks et en majuscules.
+	 * @param s la chaîne à normaliser (instanciée)
+	 * @return la clé normalisée
+	 */
+	static String normaliser(String s) {
+		return s.trim().toUpperCase();
+	}
+
+
+	/**
+	 * Obtenir une représentation textuelle du <i>SocialNetwork</i>.
+	 * 
+	 * @return la chaîne de caractères représentation textuelle du <i>SocialNetwork</i> 
+	 */
+	public String toString() {
+		StringBuilder s = new StringBuilder();
+		try {
+			writeTo(s);
+		} catch (IOException e) { // impossible avec un StringBuilder
+			throw new IllegalStateException(e);
+		}
+		return s.toString();
+	}
+
+	/**
+	 * Ecrire la représentation textuelle du <i>SocialNetwork</i> au fil de l'eau.
+	 * Chaque élément est écrit directement dans out : un export complet peut ainsi être dirigé
+	 * vers un fichier ou une socket (au travers d'un Writer bufferisé) sans être construit en mémoire.
+	 * 
+	 * @param out destination de la représentation textuelle
+	 * @throws IOException si l'écriture dans out échoue
+	 */
+	public void writeTo(Appendable out) throws IOException {
+		writeTo(out, null);
+	}
+
+	/**
+	 * Ecrire la représentation textuelle du <i>SocialNetwork</i> au fil de l'eau, en signalant l'avancement :
+	 * apresElement est appelé après l'écriture de chaque membre et de chaque item, soit environ
+	 * nbMembers() + nbBooks() + nbFilms() fois.
+	 * 
+	 * @param out destination de la représentation textuelle
+	 * @param apresElement appelé après chaque élément écrit (peut être null)
+	 * @throws IOException si l'écriture dans out échoue
+	 */
+	public void writeTo(Appendable out, Runnable apresElement) throws IOException {
+		out.append("Le SocialNetwork est composé des éléments suivants:\n");
+		
+		out.append("\nMEMBRES (").append(String.valueOf(nbMembers())).append(") : \n");
+		if (!members.isEmpty())
+			for(Member m:members.values()) {
+				m.writeTo(out);
+				if (apresElement!=null)
+					apresElement.run();
+			}
+		else
+			out.append("Aucun membre.\n");
+			
+		if(!films.isEmpty() || !books.isEmpty()) {
+			out.append("\nLIVRES (").append(String.valueOf(nbBooks())).append(") : \n");
+			for(Book b : books.values()) {
+				b.writeTo(out);
+				if (apresElement!=null)
+					apresElement.run();
+			}
+			
+			out.append("\nFILMS (").append(String.valueOf(nbFilms())).append(") : \n");
+			for(Film f : films.values()) {
+				f.writeTo(out);
+				if (apresElement!=null)
+					apresElement.run();
+			}
+		}
+		else
+			out.append("\n AUCUN ITEM.\n");
 	}
 }
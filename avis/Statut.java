@@ -0,0 +1,86 @@
+package avis;
+
+/**
+ * Résultat d'une opération try* du <i>SocialNetwork</i>.
+ * <p>
+ * Les variantes try* ne lèvent pas d'exception : elles renvoient OK, ou le motif précis du refus.
+ * Chaque motif appartient à une catégorie d'erreur, qui désigne l'exception que lèverait l'opération
+ * correspondante, et porte le message de cette exception. Les statuts étant des constantes,
+ * un refus ne coûte aucune allocation.
+ * </p>
+ * @author Yann Andreu et Yannick Omnès
+ *
+ */
+public enum Statut {
+	/** opération effectuée */
+	OK(null, null),
+	/** un paramètre obligatoire n'est pas instancié */
+	PARAMETRE_NON_INSTANCIE(CategorieErreur.BAD_ENTRY, "Tous les paramètres de l'opération doivent être instanciés."),
+	/** pseudo sans caractère autre que des espaces */
+	PSEUDO_INCORRECT(CategorieErreur.BAD_ENTRY, "Le pseudo doit contenir au moins un caractère autre que des espaces."),
+	/** password de moins de 4 caractères hors leading et trailing blanks */
+	PASSWORD_INCORRECT(CategorieErreur.BAD_ENTRY, "Le password doit contenir au moins 4 caractères autres que des espaces en début et en fin."),
+	/** titre sans caractère autre que des espaces */
+	TITRE_INCORRECT(CategorieErreur.BAD_ENTRY, "Le titre doit contenir au moins un caractère autre que des espaces."),
+	/** nom d'item recherché sans caractère autre que des espaces */
+	NOM_INCORRECT(CategorieErreur.BAD_ENTRY, "Le nom de l'item à rechercher doit être instancié et comporter au moins un caractère autre que des espaces."),
+	/** genre sans caractère autre que des espaces */
+	GENRE_INCORRECT(CategorieErreur.BAD_ENTRY, "Le genre doit être instancié et comporter au moins un caractère autre que des espaces."),
+	/** nombre d'items ou de reviews négatif */
+	NOMBRE_INCORRECT(CategorieErreur.BAD_ENTRY, "Le nombre demandé doit être positif."),
+	/** taille de page hors de [1, SocialNetwork.TAILLE_PAGE_MAX] */
+	TAILLE_PAGE_INCORRECTE(CategorieErreur.BAD_ENTRY, "La taille de page doit être comprise entre 1 et 1000."),
+	/** durée de film négative */
+	DUREE_INCORRECTE(CategorieErreur.BAD_ENTRY, "La durée doit être positive et saisie en minutes."),
+	/** nombre de pages négatif */
+	NB_PAGES_INCORRECT(CategorieErreur.BAD_ENTRY, "Le nombre de pages doit être positif."),
+	/** note hors de [0.0, 5.0] */
+	NOTE_INCORRECTE(CategorieErreur.BAD_ENTRY, "La note doit être comprise entre 0.0 et 5.0."),
+	/** membre inconnu ou password incorrect */
+	NOT_MEMBER(CategorieErreur.NOT_MEMBER, "Les informations fournies n'ont pas permis de vous authentifier. Vérifiez votre pseudo et votre password."),
+	/** session inconnue, expirée ou fermée */
+	SESSION_INVALIDE(CategorieErreur.NOT_MEMBER, "La session n'est pas ou plus valide : reconnectez-vous."),
+	/** aucun film de ce titre */
+	FILM_INCONNU(CategorieErreur.NOT_ITEM, "Le titre saisi ne correspond pas à un film répertorié."),
+	/** aucun livre de ce titre */
+	BOOK_INCONNU(CategorieErreur.NOT_ITEM, "Le titre saisi ne correspond pas à un livre répertorié."),
+	/** l'auteur désigné n'a pas déposé de review sur cet item */
+	REVIEW_INCONNUE(CategorieErreur.NOT_ITEM, "Le membre désigné n'a pas déposé de review sur cet item."),
+	/** un membre évalue sa propre review */
+	AUTO_EVALUATION(CategorieErreur.BAD_ENTRY, "Un membre ne peut pas évaluer sa propre review."),
+	/** pseudo déjà utilisé */
+	MEMBER_ALREADY_EXISTS(CategorieErreur.MEMBER_ALREADY_EXISTS, null),
+	/** film de même titre déjà présent */
+	ITEM_FILM_ALREADY_EXISTS(CategorieErreur.ITEM_FILM_ALREADY_EXISTS, null),
+	/** livre de même titre déjà présent */
+	ITEM_BOOK_ALREADY_EXISTS(CategorieErreur.ITEM_BOOK_ALREADY_EXISTS, null);
+
+	private final CategorieErreur categorie;
+	private final String message;
+
+	private Statut(CategorieErreur categorie, String message) {
+		this.categorie = categorie;
+		this.message = message;
+	}
+
+	/**
+	 * @return true si l'opération a été effectuée
+	 */
+	public boolean estOk() {
+		return this==OK;
+	}
+
+	/**
+	 * @return la catégorie d'erreur correspondant à l'exception qu'aurait levée l'opération, null pour OK
+	 */
+	public CategorieErreur getCategorie() {
+		return categorie;
+	}
+
+	/**
+	 * @return le message de l'exception qu'aurait levée l'opération (null si elle n'en porte pas)
+	 */
+	public String getMessage() {
+		return message;
+	}
+}
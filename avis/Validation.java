@@ -0,0 +1,175 @@
+package avis;
+
+/**
+ * Vérification des paramètres des opérations du <i>SocialNetwork</i>, indépendante de son état :
+ * elle peut être faite en parallèle, par exemple lors d'un import en masse.
+ * <p>
+ * Les chaînes sont parcourues caractère par caractère, sans expression régulière ni chaîne intermédiaire :
+ * une vérification n'alloue rien. Comme pour String.trim(), un blanc est un caractère inférieur ou égal
+ * à l'espace ; pseudos, passwords, titres et noms sont jugés selon la même règle dans toutes les opérations.
+ * </p>
+ * @author Yann Andreu et Yannick Omnès
+ *
+ */
+final class Validation {
+
+	private Validation() {
+	}
+
+	//===================================== REGLES ÉLÉMENTAIRES ==============================================
+
+	/**
+	 * @param s chaîne à examiner (instanciée)
+	 * @param min nombre minimal de caractères
+	 * @return true si s compte au moins min caractères une fois ôtés ses leading et trailing blanks
+	 */
+	static boolean longueurSignificative(String s, int min) {
+		int debut = 0, fin = s.length();
+		while (debut<fin && s.charAt(debut)<=' ')
+			debut++;
+		while (fin>debut && s.charAt(fin-1)<=' ')
+			fin--;
+		return fin-debut>=min;
+	}
+
+	/**
+	 * @param s chaîne à examiner (instanciée)
+	 * @return true si s contient au moins un caractère autre qu'un blanc
+	 */
+	static boolean nonBlanc(String s) {
+		for (int i = 0, n = s.length(); i < n; i++)
+			if (s.charAt(i)>' ')
+				return true;
+		return false;
+	}
+
+	/**
+	 * @return true si min <= v <= max (false si v n'est pas un nombre)
+	 */
+	static boolean dansIntervalle(float v, float min, float max) {
+		return v>=min && v<=max;
+	}
+
+	//===================================== RÈGLES DES OPÉRATIONS ============================================
+
+	/**
+	 * Vérifie le pseudo et le password d'un membre qui s'identifie (addMember, login, et les opérations sans session)
+	 * @return OK, ou le motif du refus dans les cas où ces opérations lèvent BadEntry
+	 */
+	static Statut identifiants(String pseudo, String password) {
+		if (pseudo==null || password==null)
+			return Statut.PARAMETRE_NON_INSTANCIE;
+		// Si le pseudo a moins de 1 caractère autre que des blancs
+		if (!nonBlanc(pseudo))
+			return Statut.PSEUDO_INCORRECT;
+		// Si le password a moins de 4 caractères autres que des leading ou trailing blanks
+		if (!longueurSignificative(password, 4))
+			return Statut.PASSWORD_INCORRECT;
+		return Statut.OK;
+	}
+
+	/**
+	 * Vérifie les paramètres de addMember
+	 * @return OK, ou le motif du refus dans les cas où addMember lève BadEntry
+	 */
+	static Statut membre(String pseudo, String password, String profil) {
+		if (profil==null)
+			return Statut.PARAMETRE_NON_INSTANCIE;
+		return identifiants(pseudo, password);
+	}
+
+	/**
+	 * Vérifie les paramètres de addItemFilm
+	 * @return OK, ou le motif du refus dans les cas où addItemFilm lève BadEntry
+	 */
+	static Statut film(String pseudo, String password, String titre, String genre, String realisateur, String scenariste, int duree) {
+		Statut s = identifiants(pseudo, password);
+		return (s!=Statut.OK) ? s : film(titre, genre, realisateur, scenariste, duree);
+	}
+
+	/**
+	 * Vérifie les paramètres de addItemFilm propres au film (opération avec session)
+	 */
+	static Statut film(String titre, String genre, String realisateur, String scenariste, int duree) {
+		if (titre==null || genre==null || realisateur==null || scenariste==null)
+			return Statut.PARAMETRE_NON_INSTANCIE;
+		if (!nonBlanc(titre))
+			return Statut.TITRE_INCORRECT;
+		if (duree<0)
+			return Statut.DUREE_INCORRECTE;
+		return Statut.OK;
+	}
+
+	/**
+	 * Vérifie les paramètres de addItemBook
+	 * @return OK, ou le motif du refus dans les cas où addItemBook lève BadEntry
+	 */
+	static Statut book(String pseudo, String password, String titre, String genre, String auteur, int nbPages) {
+		Statut s = identifiants(pseudo, password);
+		return (s!=Statut.OK) ? s : book(titre, genre, auteur, nbPages);
+	}
+
+	/**
+	 * Vérifie les paramètres de addItemBook propres au livre (opération avec session)
+	 */
+	static Statut book(String titre, String genre, String auteur, int nbPages) {
+		if (titre==null || genre==null || auteur==null)
+			return Statut.PARAMETRE_NON_INSTANCIE;
+		if (!nonBlanc(titre))
+			return Statut.TITRE_INCORRECT;
+		if (nbPages<0)
+			return Statut.NB_PAGES_INCORRECT;
+		return Statut.OK;
+	}
+
+	/**
+	 * Vérifie les paramètres de reviewItemFilm et reviewItemBook
+	 * @return OK, ou le motif du refus dans les cas où reviewItemFilm et reviewItemBook lèvent BadEntry
+	 */
+	static Statut review(String pseudo, String password, String titre, float note, String commentaire) {
+		Statut s = identifiants(pseudo, password);
+		return (s!=Statut.OK) ? s : review(titre, note, commentaire);
+	}
+
+	/**
+	 * Vérifie les paramètres de reviewItemFilm et reviewItemBook propres à la review (opération avec session)
+	 */
+	static Statut review(String titre, float note, String commentaire) {
+		if (titre==null || commentaire==null)
+			return Statut.PARAMETRE_NON_INSTANCIE;
+		if (!nonBlanc(titre))
+			return Statut.TITRE_INCORRECT;
+		if (!dansIntervalle(note, 0.0f, 5.0f))
+			return Statut.NOTE_INCORRECTE;
+		return Statut.OK;
+	}
+
+	/**
+	 * Vérifie les paramètres de reviewOpinionFilm et reviewOpinionBook
+	 * @return OK, ou le motif du refus dans les cas de paramètres incorrects où ces opérations lèvent BadEntry
+	 */
+	static Statut opinion(String pseudo, String password, String titre, String auteur, float note) {
+		Statut s = identifiants(pseudo, password);
+		if (s!=Statut.OK)
+			return s;
+		if (titre==null || auteur==null)
+			return Statut.PARAMETRE_NON_INSTANCIE;
+		if (!nonBlanc(titre))
+			return Statut.TITRE_INCORRECT;
+		if (!nonBlanc(auteur))
+			return Statut.PSEUDO_INCORRECT;
+		if (!dansIntervalle(note, 0.0f, 5.0f))
+			return Statut.NOTE_INCORRECTE;
+		return Statut.OK;
+	}
+
+	/**
+	 * Vérifie le paramètre de consultItems
+	 * @return OK, ou le motif du refus dans le cas où consultItems lève BadEntry
+	 */
+	static Statut nom(String nom) {
+		if (nom==null || !nonBlanc(nom))
+			return Statut.NOM_INCORRECT;
+		return Statut.OK;
+	}
+}
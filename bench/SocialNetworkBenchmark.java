@@ -0,0 +1,221 @@
+package bench;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import avis.SocialNetwork;
+import exception.BadEntry;
+import exception.ItemBookAlreadyExists;
+import exception.ItemFilmAlreadyExists;
+import exception.MemberAlreadyExists;
+import exception.NotItem;
+import exception.NotMember;
+
+/**
+ * Benchmarks JMH de toutes les opérations de SocialNetwork.
+ * Remplace les boucles chronométrées de test.TestRendement : préchauffage, forks séparés,
+ * et mesure du débit, du temps moyen et (avec le profiler gc, activé par main) du taux d'allocation.
+ * 
+ * Le réseau est pré-rempli avec <i>taille</i> membres, <i>taille</i> films et <i>taille</i> livres,
+ * chaque item recevant <i>avisParItem</i> reviews. Les combinaisons dépassant AVIS_MAX reviews sont écartées :
+ * leur remplissage par l'API publique durerait des heures et toStringReseau y construirait une String de plusieurs Go.
+ * Lancé par main, chaque combinaison s'exécute dans un fork dont le tas est dimensionné d'après ses paramètres.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class SocialNetworkBenchmark {
+
+	private static final String PASSWORD = "password";
+
+	/**
+	 * Nombre maximal de reviews pré-remplies (films et livres confondus)
+	 */
+	static final long AVIS_MAX = 2000000;
+
+	@Param({"1000", "10000", "100000"})
+	public int taille;
+
+	@Param({"0", "10", "100"})
+	public int avisParItem;
+
+	private SocialNetwork sn;
+
+	// Compteurs servant à générer des pseudos et titres jamais utilisés
+	private int prochainMembre;
+	private int prochainFilm;
+	private int prochainBook;
+
+	// Générateur pseudo-aléatoire sans allocation (xorshift)
+	private long graine = 0x9E3779B97F4A7C15L;
+
+	@Setup(Level.Trial)
+	public void remplir() throws BadEntry, MemberAlreadyExists, NotMember, ItemFilmAlreadyExists, ItemBookAlreadyExists, NotItem {
+		if (nbAvis(taille, avisParItem) > AVIS_MAX)
+			throw new IllegalStateException("Combinaison écartée : " + nbAvis(taille, avisParItem) + " reviews (maximum " + AVIS_MAX + ")");
+		sn = new SocialNetwork();
+		for (int i = 0; i < taille; i++)
+			sn.addMember("membre" + i, PASSWORD, "profil");
+		for (int i = 0; i < taille; i++) {
+			sn.addItemFilm("membre0", PASSWORD, "film" + i, "genre", "réalisateur", "scénariste", 120);
+			sn.addItemBook("membre0", PASSWORD, "livre" + i, "genre", "auteur", 300);
+		}
+		for (int i = 0; i < taille; i++)
+			for (int j = 0; j < avisParItem; j++) {
+				String membre = "membre" + ((i + j) % taille);
+				sn.reviewItemFilm(membre, PASSWORD, "film" + i, (i + j) % 6, "commentaire");
+				sn.reviewItemBook(membre, PASSWORD, "livre" + i, (i + j) % 6, "commentaire");
+			}
+		prochainMembre = taille;
+		prochainFilm = taille;
+		prochainBook = taille;
+	}
+
+	/**
+	 * @return le nombre de reviews pré-remplies pour ces paramètres
+	 */
+	static long nbAvis(int taille, int avisParItem) {
+		return 2L * taille * avisParItem;
+	}
+
+	/**
+	 * Estime le tas nécessaire pour ces paramètres : membres et items, reviews, et la description textuelle
+	 * du réseau construite par toStringReseau (environ 80 caractères par review, StringBuilder compris)
+	 * @return la taille du tas, en Mo
+	 */
+	static long tasMo(int taille, int avisParItem) {
+		long octets = 3L * taille * 1000 + nbAvis(taille, avisParItem) * (150 + 4 * 80);
+		return 512 + (octets >> 20);
+	}
+
+	private int aleatoire(int borne) {
+		graine ^= graine << 13;
+		graine ^= graine >>> 7;
+		graine ^= graine << 17;
+		return (int) ((graine >>> 1) % borne);
+	}
+
+	@Benchmark
+	public void addMember() throws BadEntry, MemberAlreadyExists {
+		sn.addMember("nouveau" + prochainMembre++, PASSWORD, "profil");
+	}
+
+	@Benchmark
+	public void addItemFilm() throws BadEntry, NotMember, ItemFilmAlreadyExists {
+		sn.addItemFilm("membre" + aleatoire(taille), PASSWORD, "film" + prochainFilm++, "genre", "réalisateur", "scénariste", 120);
+	}
+
+	@Benchmark
+	public void addItemBook() throws BadEntry, NotMember, ItemBookAlreadyExists {
+		sn.addItemBook("membre" + aleatoire(taille), PASSWORD, "livre" + prochainBook++, "genre", "auteur", 300);
+	}
+
+	@Benchmark
+	public LinkedList<String> consultItems() throws BadEntry {
+		return sn.consultItems("film" + aleatoire(taille));
+	}
+
+	@Benchmark
+	public float reviewItemFilm() throws BadEntry, NotMember, NotItem {
+		return sn.reviewItemFilm("membre" + aleatoire(taille), PASSWORD, "film" + aleatoire(taille), aleatoire(6), "commentaire");
+	}
+
+	@Benchmark
+	public float reviewItemBook() throws BadEntry, NotMember, NotItem {
+		return sn.reviewItemBook("membre" + aleatoire(taille), PASSWORD, "livre" + aleatoire(taille), aleatoire(6), "commentaire");
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public String toStringReseau() {
+		return sn.toString();
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public void writeToReseau(Blackhole bh) throws IOException {
+		sn.writeTo(new BlackholeWriter(bh));
+	}
+
+	/**
+	 * Writer qui consomme tout ce qu'on lui écrit, pour mesurer l'export sans coût d'entrée/sortie
+	 */
+	private static class BlackholeWriter extends Writer {
+		private final Blackhole bh;
+
+		BlackholeWriter(Blackhole bh) {
+			this.bh = bh;
+		}
+
+		public void write(char[] cbuf, int off, int len) {
+			bh.consume(cbuf);
+		}
+
+		public Writer append(CharSequence csq) {
+			bh.consume(csq);
+			return this;
+		}
+
+		public Writer append(char c) {
+			bh.consume(c);
+			return this;
+		}
+
+		public void flush() {
+		}
+
+		public void close() {
+		}
+	}
+
+	/**
+	 * Lance tous les benchmarks avec le profiler gc (taux d'allocation), combinaison par combinaison,
+	 * en écartant celles qui dépassent AVIS_MAX reviews et en dimensionnant le tas de chacune.
+	 * Les arguments éventuels restreignent les benchmarks exécutés (expression régulière sur leur nom).
+	 */
+	public static void main(String[] args) throws RunnerException {
+		String filtre = (args.length > 0) ? args[0] : SocialNetworkBenchmark.class.getSimpleName();
+		int[] tailles = {1000, 10000, 100000};
+		int[] avis = {0, 10, 100};
+		for (int taille : tailles)
+			for (int avisParItem : avis) {
+				if (nbAvis(taille, avisParItem) > AVIS_MAX)
+					continue;
+				long tas = tasMo(taille, avisParItem);
+				Options opt = new OptionsBuilder()
+						.include(filtre)
+						.param("taille", String.valueOf(taille))
+						.param("avisParItem", String.valueOf(avisParItem))
+						.jvmArgsAppend("-Xms" + tas + "m", "-Xmx" + tas + "m")
+						.addProfiler(GCProfiler.class)
+						.build();
+				new Runner(opt).run();
+			}
+	}
+}
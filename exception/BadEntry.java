@@ -5,4 +5,8 @@ public class BadEntry extends Exception {
 	public BadEntry(String message) {
 		super(message);
 	}
+
+	public BadEntry(String message, boolean pileAppels) {
+		super(message, null, pileAppels, pileAppels);
+	}
 }
@@ -2,4 +2,10 @@ package exception;
 
 public class ItemBookAlreadyExists extends Exception {
 
+	public ItemBookAlreadyExists() {
+	}
+
+	public ItemBookAlreadyExists(boolean pileAppels) {
+		super(null, null, pileAppels, pileAppels);
+	}
 }
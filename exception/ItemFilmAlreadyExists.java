@@ -2,4 +2,10 @@ package exception;
 
 public class ItemFilmAlreadyExists extends Exception {
 
+	public ItemFilmAlreadyExists() {
+	}
+
+	public ItemFilmAlreadyExists(boolean pileAppels) {
+		super(null, null, pileAppels, pileAppels);
+	}
 }
@@ -2,4 +2,10 @@ package exception;
 
 public class MemberAlreadyExists extends Exception {
 
+	public MemberAlreadyExists() {
+	}
+
+	public MemberAlreadyExists(boolean pileAppels) {
+		super(null, null, pileAppels, pileAppels);
+	}
 }
@@ -5,4 +5,8 @@ public class NotItem extends Exception {
 	public NotItem(String message) {
 		super(message);
 	}
+
+	public NotItem(String message, boolean pileAppels) {
+		super(message, null, pileAppels, pileAppels);
+	}
 }
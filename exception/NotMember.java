@@ -6,4 +6,8 @@ public class NotMember extends Exception {
 		super(message);
 	}
 
+	public NotMember(String message, boolean pileAppels) {
+		super(message, null, pileAppels, pileAppels);
+	}
+
 }
@@ -0,0 +1,391 @@
+package ihm;
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import javax.swing.AbstractListModel;
+import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JList;
+import javax.swing.JPanel;
+import javax.swing.JProgressBar;
+import javax.swing.JScrollPane;
+import javax.swing.SwingWorker;
+
+
+/**
+ * Affichage en lecture seule d'un texte ligne par ligne, alimenté par une tâche de fond (voir TacheLignes)
+ * ou par blocs remplaçables rangés en sections, pour n'actualiser que les éléments modifiés.
+ * Seules les lignes visibles sont dessinées : toutes les lignes ont la même hauteur et la même largeur,
+ * les lignes trop longues étant coupées à l'ajout. Une barre indique l'avancement de la tâche, qu'un bouton
+ * permet d'annuler. Toutes les méthodes doivent être appelées depuis le thread de Swing.
+ * 
+ * @author Yann Andreu et Yannick Omnès
+ *
+ */
+public class JPanelLignes  extends JPanel {
+
+	private final ModeleLignes lignes = new ModeleLignes();
+	private final JList<String> jList;
+	private final JProgressBar jProgressBar;
+	private final JButton annuler;
+	private final int colonnes;
+	private SwingWorker<?, ?> tache;
+
+	/**
+	 * Lignes affichées, regroupées en sections : une section commence par une entête, suivie de blocs ajoutés
+	 * à la suite. Une entête ou un bloc peut porter une clé, qui permet de le remplacer.
+	 * Les tailles des blocs d'une section sont cumulées dans un arbre de Fenwick : la position d'un bloc
+	 * et le bloc d'une ligne s'obtiennent en temps logarithmique, et remplacer un bloc ne met à jour que l'arbre.
+	 */
+	private static class ModeleLignes extends AbstractListModel<String> {
+
+		private static class Bloc {
+			final Object cle;
+			final Section section;
+			final int rang; // rang dans la section, -1 pour l'entête
+			ArrayList<String> lignes;
+
+			Bloc(Object cle, Section section, int rang, ArrayList<String> lignes) {
+				this.cle = cle;
+				this.section = section;
+				this.rang = rang;
+				this.lignes = lignes;
+			}
+		}
+
+		private static class Section {
+			Bloc entete;
+			final ArrayList<Bloc> blocs = new ArrayList<Bloc>();
+			// Arbre de Fenwick des tailles des blocs, indicé à partir de 1
+			int[] arbre = new int[16];
+			int taille = 0; // lignes de la section, entête comprise
+
+			/** nombre de lignes des blocs de rang inférieur à rang */
+			int avant(int rang) {
+				int somme = 0;
+				for (int i = rang; i > 0; i -= i & -i)
+					somme += arbre[i];
+				return somme;
+			}
+
+			void modifier(int rang, int ecart) {
+				for (int i = rang + 1; i <= blocs.size(); i += i & -i)
+					arbre[i] += ecart;
+			}
+
+			void ajouter(Bloc bloc) {
+				int i = blocs.size() + 1;
+				if (i == arbre.length)
+					arbre = Arrays.copyOf(arbre, arbre.length * 2);
+				blocs.add(bloc);
+				// Le noeud i cumule les blocs de rang i - (i & -i) à i - 1
+				arbre[i] = bloc.lignes.size() + avant(i - 1) - avant(i - (i & -i));
+			}
+
+			/** rang du bloc contenant la ligne index, comptée après l'entête */
+			int bloc(int index) {
+				int rang = 0;
+				for (int pas = Integer.highestOneBit(blocs.size()); pas > 0; pas >>= 1)
+					if (rang + pas <= blocs.size() && arbre[rang + pas] <= index) {
+						rang += pas;
+						index -= arbre[rang];
+					}
+				return rang;
+			}
+		}
+
+		private final ArrayList<Section> sections = new ArrayList<Section>();
+		private final HashMap<Object, Bloc> parCle = new HashMap<Object, Bloc>();
+		private final HashMap<Object, Section> sectionsParCle = new HashMap<Object, Section>();
+		private int taille = 0;
+
+		// Lignes ajoutées à la suite dont l'ajout n'a pas encore été notifié (voir placerBlocs)
+		private int debutAjout = 0, finAjout = 0;
+
+		public int getSize() {
+			return taille;
+		}
+
+		public String getElementAt(int index) {
+			for (Section s : sections) {
+				if (index < s.taille) {
+					if (index < s.entete.lignes.size())
+						return s.entete.lignes.get(index);
+					index -= s.entete.lignes.size();
+					int rang = s.bloc(index);
+					return s.blocs.get(rang).lignes.get(index - s.avant(rang));
+				}
+				index -= s.taille;
+			}
+			throw new IndexOutOfBoundsException("ligne " + index);
+		}
+
+		/** première ligne d'une section */
+		private int debut(Section section) {
+			int d = 0;
+			for (Section s : sections) {
+				if (s == section)
+					return d;
+				d += s.taille;
+			}
+			return d;
+		}
+
+		/** première ligne d'un bloc */
+		private int debut(Bloc bloc) {
+			int d = debut(bloc.section);
+			return (bloc.rang < 0) ? d : d + bloc.section.entete.lignes.size() + bloc.section.avant(bloc.rang);
+		}
+
+		private Section nouvelleSection(Object cle, ArrayList<String> entete) {
+			Section s = new Section();
+			s.entete = new Bloc(cle, s, -1, entete);
+			s.taille = entete.size();
+			sections.add(s);
+			if (cle != null) {
+				parCle.put(cle, s.entete);
+				sectionsParCle.put(cle, s);
+			}
+			taille += entete.size();
+			return s;
+		}
+
+		/**
+		 * Ajoute des lignes à la fin, dans un bloc sans clé
+		 */
+		void ajouter(ArrayList<String> lignes) {
+			notifierAjout();
+			Section s = sections.isEmpty() ? null : sections.get(sections.size()-1);
+			if (s == null)
+				s = nouvelleSection(null, new ArrayList<String>());
+			Bloc dernier = s.blocs.isEmpty() ? s.entete : s.blocs.get(s.blocs.size()-1);
+			if (dernier.cle != null)
+				s.ajouter(dernier = new Bloc(null, s, s.blocs.size(), new ArrayList<String>()));
+			int debut = taille;
+			dernier.lignes.addAll(lignes);
+			if (dernier.rang >= 0)
+				s.modifier(dernier.rang, lignes.size());
+			s.taille += lignes.size();
+			taille += lignes.size();
+			if (debut < taille)
+				fireIntervalAdded(this, debut, taille-1);
+		}
+
+		void placerSection(Object cle, ArrayList<String> entete) {
+			Bloc bloc = parCle.get(cle);
+			if (bloc != null) {
+				remplacer(bloc, entete);
+				return;
+			}
+			notifierAjout();
+			int debut = taille;
+			nouvelleSection(cle, entete);
+			if (debut < taille)
+				fireIntervalAdded(this, debut, taille-1);
+		}
+
+		/**
+		 * Remplace un bloc, ou l'ajoute à la fin de sa section. Les ajouts successifs à la fin d'une même section
+		 * sont notifiés ensemble, par notifierAjout.
+		 */
+		void placer(Object cle, Object section, ArrayList<String> lignes) {
+			Bloc bloc = parCle.get(cle);
+			if (bloc != null) {
+				remplacer(bloc, lignes);
+				return;
+			}
+			Section s = sectionsParCle.get(section);
+			if (s == null)
+				s = sections.isEmpty() ? nouvelleSection(null, new ArrayList<String>()) : sections.get(sections.size()-1);
+			int d = debut(s) + s.taille;
+			if (finAjout > debutAjout && d != finAjout)
+				notifierAjout();
+			if (finAjout == debutAjout)
+				debutAjout = finAjout = d;
+			bloc = new Bloc(cle, s, s.blocs.size(), lignes);
+			s.ajouter(bloc);
+			parCle.put(cle, bloc);
+			s.taille += lignes.size();
+			taille += lignes.size();
+			finAjout += lignes.size();
+		}
+
+		private void remplacer(Bloc bloc, ArrayList<String> lignes) {
+			notifierAjout();
+			int d = debut(bloc);
+			int ancien = bloc.lignes.size(), nouveau = lignes.size();
+			bloc.lignes = lignes;
+			if (bloc.rang >= 0)
+				bloc.section.modifier(bloc.rang, nouveau - ancien);
+			bloc.section.taille += nouveau - ancien;
+			taille += nouveau - ancien;
+			if (Math.min(ancien, nouveau) > 0)
+				fireContentsChanged(this, d, d + Math.min(ancien, nouveau) - 1);
+			if (nouveau > ancien)
+				fireIntervalAdded(this, d + ancien, d + nouveau - 1);
+			else if (nouveau < ancien)
+				fireIntervalRemoved(this, d + nouveau, d + ancien - 1);
+		}
+
+		/**
+		 * Notifie les lignes ajoutées à la suite par placer depuis la dernière notification
+		 */
+		void notifierAjout() {
+			if (finAjout > debutAjout)
+				fireIntervalAdded(this, debutAjout, finAjout - 1);
+			debutAjout = finAjout = 0;
+		}
+
+		void vider() {
+			notifierAjout();
+			int nb = taille;
+			sections.clear();
+			parCle.clear();
+			sectionsParCle.clear();
+			taille = 0;
+			if (nb>0)
+				fireIntervalRemoved(this, 0, nb-1);
+		}
+	}
+
+	public JPanelLignes(String titre, int largeur) {
+		setLayout(new BorderLayout(4, 4));
+		jList = new JList<String>(lignes);
+		// Hauteur et largeur fixes : la liste ne mesure aucune ligne, quelle que soit leur nombre
+		jList.setPrototypeCellValue("M");
+		jList.setFixedCellWidth(largeur);
+		colonnes = Math.max(20, largeur / jList.getFontMetrics(jList.getFont()).charWidth('m'));
+		JScrollPane jScrollPane = new JScrollPane(jList);
+		jScrollPane.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_ALWAYS);
+		jScrollPane.setPreferredSize(new Dimension(largeur+50, 250));
+		jScrollPane.setBorder(
+				BorderFactory.createCompoundBorder(
+						BorderFactory.createCompoundBorder(
+								BorderFactory.createTitledBorder(titre),
+								BorderFactory.createEmptyBorder(5,5,5,5)),
+								jScrollPane.getBorder()));
+		add(jScrollPane, BorderLayout.CENTER);
+
+		JPanel bas = new JPanel(new BorderLayout(4, 4));
+		jProgressBar = new JProgressBar(0, 100);
+		jProgressBar.setStringPainted(true);
+		jProgressBar.setString("");
+		bas.add(jProgressBar, BorderLayout.CENTER);
+		annuler = new JButton("annuler");
+		annuler.setEnabled(false);
+		annuler.addActionListener(new ActionListener() {
+			public void actionPerformed(ActionEvent e) {
+				if (tache!=null)
+					tache.cancel(true);
+			}
+		});
+		bas.add(annuler, BorderLayout.EAST);
+		add(bas, BorderLayout.SOUTH);
+		setVisible(true);
+	}
+
+	/**
+	 * Efface les lignes affichées et annule la tâche en cours
+	 */
+	public void vider() {
+		if (tache!=null)
+			tache.cancel(true);
+		tache = null;
+		lignes.vider();
+		jProgressBar.setValue(0);
+		jProgressBar.setString("");
+		annuler.setEnabled(false);
+	}
+
+	/**
+	 * Ajoute des lignes à la fin de l'affichage, en coupant les lignes trop longues
+	 */
+	public void ajouterLignes(List<String> nouvelles) {
+		lignes.ajouter(couper(nouvelles));
+	}
+
+	/**
+	 * Remplace l'entête d'une section, ou ajoute une nouvelle section à la fin s'il n'y en a pas encore pour cette clé.
+	 * @param cle clé de la section
+	 * @param entete lignes de l'entête, coupées si elles sont trop longues
+	 */
+	public void placerSection(Object cle, List<String> entete) {
+		lignes.placerSection(cle, couper(entete));
+	}
+
+	/**
+	 * Remplace les lignes d'un bloc, ou ajoute un nouveau bloc à la fin de sa section s'il n'y en a pas encore
+	 * pour cette clé.
+	 * @param cle clé du bloc (un élément affiché, par exemple)
+	 * @param section clé de la section qui reçoit un nouveau bloc ; null ou une clé inconnue l'ajoute à la dernière
+	 * @param nouvelles lignes du bloc, coupées si elles sont trop longues
+	 */
+	public void placerBloc(Object cle, Object section, List<String> nouvelles) {
+		lignes.placer(cle, section, couper(nouvelles));
+		lignes.notifierAjout();
+	}
+
+	/**
+	 * Place plusieurs blocs (voir placerBloc) : les blocs ajoutés à la suite dans une même section
+	 * ne sont notifiés à la liste qu'une fois.
+	 * @param blocs triplets clé, section, lignes
+	 */
+	@SuppressWarnings("unchecked")
+	public void placerBlocs(List<Object[]> blocs) {
+		for (Object[] b : blocs)
+			lignes.placer(b[0], b[1], couper((List<String>) b[2]));
+		lignes.notifierAjout();
+	}
+
+	private ArrayList<String> couper(List<String> nouvelles) {
+		ArrayList<String> coupees = new ArrayList<String>(nouvelles.size());
+		for (String ligne : nouvelles) {
+			int i = 0;
+			while (ligne.length()-i>colonnes) {
+				int coupure = ligne.lastIndexOf(' ', i+colonnes);
+				if (coupure<=i)
+					coupure = i+colonnes;
+				coupees.add(ligne.substring(i, coupure));
+				i = (coupure<ligne.length() && ligne.charAt(coupure)==' ') ? coupure+1 : coupure;
+			}
+			coupees.add(ligne.substring(i));
+		}
+		return coupees;
+	}
+
+	/**
+	 * Suit l'avancement d'une tâche qui alimente l'affichage, et permet de l'annuler
+	 */
+	public void suivre(SwingWorker<?, ?> tache) {
+		this.tache = tache;
+		jProgressBar.setValue(0);
+		jProgressBar.setString("en cours...");
+		annuler.setEnabled(true);
+		tache.addPropertyChangeListener(new PropertyChangeListener() {
+			public void propertyChange(PropertyChangeEvent e) {
+				if ("progress".equals(e.getPropertyName()) && e.getSource()==JPanelLignes.this.tache)
+					jProgressBar.setValue((Integer) e.getNewValue());
+			}
+		});
+	}
+
+	/**
+	 * Indique la fin d'une tâche
+	 * @param message état final affiché dans la barre d'avancement (terminé, annulé, erreur)
+	 */
+	public void terminer(SwingWorker<?, ?> tache, String message) {
+		if (tache!=this.tache)
+			return;
+		this.tache = null;
+		jProgressBar.setString(message);
+		annuler.setEnabled(false);
+	}
+}
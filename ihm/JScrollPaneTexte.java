@@ -1,5 +1,6 @@
 package ihm;
 import java.awt.Dimension;
+import java.io.Writer;
 
 import javax.swing.BorderFactory;
 import javax.swing.JPanel;
@@ -49,4 +50,20 @@ public class JScrollPaneTexte  extends  JScrollPane {
 		 jTextArea.setText(s);
 	}
 
+	/**
+	 * Renvoie un Writer qui ajoute ce qu'on lui écrit à la fin du texte affiché.
+	 * A envelopper dans un BufferedWriter pour ajouter le texte par blocs.
+	 */
+	public Writer getWriter() {
+		return new Writer() {
+			public void write(char[] cbuf, int off, int len) {
+				jTextArea.append(new String(cbuf, off, len));
+			}
+			public void flush() {
+			}
+			public void close() {
+			}
+		};
+	}
+
 }
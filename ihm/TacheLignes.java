@@ -0,0 +1,96 @@
+package ihm;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+
+import javax.swing.SwingWorker;
+
+
+/**
+ * Tâche de fond qui produit un texte et l'affiche ligne par ligne dans un JPanelLignes, au fur et à mesure.
+ * Le texte est écrit dans un Writer qui le découpe en lignes ; une écriture après l'annulation de la tâche
+ * lève InterruptedIOException, ce qui interrompt la production.
+ * 
+ * @author Yann Andreu et Yannick Omnès
+ *
+ */
+public abstract class TacheLignes extends SwingWorker<Void, String> {
+
+	private final JPanelLignes panneau;
+
+	public TacheLignes(JPanelLignes panneau) {
+		this.panneau = panneau;
+	}
+
+	/**
+	 * Produit le texte à afficher, hors du thread de Swing
+	 * @param out destination du texte
+	 * @throws Exception si la production échoue ; le message est affiché dans la barre d'avancement
+	 */
+	protected abstract void produire(Writer out) throws Exception;
+
+	/**
+	 * Signale l'avancement de la production
+	 * @param fait nombre d'éléments produits
+	 * @param total nombre total d'éléments à produire
+	 */
+	protected void avancer(int fait, int total) {
+		if (total>0)
+			setProgress((int) Math.min(100, 100L * fait / total));
+	}
+
+	protected Void doInBackground() throws Exception {
+		Writer out = new Writer() {
+			private final StringBuilder ligne = new StringBuilder();
+
+			public void write(char[] cbuf, int off, int len) throws IOException {
+				if (isCancelled())
+					throw new InterruptedIOException("affichage annulé");
+				for (int i = off; i < off+len; i++) {
+					if (cbuf[i]=='\n') {
+						publish(ligne.toString());
+						ligne.setLength(0);
+					}
+					else
+						ligne.append(cbuf[i]);
+				}
+			}
+			public void flush() {
+			}
+			public void close() {
+				if (ligne.length()>0)
+					publish(ligne.toString());
+				ligne.setLength(0);
+			}
+		};
+		produire(out);
+		out.close();
+		setProgress(100);
+		return null;
+	}
+
+	protected void process(List<String> lignes) {
+		if (!isCancelled())
+			panneau.ajouterLignes(lignes);
+	}
+
+	protected void done() {
+		String message = "terminé";
+		try {
+			get();
+		}
+		catch (CancellationException e) {
+			message = "annulé";
+		}
+		catch (InterruptedException e) {
+			message = "annulé";
+		}
+		catch (ExecutionException e) {
+			message = "erreur : " + e.getCause().getMessage();
+		}
+		panneau.terminer(this, message);
+	}
+}
@@ -0,0 +1,125 @@
+package test;
+
+import avis.SocialNetwork;
+
+/** 
+ * @author Yann Andreu et Yannick Omnès
+ * @date mars 2015
+ * @version V1.0
+ */
+
+public class TestCache {
+
+
+	public static void main(String[] args) {
+
+		int nbTests = 0;
+		int nbErreurs = 0;
+
+		System.out.println("Tests du cache des descriptions d'items");
+
+		try {
+			SocialNetwork sn = new SocialNetwork();
+			sn.addMember("Paul", "paul", "lecteur impulsif");
+			sn.addMember("Anne", "anne", "cinéphile");
+			sn.addItemFilm("Paul", "paul", "Le Grand Bleu", "Drame", "Luc Besson", "Luc Besson", 168);
+			sn.reviewItemFilm("Paul", "paul", "Le Grand Bleu", 4.0f, "Magnifique");
+
+			// Sans modification, la même description est servie
+			String premiere = sn.consultItems("Le Grand Bleu").getFirst();
+			nbTests++;
+			if (sn.consultItems("le grand bleu").getFirst() != premiere) {
+				System.out.println("Test 21.1 : la description d'un item non modifié est reconstruite");
+				nbErreurs++;
+			}
+
+			// Une nouvelle review invalide la description
+			sn.reviewItemFilm("Anne", "anne", "Le Grand Bleu", 2.0f, "Trop long");
+			String apresReview = sn.consultItems("Le Grand Bleu").getFirst();
+			nbTests++;
+			if (!apresReview.contains("Trop long") || !apresReview.contains("3.0/5")) {
+				System.out.println("Test 21.2 : la description n'est pas invalidée par une review : " + apresReview);
+				nbErreurs++;
+			}
+
+			// Un changement de karma de Paul change la moyenne pondérée, donc la description
+			sn.reviewOpinionFilm("Anne", "anne", "Le Grand Bleu", "Paul", 5.0f);
+			String apresKarma = sn.consultItems("Le Grand Bleu").getFirst();
+			nbTests++;
+			if (apresKarma.equals(apresReview)) {
+				System.out.println("Test 21.3 : la description n'est pas invalidée par un changement de karma");
+				nbErreurs++;
+			}
+
+			// Un budget nul désactive le cache sans changer les descriptions
+			sn.configurerCache(0);
+			nbTests++;
+			if (!sn.consultItems("Le Grand Bleu").getFirst().equals(apresKarma)) {
+				System.out.println("Test 21.4 : description incorrecte sans cache");
+				nbErreurs++;
+			}
+
+			nbTests++;
+			try {
+				sn.configurerCache(-1);
+				System.out.println("Test 21.5 : un budget négatif est accepté");
+				nbErreurs++;
+			}
+			catch (IllegalArgumentException e) {
+			}
+
+			// Lectures concurrentes avec un budget de quelques descriptions, pendant que des reviews sont déposées :
+			// les descriptions servies restent celles de la dernière version des items
+			final SocialNetwork reseau = new SocialNetwork();
+			reseau.addMember("Paul", "paul", "lecteur impulsif");
+			for (int i = 0; i < 20; i++)
+				reseau.addItemFilm("Paul", "paul", "Film " + i, "Drame", "Luc Besson", "Luc Besson", 100);
+			reseau.configurerCache(3 * (2L * reseau.consultItems("Film 0").getFirst().length() + 64));
+			final boolean[] incorrecte = new boolean[1];
+			Thread[] lecteurs = new Thread[4];
+			for (int t = 0; t < lecteurs.length; t++) {
+				final int numero = t;
+				lecteurs[t] = new Thread() {
+					public void run() {
+						try {
+							for (int i = 0; i < 2000; i++)
+								if (!reseau.consultItems("Film " + (numero * 7 + i) % 20).getFirst().contains("Titre : Film " + (numero * 7 + i) % 20 + "\n"))
+									incorrecte[0] = true;
+						}
+						catch (Exception e) {
+							incorrecte[0] = true;
+						}
+					}
+				};
+				lecteurs[t].start();
+			}
+			for (int i = 0; i < 20; i++)
+				reseau.reviewItemFilm("Paul", "paul", "Film " + i, i % 6, "Vu " + i);
+			for (Thread t : lecteurs)
+				t.join();
+			nbTests++;
+			boolean aJour = !incorrecte[0];
+			for (int i = 0; aJour && i < 20; i++)
+				aJour = reseau.consultItems("Film " + i).getFirst().contains("Vu " + i);
+			if (!aJour) {
+				System.out.println("Test 21.6 : description incorrecte ou périmée après des lectures concurrentes");
+				nbErreurs++;
+			}
+		}
+		catch (Exception e) {
+			System.out.println ("Test 21 : exception non prévue. " + e); 
+			e.printStackTrace();
+			nbTests++;
+			nbErreurs++;
+		}
+
+		System.out.println("TestCache :   " + nbErreurs + " erreur(s) / " +  nbTests + " tests effectués");
+
+		if ((args != null) && (args.length == 2)) {        
+			nbTests = nbTests + new Integer(args[0]);
+			nbErreurs = nbErreurs + new Integer(args[1]);       
+			args[0] = "" + nbTests;
+			args[1] = "" + nbErreurs;
+		}
+	}
+}
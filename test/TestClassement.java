@@ -0,0 +1,111 @@
+package test;
+
+import java.util.List;
+
+import avis.Item;
+import avis.SocialNetwork;
+import exception.BadEntry;
+
+/** 
+ * @author Yann Andreu et Yannick Omnès
+ * @date mars 2015
+ * @version V1.0
+ */
+
+public class TestClassement {
+
+
+	/**
+	 * Renvoie les titres d'une liste d'items, dans l'ordre, séparés par des virgules
+	 */
+	static String titres (List<? extends Item> items){
+		StringBuilder titres = new StringBuilder();
+		for (Item i : items)
+			titres.append(titres.length() == 0 ? "" : ",").append(i.getTitre());
+		return titres.toString();
+	}
+
+	/**
+	 * Vérifie les titres d'un classement, dans l'ordre
+	 */
+	public static int classementTest (List<? extends Item> classement, String titresAttendus, String idTest, String messErreur){
+		String titres = titres(classement);
+		if (titres.equals(titresAttendus))
+			return 0;
+		System.out.println("Test " + idTest + " : " + messErreur + " (" + titres + " au lieu de " + titresAttendus + ")");
+		return 1;
+	}
+
+
+	public static void main(String[] args) {
+
+		int nbTests = 0;
+		int nbErreurs = 0;
+
+		System.out.println("Tests des classements");
+
+		try {
+			SocialNetwork sn = new SocialNetwork();
+			String[] membres = {"Paul", "Alice", "Jean"};
+			for (String m : membres)
+				sn.addMember(m, m.toLowerCase(), "profil");
+			sn.addItemFilm("Paul", "paul", "A", "SF", "R", "S", 100);
+			sn.addItemFilm("Paul", "paul", "B", "SF", "R", "S", 100);
+			sn.addItemFilm("Paul", "paul", "C", "SF", "R", "S", 100);
+			sn.addItemFilm("Paul", "paul", "D", "Drame", "R", "S", 100);
+			float[][] notes = {{4, 4, 4}, {5}, {5, 4, 4.5f}, {3, 5, 4}};
+			for (int f = 0; f < notes.length; f++)
+				for (int m = 0; m < notes[f].length; m++)
+					sn.reviewItemFilm(membres[m], membres[m].toLowerCase(), "" + (char) ('A' + f), notes[f][m], "review");
+
+			// B n'a qu'une review : il n'est pas classé ; A précède D, de même moyenne, car il a été ajouté avant
+			nbTests++;
+			nbErreurs += classementTest(sn.topFilms(10), "C,A,D", "16.1", "classement des films incorrect");
+			nbTests++;
+			nbErreurs += classementTest(sn.topFilms(2), "C,A", "16.2", "les 2 premiers films sont incorrects");
+			nbTests++;
+			nbErreurs += classementTest(sn.topFilms(" sf ", 10), "C,A", "16.3", "classement par genre incorrect");
+			nbTests++;
+			nbErreurs += classementTest(sn.topBooks(10), "", "16.4", "classement des livres non vide");
+
+			// Une review modifiée déplace l'item
+			sn.reviewItemFilm("Alice", "alice", "C", 1.0f, "review");
+			nbTests++;
+			nbErreurs += classementTest(sn.topFilms(10), "A,D,C", "16.5", "une review modifiée ne reclasse pas l'item");
+
+			// Un changement de karma déplace les items évalués par le membre concerné
+			sn.reviewOpinionFilm("Paul", "paul", "D", "Alice", 5.0f);
+			nbTests++;
+			nbErreurs += classementTest(sn.topFilms(10), "D,A,C", "16.6", "un changement de karma ne reclasse pas les items");
+
+			// Un seuil plus bas reclasse tous les items
+			sn.setSeuilClassement(1);
+			nbTests++;
+			nbErreurs += classementTest(sn.topFilms(10), "B,D,A,C", "16.7", "le changement de seuil n'est pas pris en compte");
+
+			nbTests++;
+			try {
+				sn.topFilms(-1);
+				System.out.println("Test 16.8 : un nombre de films négatif est accepté");
+				nbErreurs++;
+			}
+			catch (BadEntry e) {
+			}
+		}
+		catch (Exception e) {
+			System.out.println ("Test 16 : exception non prévue. " + e); 
+			e.printStackTrace();
+			nbTests++;
+			nbErreurs++;
+		}
+
+		System.out.println("TestClassement :   " + nbErreurs + " erreur(s) / " +  nbTests + " tests effectués");
+
+		if ((args != null) && (args.length == 2)) {        
+			nbTests = nbTests + new Integer(args[0]);
+			nbErreurs = nbErreurs + new Integer(args[1]);       
+			args[0] = "" + nbTests;
+			args[1] = "" + nbErreurs;
+		}
+	}
+}
@@ -0,0 +1,146 @@
+package test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import avis.PageReviews;
+import avis.Review;
+import avis.SocialNetwork;
+
+/**
+ * @author Yann Andreu et Yannick Omnès
+ * @date mars 2015
+ * @version V1.0
+ */
+
+public class TestColonnes {
+
+
+	/**
+	 * Lit toutes les reviews du premier item portant ce titre, page par page
+	 */
+	public static List<Review> toutesLesReviews (SocialNetwork sn, String titre) throws Exception {
+		ArrayList<Review> reviews = new ArrayList<Review>();
+		PageReviews page = sn.consulterReviews(sn.consulterItems(titre).get(0).getReviews(), 100);
+		reviews.addAll(page.getReviews());
+		while (page.getSuivante() != null) {
+			page = sn.consulterReviews(page.getSuivante(), 100);
+			reviews.addAll(page.getReviews());
+		}
+		return reviews;
+	}
+
+	/**
+	 * Commentaire du membre i : accents, et longueur dépassant 127 octets une fois sur trois
+	 */
+	public static String commentaire (int i, int version) {
+		StringBuilder s = new StringBuilder("Très bon film n°" + i + " (v" + version + ") ");
+		if (i % 3 == 0)
+			for (int j = 0; j < 20; j++)
+				s.append("éclairé ");
+		return s.toString();
+	}
+
+
+	public static void main(String[] args) {
+
+		int nbTests = 0;
+		int nbErreurs = 0;
+
+		System.out.println("Tests du stockage des reviews en colonnes");
+
+		try {
+			SocialNetwork sn = new SocialNetwork();
+			int nbMembres = 300;
+			for (int i = 0; i < nbMembres; i++)
+				sn.addMember("Membre" + i, "pass", "profil");
+			sn.addItemFilm("Membre0", "pass", "Metropolis", "Science-fiction", "Fritz Lang", "Thea von Harbou", 153);
+			for (int i = 0; i < nbMembres; i++)
+				sn.reviewItemFilm("Membre" + i, "pass", "Metropolis", i % 6, commentaire(i, 1));
+
+			// Auteurs, notes et commentaires relus dans l'ordre de dépôt
+			List<Review> reviews = toutesLesReviews(sn, "Metropolis");
+			nbTests++;
+			boolean correctes = reviews.size() == nbMembres;
+			for (int i = 0; correctes && i < nbMembres; i++) {
+				Review r = reviews.get(i);
+				correctes = r.getMembre().getPseudo().equals("Membre" + i) && r.getNote() == i % 6
+						&& r.getCommentaire().equals(commentaire(i, 1)) && r.getItem().getTitre().equals("Metropolis");
+			}
+			if (!correctes) {
+				System.out.println("Test 25.1 : reviews relues incorrectes");
+				nbErreurs++;
+			}
+
+			// Les remplacements successifs des commentaires (et le compactage des textes) préservent les autres reviews
+			for (int v = 2; v <= 5; v++)
+				for (int i = 0; i < nbMembres; i += 2)
+					sn.reviewItemFilm("Membre" + i, "pass", "Metropolis", 5.0f, commentaire(i, v));
+			reviews = toutesLesReviews(sn, "Metropolis");
+			nbTests++;
+			correctes = reviews.size() == nbMembres;
+			for (int i = 0; correctes && i < nbMembres; i++) {
+				Review r = reviews.get(i);
+				correctes = r.getMembre().getPseudo().equals("Membre" + i)
+						&& r.getNote() == ((i % 2 == 0) ? 5.0f : i % 6)
+						&& r.getCommentaire().equals(commentaire(i, (i % 2 == 0) ? 5 : 1));
+			}
+			if (!correctes) {
+				System.out.println("Test 25.2 : reviews incorrectes après remplacement des commentaires");
+				nbErreurs++;
+			}
+
+			// Un commentaire identique ne change pas la review, et un commentaire vide est conservé
+			sn.reviewItemFilm("Membre1", "pass", "Metropolis", 1.0f, commentaire(1, 1));
+			sn.reviewItemFilm("Membre3", "pass", "Metropolis", 3.0f, "");
+			reviews = toutesLesReviews(sn, "Metropolis");
+			nbTests++;
+			if (!reviews.get(1).getCommentaire().equals(commentaire(1, 1)) || !reviews.get(3).getCommentaire().equals("")
+					|| reviews.get(3).getNote() != 3.0f) {
+				System.out.println("Test 25.3 : commentaire identique ou vide mal conservé");
+				nbErreurs++;
+			}
+
+			// Les reviews obtenues sont des copies : les modifier ne change pas l'item
+			reviews.get(0).setCommentaire("modifié hors du SocialNetwork");
+			nbTests++;
+			if (!toutesLesReviews(sn, "Metropolis").get(0).getCommentaire().equals(commentaire(0, 5))) {
+				System.out.println("Test 25.4 : la modification d'une copie change la review déposée");
+				nbErreurs++;
+			}
+
+			// La recherche ignore les commentaires remplacés et trouve les commentaires actuels
+			nbTests++;
+			if (!sn.rechercherReviews("\"n°2 (v1)\"", 10).isEmpty() || sn.rechercherReviews("\"n°2 (v5)\"", 10).size() != 1
+					|| !sn.rechercherReviews("\"n°2 (v5)\"", 10).get(0).getMembre().getPseudo().equals("Membre2")) {
+				System.out.println("Test 25.5 : recherche incorrecte après remplacement d'un commentaire");
+				nbErreurs++;
+			}
+
+			// La moyenne tient compte des notes remplacées
+			float somme = 0.0f;
+			for (Review r : toutesLesReviews(sn, "Metropolis"))
+				somme += r.getNote();
+			nbTests++;
+			if (Math.abs(sn.consulterItems("Metropolis").get(0).getMoyenne() - somme / nbMembres) > 1e-4) {
+				System.out.println("Test 25.6 : moyenne incorrecte après remplacement des notes");
+				nbErreurs++;
+			}
+		}
+		catch (Exception e) {
+			System.out.println ("Test 25 : exception non prévue. " + e);
+			e.printStackTrace();
+			nbTests++;
+			nbErreurs++;
+		}
+
+		System.out.println("TestColonnes :   " + nbErreurs + " erreur(s) / " +  nbTests + " tests effectués");
+
+		if ((args != null) && (args.length == 2)) {
+			nbTests = nbTests + new Integer(args[0]);
+			nbErreurs = nbErreurs + new Integer(args[1]);
+			args[0] = "" + nbTests;
+			args[1] = "" + nbErreurs;
+		}
+	}
+}
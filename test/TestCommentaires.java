@@ -0,0 +1,123 @@
+package test;
+
+import java.util.List;
+
+import avis.Review;
+import avis.SocialNetwork;
+import exception.BadEntry;
+
+/** 
+ * @author Yann Andreu et Yannick Omnès
+ * @date mars 2015
+ * @version V1.0
+ */
+
+public class TestCommentaires {
+
+
+	/**
+	 * Vérifie les reviews trouvées par une recherche dans les commentaires, dans l'ordre (pseudo:titre)
+	 */
+	public static int rechercheReviewsTest (SocialNetwork sn, String requete, int max, String attendus, String idTest, String messErreur){
+		try {
+			List<Review> reviews = sn.rechercherReviews(requete, max);
+			StringBuilder trouves = new StringBuilder();
+			for (Review r : reviews)
+				trouves.append(trouves.length() == 0 ? "" : ",").append(r.getMembre().getPseudo()).append(':').append(r.getItem().getTitre());
+			if (trouves.toString().equals(attendus))
+				return 0;
+			System.out.println("Test " + idTest + " : " + messErreur + " (" + trouves + " au lieu de " + attendus + ")");
+			return 1;
+		}
+		catch (Exception e) {
+			System.out.println("Test " + idTest + " : exception non prévue. " + e);
+			return 1;
+		}
+	}
+
+	/**
+	 * Vérifie les items trouvés par une recherche dans les commentaires, dans l'ordre
+	 */
+	public static int rechercheItemsTest (SocialNetwork sn, String requete, int max, String titresAttendus, String idTest, String messErreur){
+		try {
+			String titres = TestClassement.titres(sn.rechercherItemsParCommentaire(requete, max));
+			if (titres.equals(titresAttendus))
+				return 0;
+			System.out.println("Test " + idTest + " : " + messErreur + " (" + titres + " au lieu de " + titresAttendus + ")");
+			return 1;
+		}
+		catch (Exception e) {
+			System.out.println("Test " + idTest + " : exception non prévue. " + e);
+			return 1;
+		}
+	}
+
+
+	public static void main(String[] args) {
+
+		int nbTests = 0;
+		int nbErreurs = 0;
+
+		System.out.println("Tests de la recherche dans les commentaires");
+
+		try {
+			SocialNetwork sn = new SocialNetwork();
+			sn.addMember("Paul", "paul", "lecteur impulsif");
+			sn.addMember("Anne", "anne", "cinéphile");
+			sn.addMember("Marc", "marc", "critique");
+			sn.addItemFilm("Paul", "paul", "Le Grand Bleu", "Drame", "Luc Besson", "Luc Besson", 168);
+			sn.addItemFilm("Paul", "paul", "La Grande Vadrouille", "Comédie", "Gérard Oury", "Gérard Oury", 132);
+			sn.addItemBook("Paul", "paul", "Germinal", "Roman", "Emile Zola", 591);
+			sn.reviewItemFilm("Paul", "paul", "Le Grand Bleu", 4.0f, "Une fin inattendue, des acteurs magnifiques.");
+			sn.reviewItemFilm("Anne", "anne", "Le Grand Bleu", 3.0f, "Des acteurs justes mais une fin trop longue.");
+			sn.reviewItemFilm("Marc", "marc", "La Grande Vadrouille", 5.0f, "Hilarant ! Les acteurs, les acteurs, les acteurs.");
+			sn.reviewItemBook("Anne", "anne", "Germinal", 5.0f, "Un roman sombre, une fin inattendue.");
+
+			nbTests++;
+			nbErreurs += rechercheReviewsTest(sn, "ACTEURS", 10, "Marc:La Grande Vadrouille,Paul:Le Grand Bleu,Anne:Le Grand Bleu", "18.1", "recherche d'un terme incorrecte ou mal classée");
+			nbTests++;
+			nbErreurs += rechercheReviewsTest(sn, "fin acteurs", 10, "Paul:Le Grand Bleu,Anne:Le Grand Bleu", "18.2", "recherche de plusieurs termes incorrecte");
+			nbTests++;
+			nbErreurs += rechercheReviewsTest(sn, "\"fin inattendue\"", 10, "Paul:Le Grand Bleu,Anne:Germinal", "18.3", "recherche d'une expression incorrecte");
+			nbTests++;
+			nbErreurs += rechercheReviewsTest(sn, "\"inattendue fin\"", 10, "", "18.4", "une expression dans le désordre est trouvée");
+			nbTests++;
+			nbErreurs += rechercheReviewsTest(sn, "acteurs", 1, "Marc:La Grande Vadrouille", "18.5", "le nombre maximal de résultats n'est pas respecté");
+			nbTests++;
+			nbErreurs += rechercheItemsTest(sn, "acteurs", 10, "La Grande Vadrouille,Le Grand Bleu", "18.6", "recherche d'items par commentaire incorrecte");
+
+			// Le commentaire remplacé n'est plus trouvé, le nouveau l'est
+			sn.reviewItemFilm("Marc", "marc", "La Grande Vadrouille", 4.0f, "Toujours aussi drôle.");
+			nbTests++;
+			nbErreurs += rechercheReviewsTest(sn, "acteurs", 10, "Paul:Le Grand Bleu,Anne:Le Grand Bleu", "18.7", "un commentaire remplacé est encore trouvé");
+			nbTests++;
+			nbErreurs += rechercheReviewsTest(sn, "drôle", 10, "Marc:La Grande Vadrouille", "18.8", "un commentaire modifié n'est pas indexé");
+			nbTests++;
+			nbErreurs += rechercheReviewsTest(sn, "absent", 10, "", "18.9", "un terme absent donne des résultats");
+
+			nbTests++;
+			try {
+				sn.rechercherReviews(null, 10);
+				System.out.println("Test 18.10 : une requête non instanciée est acceptée");
+				nbErreurs++;
+			}
+			catch (BadEntry e) {
+			}
+		}
+		catch (Exception e) {
+			System.out.println ("Test 18 : exception non prévue. " + e); 
+			e.printStackTrace();
+			nbTests++;
+			nbErreurs++;
+		}
+
+		System.out.println("TestCommentaires :   " + nbErreurs + " erreur(s) / " +  nbTests + " tests effectués");
+
+		if ((args != null) && (args.length == 2)) {        
+			nbTests = nbTests + new Integer(args[0]);
+			nbErreurs = nbErreurs + new Integer(args[1]);       
+			args[0] = "" + nbTests;
+			args[1] = "" + nbErreurs;
+		}
+	}
+}
@@ -0,0 +1,213 @@
+package test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import avis.SocialNetwork;
+
+import exception.ItemFilmAlreadyExists;
+import exception.MemberAlreadyExists;
+
+/** 
+ * @author Yann Andreu et Yannick Omnès
+ * @date mars 2015
+ * @version V1.0
+ */
+
+public class TestConcurrence {
+
+	private static final int NB_THREADS = 8;
+
+
+	/**
+	 * Lance NB_THREADS tâches simultanément et attend leur fin
+	 * @param tache la tâche exécutée par chaque thread, qui reçoit le numéro du thread
+	 */
+	private static void lancer(final Tache tache) throws InterruptedException {
+		ExecutorService executeur = Executors.newFixedThreadPool(NB_THREADS);
+		for (int t=0; t<NB_THREADS; t++) {
+			final int numero = t;
+			executeur.execute(new Runnable() {
+				public void run() {
+					tache.executer(numero);
+				}
+			});
+		}
+		executeur.shutdown();
+		executeur.awaitTermination(1, TimeUnit.MINUTES);
+	}
+
+	private interface Tache {
+		void executer(int numero);
+	}
+
+
+	/**
+	 * Vérifie qu'un même pseudo inscrit simultanément par tous les threads n'est accepté qu'une fois
+	 */
+	public static int addMemberConcurrentTest (final SocialNetwork sn, String idTest){
+		final AtomicInteger refus = new AtomicInteger();
+		int nbMembres = sn.nbMembers();
+		try {
+			lancer(new Tache() {
+				public void executer(int numero) {
+					try {
+						sn.addMember(" Concurrent ", "password", "thread " + numero);
+					}
+					catch (MemberAlreadyExists e) {
+						refus.incrementAndGet();
+					}
+					catch (Exception e) {
+						System.out.println ("Test " + idTest + " : exception non prévue. " + e); 
+					}
+				}
+			});
+		}
+		catch (InterruptedException e) {
+			return 1;
+		}
+		if (sn.nbMembers() != nbMembres+1 || refus.get() != NB_THREADS-1) {
+			System.out.println("Test " + idTest + " : un pseudo inscrit simultanément par plusieurs threads a été accepté plusieurs fois");
+			return 1;
+		}
+		return 0;
+	}
+
+	/**
+	 * Vérifie qu'un même film ajouté simultanément par tous les threads n'est accepté qu'une fois
+	 */
+	public static int addItemFilmConcurrentTest (final SocialNetwork sn, String idTest){
+		final AtomicInteger refus = new AtomicInteger();
+		int nbFilms = sn.nbFilms();
+		try {
+			lancer(new Tache() {
+				public void executer(int numero) {
+					try {
+						sn.addItemFilm("Membre 0", "password", "Film concurrent", "Genre", "Réalisateur", "Scénariste", 100);
+					}
+					catch (ItemFilmAlreadyExists e) {
+						refus.incrementAndGet();
+					}
+					catch (Exception e) {
+						System.out.println ("Test " + idTest + " : exception non prévue. " + e); 
+					}
+				}
+			});
+		}
+		catch (InterruptedException e) {
+			return 1;
+		}
+		if (sn.nbFilms() != nbFilms+1 || refus.get() != NB_THREADS-1) {
+			System.out.println("Test " + idTest + " : un film ajouté simultanément par plusieurs threads a été accepté plusieurs fois");
+			return 1;
+		}
+		return 0;
+	}
+
+	/**
+	 * Vérifie que des reviews concurrentes sur un même film sont toutes prises en compte dans la moyenne
+	 */
+	public static int reviewConcurrentTest (final SocialNetwork sn, final int nbMembres, String idTest){
+		try {
+			lancer(new Tache() {
+				public void executer(int numero) {
+					try {
+						for (int i=numero; i<nbMembres; i+=NB_THREADS)
+							sn.reviewItemFilm("Membre " + i, "password", "Film concurrent", (i%2==0) ? 1.0f : 3.0f, "avis " + i);
+					}
+					catch (Exception e) {
+						System.out.println ("Test " + idTest + " : exception non prévue. " + e); 
+					}
+				}
+			});
+			if (sn.reviewItemFilm("Membre 0", "password", "Film concurrent", 1.0f, "avis 0") != 2.0f) {
+				System.out.println("Test " + idTest + " : des reviews concurrentes ont été perdues");
+				return 1;
+			}
+			return 0;
+		}
+		catch (Exception e) {
+			System.out.println ("Test " + idTest + " : exception non prévue. " + e); 
+			return 1;
+		}
+	}
+
+
+	/**
+	 * Vérifie que des évaluations simultanées d'une même review par un même évaluateur laissent un karma
+	 * et des moyennes cohérents : une seule évaluation est comptée, avec la dernière note
+	 */
+	public static int evaluationConcurrenteTest (final SocialNetwork sn, String idTest){
+		try {
+			for (int essai=0; essai<20; essai++) {
+				final String evaluateur = "Membre " + (100 + essai);
+				lancer(new Tache() {
+					public void executer(int numero) {
+						try {
+							for (int i=0; i<50; i++)
+								sn.reviewOpinionFilm(evaluateur, "password", "Film concurrent", "Membre 0", (numero + i) % 6);
+						}
+						catch (Exception e) {
+							System.out.println ("Test " + idTest + " : exception non prévue. " + e); 
+						}
+					}
+				});
+			}
+			// 20 évaluateurs : 19 notes quelconques, puis 5.0 pour le dernier
+			float karma = 0.0f;
+			for (int essai=0; essai<20; essai++)
+				karma = sn.reviewOpinionFilm("Membre " + (100 + essai), "password", "Film concurrent", "Membre 0", (essai < 19) ? 1.0f : 5.0f);
+			float moyenne = sn.reviewItemFilm("Membre 0", "password", "Film concurrent", 1.0f, "avis 0");
+			float attendu = (19 * 1.0f + 5.0f) / 20;
+			if (Math.abs(karma - attendu) > 1e-4 || Float.isNaN(moyenne) || Float.isInfinite(moyenne)) {
+				System.out.println("Test " + idTest + " : évaluations concurrentes mal comptées (karma " + karma + " au lieu de " + attendu + ", moyenne " + moyenne + ")");
+				return 1;
+			}
+			return 0;
+		}
+		catch (Exception e) {
+			System.out.println ("Test " + idTest + " : exception non prévue. " + e); 
+			return 1;
+		}
+	}
+
+
+	public static void main(String[] args) {
+
+		int nbTests = 0;
+		int nbErreurs = 0;
+		int nbMembres = 1000;
+
+		System.out.println("Tests d'accès concurrents au réseau social");
+
+		SocialNetwork sn = new SocialNetwork();
+		try {
+			for (int i=0; i<nbMembres; i++)
+				sn.addMember("Membre " + i, "password", "");
+		}
+		catch (Exception e) {
+			System.out.println("Erreur à l'ajout d'un membre avec paramètres corrects.");
+			System.exit(1);
+		}
+
+		nbTests++;
+		nbErreurs += addMemberConcurrentTest(sn, "8.1");
+		nbTests++;
+		nbErreurs += addItemFilmConcurrentTest(sn, "8.2");
+		nbTests++;
+		nbErreurs += reviewConcurrentTest(sn, nbMembres, "8.3");
+		nbTests++;
+		nbErreurs += evaluationConcurrenteTest(sn, "15.12");
+
+		System.out.println("TestConcurrence :   " + nbErreurs + " erreur(s) / " +  nbTests + " tests effectués");
+
+		if ((args != null) && (args.length == 2)) {        
+			nbTests = nbTests + new Integer(args[0]);
+			nbErreurs = nbErreurs + new Integer(args[1]);       
+			args[0] = "" + nbTests;
+			args[1] = "" + nbErreurs;
+		}
+	}
+}
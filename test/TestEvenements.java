@@ -0,0 +1,205 @@
+package test;
+
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import avis.EcouteurReseau;
+import avis.Item;
+import avis.Member;
+import avis.Review;
+import avis.SocialNetwork;
+import exception.BadEntry;
+import exception.MemberAlreadyExists;
+
+/** 
+ * @author Yann Andreu et Yannick Omnès
+ * @date mars 2015
+ * @version V1.0
+ */
+
+public class TestEvenements {
+
+
+	/**
+	 * Ecouteur qui note les modifications signalées, sous la forme M:pseudo, I:titre, R:pseudo/titre/note, P:titre
+	 */
+	static class Trace implements EcouteurReseau {
+		final StringBuilder evenements = new StringBuilder();
+
+		public void membreAjoute(Member membre) {
+			evenements.append(evenements.length() == 0 ? "" : ",").append("M:").append(membre.getPseudo());
+		}
+
+		public void itemAjoute(Item item) {
+			evenements.append(evenements.length() == 0 ? "" : ",").append("I:").append(item.getTitre());
+		}
+
+		public void reviewDeposee(Review review) {
+			evenements.append(evenements.length() == 0 ? "" : ",").append("R:").append(review.getMembre().getPseudo())
+			.append('/').append(review.getItem().getTitre()).append('/').append(review.getNote());
+		}
+
+		public void itemRepondere(Item item) {
+			evenements.append(evenements.length() == 0 ? "" : ",").append("P:").append(item.getTitre());
+		}
+	}
+
+	/**
+	 * Vérifie les modifications signalées à un écouteur, dans l'ordre
+	 */
+	public static int traceTest (Trace trace, String attendus, String idTest, String messErreur){
+		if (trace.evenements.toString().equals(attendus))
+			return 0;
+		System.out.println("Test " + idTest + " : " + messErreur + " (" + trace.evenements + " au lieu de " + attendus + ")");
+		return 1;
+	}
+
+
+	/**
+	 * Vérifie qu'une mutation appliquée en mémoire alors que le journal ne peut l'écrire est tout de même
+	 * signalée aux abonnés, et que l'appel est mesuré
+	 */
+	public static int echecJournalTest (String idTest){
+		try {
+			Path fichier = Files.createTempFile("evenements", ".journal");
+			TestJournal.CanalDefaillant canal = new TestJournal.CanalDefaillant(FileChannel.open(fichier, StandardOpenOption.WRITE));
+			SocialNetwork sn = TestJournal.reseauSurCanal(canal);
+			sn.addMember("Paul", "paul", "lecteur impulsif");
+			sn.addItemFilm("Paul", "paul", "Le Grand Bleu", "Drame", "Luc Besson", "Luc Besson", 168);
+			Trace trace = new Trace();
+			sn.abonner(trace, false);
+			canal.enPanne = true;
+			boolean echoue = false;
+			try {
+				sn.reviewItemFilm("Paul", "paul", "Le Grand Bleu", 4.0f, "Magnifique");
+			}
+			catch (UncheckedIOException e) {
+				echoue = true;
+			}
+			Long mesure = sn.getMesures().getAppels().get("reviewItemFilm:OK");
+			canal.enPanne = false;
+			sn.close();
+			Files.delete(fichier);
+			if (!echoue || !trace.evenements.toString().equals("R:Paul/Le Grand Bleu/4.0") || mesure == null || mesure != 1) {
+				System.out.println("Test " + idTest + " : mutation mal signalée ou mal mesurée quand le journal échoue (échec : " + echoue
+						+ ", signalé : " + trace.evenements + ", mesuré : " + mesure + ")");
+				return 1;
+			}
+			return 0;
+		}
+		catch (Exception e) {
+			System.out.println ("Test " + idTest + " : exception non prévue. " + e); 
+			e.printStackTrace();
+			return 1;
+		}
+	}
+
+
+	public static void main(String[] args) {
+
+		int nbTests = 0;
+		int nbErreurs = 0;
+
+		System.out.println("Tests des abonnements aux modifications");
+
+		try {
+			SocialNetwork sn = new SocialNetwork();
+			sn.addMember("Paul", "paul", "lecteur impulsif");
+			Trace trace = new Trace();
+			sn.abonner(trace, false);
+
+			sn.addMember("Anne", "anne", "cinéphile");
+			sn.addItemFilm("Paul", "paul", "Le Grand Bleu", "Drame", "Luc Besson", "Luc Besson", 168);
+			sn.reviewItemFilm("Anne", "anne", "Le Grand Bleu", 4.0f, "Magnifique");
+			sn.reviewItemFilm("Anne", "anne", "Le Grand Bleu", 3.0f, "Finalement un peu long");
+			nbTests++;
+			nbErreurs += traceTest(trace, "M:Anne,I:Le Grand Bleu,R:Anne/Le Grand Bleu/4.0,R:Anne/Le Grand Bleu/3.0", "23.1", "modifications mal signalées");
+
+			// Une modification refusée n'est pas signalée
+			trace.evenements.setLength(0);
+			try {
+				sn.addMember(" paul ", "autre", "doublon");
+			}
+			catch (MemberAlreadyExists e) {
+			}
+			sn.tryReviewItemFilm("Anne", "faux", "Le Grand Bleu", 5.0f, "refusé");
+			nbTests++;
+			nbErreurs += traceTest(trace, "", "23.2", "une modification refusée est signalée");
+
+			// Un nouvel abonné peut recevoir l'état actuel
+			Trace etat = new Trace();
+			sn.abonner(etat, true);
+			nbTests++;
+			nbErreurs += traceTest(etat, "M:Paul,M:Anne,I:Le Grand Bleu", "23.3", "état actuel mal signalé");
+
+			// Un abonné défaillant n'empêche ni la modification ni les autres signalements
+			sn.abonner(new EcouteurReseau() {
+				public void membreAjoute(Member membre) {
+					throw new IllegalStateException("abonné défaillant");
+				}
+				public void itemAjoute(Item item) {
+				}
+				public void reviewDeposee(Review review) {
+				}
+				public void itemRepondere(Item item) {
+				}
+			}, false);
+			sn.desabonner(etat);
+			sn.addMember("Marc", "marc", "critique");
+			nbTests++;
+			nbErreurs += traceTest(trace, "M:Marc", "23.4", "un abonné défaillant bloque les signalements");
+			nbTests++;
+			nbErreurs += traceTest(etat, "M:Paul,M:Anne,I:Le Grand Bleu", "23.5", "un abonné désabonné reçoit encore des signalements");
+			nbTests++;
+			if (sn.nbMembers() != 3) {
+				System.out.println("Test 23.6 : un abonné défaillant empêche la modification");
+				nbErreurs++;
+			}
+
+			nbTests++;
+			try {
+				sn.abonner(null, false);
+				System.out.println("Test 23.7 : un abonné non instancié est accepté");
+				nbErreurs++;
+			}
+			catch (BadEntry e) {
+			}
+
+			// Une évaluation change le karma de l'auteur : chaque item où il a déposé une review est signalé
+			sn.addItemBook("Paul", "paul", "Le Horla", "Fantastique", "Maupassant", 60);
+			sn.reviewItemBook("Anne", "anne", "Le Horla", 5.0f, "Inquiétant");
+			trace.evenements.setLength(0);
+			sn.reviewOpinionFilm("Paul", "paul", "Le Grand Bleu", "Anne", 1.0f);
+			nbTests++;
+			nbErreurs += traceTest(trace, "P:Le Grand Bleu,P:Le Horla", "23.8", "items repondérés mal signalés");
+
+			// Une évaluation refusée n'est pas signalée
+			trace.evenements.setLength(0);
+			sn.tryReviewOpinionFilm("Paul", "paul", "Le Grand Bleu", "Marc", 3.0f);
+			nbTests++;
+			nbErreurs += traceTest(trace, "", "23.9", "une évaluation refusée est signalée");
+
+			// Une mutation appliquée en mémoire est signalée même si le journal ne peut l'écrire
+			nbTests++;
+			nbErreurs += echecJournalTest("23.10");
+		}
+		catch (Exception e) {
+			System.out.println ("Test 23 : exception non prévue. " + e); 
+			e.printStackTrace();
+			nbTests++;
+			nbErreurs++;
+		}
+
+		System.out.println("TestEvenements :   " + nbErreurs + " erreur(s) / " +  nbTests + " tests effectués");
+
+		if ((args != null) && (args.length == 2)) {        
+			nbTests = nbTests + new Integer(args[0]);
+			nbErreurs = nbErreurs + new Integer(args[1]);       
+			args[0] = "" + nbTests;
+			args[1] = "" + nbErreurs;
+		}
+	}
+}
@@ -0,0 +1,98 @@
+package test;
+
+import avis.SocialNetwork;
+import exception.BadEntry;
+
+/** 
+ * @author Yann Andreu et Yannick Omnès
+ * @date mars 2015
+ * @version V1.0
+ */
+
+public class TestFacette {
+
+
+	/**
+	 * Vérifie une valeur attendue
+	 */
+	public static int valeurTest (Object valeur, Object attendue, String idTest, String messErreur){
+		if (valeur.equals(attendue))
+			return 0;
+		System.out.println("Test " + idTest + " : " + messErreur + " (" + valeur + " au lieu de " + attendue + ")");
+		return 1;
+	}
+
+
+	public static void main(String[] args) {
+
+		int nbTests = 0;
+		int nbErreurs = 0;
+
+		System.out.println("Tests des facettes par genre");
+
+		try {
+			SocialNetwork sn = new SocialNetwork();
+			sn.addMember("Lise", "lise", "amatrice de films noirs");
+			sn.addMember("Marc", "marc", "ne jure que par Melville");
+			sn.addMember("Nora", "nora", "lectrice de Simenon");
+			sn.addItemFilm("Lise", "lise", "Le Cercle rouge", "Policier", "Jean-Pierre Melville", "Jean-Pierre Melville", 140);
+			sn.addItemFilm("Lise", "lise", "Mélodie en sous-sol", "Policier", "Henri Verneuil", "Albert Simonin", 121);
+			sn.addItemFilm("Marc", "marc", "Le Samouraï", "Policier", "Jean-Pierre Melville", "Jean-Pierre Melville", 105);
+			sn.addItemFilm("Marc", "marc", "Les Tontons flingueurs", "Comédie", "Georges Lautner", "Michel Audiard", 105);
+			sn.addItemFilm("Nora", "nora", "Garde à vue", " policier ", "Claude Miller", "Michel Audiard", 87);
+			sn.addItemBook("Nora", "nora", "Maigret tend un piège", "Roman policier", "Georges Simenon", 220);
+			sn.reviewItemFilm("Marc", "marc", "Le Cercle rouge", 3.5f, "un peu lent");
+			sn.reviewItemFilm("Lise", "lise", "Mélodie en sous-sol", 5.0f, "Gabin et Delon");
+			sn.reviewItemFilm("Marc", "marc", "Mélodie en sous-sol", 4.0f, "la piscine !");
+			sn.reviewItemFilm("Lise", "lise", "Le Samouraï", 4.0f, "glacial");
+			sn.reviewItemFilm("Nora", "nora", "Les Tontons flingueurs", 5.0f, "culte");
+			sn.reviewItemBook("Nora", "nora", "Maigret tend un piège", 2.5f, "trop court");
+
+			// Garde à vue, de genre " policier ", est compté avec Policier mais n'est pas listé tant qu'il n'est pas noté
+			nbTests++;
+			nbErreurs += valeurTest(sn.facettesFilms().toString(), "{Policier=4, Comédie=1}", "19.1", "nombre de films par genre incorrect");
+			nbTests++;
+			nbErreurs += TestClassement.classementTest(sn.filmsParNote(" POLICIER ", 10), "Mélodie en sous-sol,Le Samouraï,Le Cercle rouge", "19.2", "films d'un genre par note incorrects");
+			nbTests++;
+			nbErreurs += TestClassement.classementTest(sn.filmsParNote("Policier", 2), "Mélodie en sous-sol,Le Samouraï", "19.3", "le nombre maximal de films n'est pas respecté");
+			nbTests++;
+			nbErreurs += valeurTest(sn.moyenneFilms("policier"), 4.0f, "19.4", "moyenne d'un genre incorrecte");
+
+			// Une nouvelle review met à jour la liste et la moyenne du genre
+			sn.reviewItemFilm("Nora", "nora", "Le Samouraï", 1.0f, "rien compris");
+			nbTests++;
+			nbErreurs += TestClassement.classementTest(sn.filmsParNote("Policier", 10), "Mélodie en sous-sol,Le Cercle rouge,Le Samouraï", "19.5", "liste d'un genre non mise à jour");
+			nbTests++;
+			nbErreurs += valeurTest(sn.moyenneFilms("Policier"), 3.5f, "19.6", "moyenne d'un genre non mise à jour");
+
+			nbTests++;
+			nbErreurs += valeurTest(sn.facettesBooks().toString() + sn.moyenneBooks("roman POLICIER") + sn.booksParNote("Roman policier", 10).size(), "{Roman policier=1}2.51", "19.7", "facette des livres incorrecte");
+			nbTests++;
+			nbErreurs += valeurTest(sn.moyenneFilms("Western") + "/" + sn.filmsParNote("Western", 10).size(), "0.0/0", "19.8", "un genre inconnu a des films");
+
+			nbTests++;
+			try {
+				sn.filmsParNote(null, 10);
+				System.out.println("Test 19.9 : un genre non instancié est accepté");
+				nbErreurs++;
+			}
+			catch (BadEntry e) {
+			}
+		}
+		catch (Exception e) {
+			System.out.println ("Test 19 : exception non prévue. " + e); 
+			e.printStackTrace();
+			nbTests++;
+			nbErreurs++;
+		}
+
+		System.out.println("TestFacette :   " + nbErreurs + " erreur(s) / " +  nbTests + " tests effectués");
+
+		if ((args != null) && (args.length == 2)) {        
+			nbTests = nbTests + new Integer(args[0]);
+			nbErreurs = nbErreurs + new Integer(args[1]);       
+			args[0] = "" + nbTests;
+			args[1] = "" + nbErreurs;
+		}
+	}
+}
@@ -0,0 +1,118 @@
+package test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import avis.CategorieErreur;
+import avis.RapportImport;
+import avis.SocialNetwork;
+
+/** 
+ * @author Yann Andreu et Yannick Omnès
+ * @date mars 2015
+ * @version V1.0
+ */
+
+public class TestImport {
+
+
+	/**
+	 * Vérifie qu'une ligne du rapport a été rejetée avec la catégorie attendue
+	 */
+	public static int erreurTest (RapportImport rapport, int ligne, CategorieErreur categorie, String idTest, String messErreur){
+		for (int i = 0; i < rapport.getErreurs().size(); i++)
+			if (rapport.getErreurs().get(i).getLigne() == ligne) {
+				if (rapport.getErreurs().get(i).getCategorie() == categorie)
+					return 0;
+				System.out.println("Test " + idTest + " : " + messErreur + " (catégorie " + rapport.getErreurs().get(i).getCategorie() + ")");
+				return 1;
+			}
+		System.out.println("Test " + idTest + " : " + messErreur + " (ligne acceptée)");
+		return 1;
+	}
+
+
+	public static void main(String[] args) {
+
+		int nbTests = 0;
+		int nbErreurs = 0;
+
+		System.out.println("Tests d'import en masse");
+
+		try {
+			Path dossier = Files.createTempDirectory("import");
+
+			// ================================ CSV ================================
+			Path csv = dossier.resolve("catalogue.csv");
+			Files.write(csv, Arrays.asList(
+					"type,parametres...",
+					"membre,Paul,paul,lecteur impulsif",
+					"avis_film,Paul,paul,Oblivion,4,\"bien, sans plus\"",   // review d'un film défini plus loin
+					"film,Paul,paul,Oblivion,SF,Joseph Kosinski,Joseph Kosinski,124",
+					"membre, paul ,autre,doublon",
+					"film,Paul,mauvais,Germinal,SF,R,S,100",
+					"livre,Paul,paul,Germinal,Roman,Emile Zola,591",
+					"livre,Paul,paul,germinal ,Roman,Emile Zola,591",
+					"avis_livre,Paul,paul,Inconnu,3,\"\"",
+					"avis_livre,Paul,paul,Germinal,7,trop",
+					"membre,Alice",
+					"",
+					"avis_livre,Paul,paul,Germinal,5,\"chef d'oeuvre\""), StandardCharsets.UTF_8);
+			SocialNetwork sn = new SocialNetwork();
+			RapportImport rapport = sn.importer(csv);
+
+			nbTests++;
+			if (sn.nbMembers() != 1 || sn.nbFilms() != 1 || sn.nbBooks() != 1 || rapport.nbAcceptees() != 5) {
+				System.out.println("Test 11.1 : l'import CSV n'a pas appliqué les lignes correctes\n" + rapport);
+				nbErreurs++;
+			}
+			nbTests++;
+			nbErreurs += erreurTest(rapport, 5, CategorieErreur.MEMBER_ALREADY_EXISTS, "11.2", "un pseudo existant (casse et blancs différents) est accepté");
+			nbTests++;
+			nbErreurs += erreurTest(rapport, 6, CategorieErreur.NOT_MEMBER, "11.3", "un item créé avec un mauvais password est accepté");
+			nbTests++;
+			nbErreurs += erreurTest(rapport, 8, CategorieErreur.ITEM_BOOK_ALREADY_EXISTS, "11.4", "un livre existant (casse et blancs différents) est accepté");
+			nbTests++;
+			nbErreurs += erreurTest(rapport, 9, CategorieErreur.NOT_ITEM, "11.5", "une review sur un livre inexistant est acceptée");
+			nbTests++;
+			nbErreurs += erreurTest(rapport, 10, CategorieErreur.BAD_ENTRY, "11.6", "une note supérieure à 5 est acceptée");
+			nbTests++;
+			nbErreurs += erreurTest(rapport, 11, CategorieErreur.BAD_ENTRY, "11.7", "une ligne incomplète est acceptée");
+
+			// ================================ JSONL ==============================
+			Path jsonl = dossier.resolve("catalogue.jsonl");
+			Files.write(jsonl, Arrays.asList(
+					"{\"type\":\"membre\",\"pseudo\":\"Alice\",\"password\":\"alice\",\"profil\":\"cin\\u00e9phile\"}",
+					"{\"type\":\"avis_film\",\"pseudo\":\"Alice\",\"password\":\"alice\",\"titre\":\"Oblivion\",\"note\":2,\"commentaire\":\"bof\\nvraiment\"}",
+					"{\"type\":\"avis_film\",\"pseudo\":\"Alice\",\"password\":\"alice\",\"titre\":\"Oblivion\",\"note\":null,\"commentaire\":\"\"}",
+					"{\"type\":\"film\",\"pseudo\":\"Alice\""), StandardCharsets.UTF_8);
+			rapport = sn.importer(jsonl);
+			nbTests++;
+			if (sn.nbMembers() != 2 || rapport.nbAcceptees() != 2 || sn.reviewItemFilm("Alice", "alice", "Oblivion", 2.0f, "bof") != 3.0f) {
+				System.out.println("Test 11.8 : l'import JSONL n'a pas appliqué les lignes correctes\n" + rapport);
+				nbErreurs++;
+			}
+			nbTests++;
+			nbErreurs += erreurTest(rapport, 3, CategorieErreur.BAD_ENTRY, "11.9", "une review sans note est acceptée");
+			nbTests++;
+			nbErreurs += erreurTest(rapport, 4, CategorieErreur.BAD_ENTRY, "11.10", "une ligne JSON mal formée est acceptée");
+		}
+		catch (Exception e) {
+			System.out.println ("Test 11 : exception non prévue. " + e); 
+			e.printStackTrace();
+			nbTests++;
+			nbErreurs++;
+		}
+
+		System.out.println("TestImport :   " + nbErreurs + " erreur(s) / " +  nbTests + " tests effectués");
+
+		if ((args != null) && (args.length == 2)) {        
+			nbTests = nbTests + new Integer(args[0]);
+			nbErreurs = nbErreurs + new Integer(args[1]);       
+			args[0] = "" + nbTests;
+			args[1] = "" + nbErreurs;
+		}
+	}
+}
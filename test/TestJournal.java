@@ -0,0 +1,377 @@
+package test;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import avis.PolitiqueSynchronisation;
+import avis.SocialNetwork;
+
+/** 
+ * @author Yann Andreu et Yannick Omnès
+ * @date mars 2015
+ * @version V1.0
+ */
+
+public class TestJournal {
+
+
+	/**
+	 * Remplit un SocialNetwork durable, le ferme puis le rouvre, et vérifie que tout a été rejoué
+	 */
+	public static int rejeuTest (Path fichier, PolitiqueSynchronisation politique, String idTest){
+		try {
+			SocialNetwork sn = new SocialNetwork(fichier, politique, 10);
+			sn.addMember("Paul", "paul", "lecteur impulsif");
+			sn.addMember("Alice", "alice", "grande cinéphile");
+			sn.addItemFilm("Paul", "paul", "Oblivion", "SF", "Joseph Kosinski", "Joseph Kosinski", 124);
+			sn.addItemBook("Alice", "alice", "Germinal", "Roman", "Emile Zola", 591);
+			sn.reviewItemFilm("Paul", "paul", "Oblivion", 2.0f, "bof");
+			sn.reviewItemFilm("Alice", "alice", "Oblivion", 4.0f, "pas mal");
+			sn.reviewItemFilm("Paul", "paul", "Oblivion", 3.0f, "finalement pas si mal");
+			sn.reviewItemBook("Alice", "alice", "Germinal", 5.0f, "chef d'oeuvre");
+			sn.close();
+
+			SocialNetwork relu = new SocialNetwork(fichier, politique, 10);
+			boolean ok = relu.nbMembers() == 2 && relu.nbFilms() == 1 && relu.nbBooks() == 1
+					&& relu.toString().equals(sn.toString());
+			relu.close();
+			if (!ok) {
+				System.out.println("Test " + idTest + " : le SocialNetwork rejoué depuis le journal diffère de l'original");
+				return 1;
+			}
+			return 0;
+		}
+		catch (Exception e) {
+			System.out.println ("Test " + idTest + " : exception non prévue. " + e); 
+			e.printStackTrace();
+			return 1;
+		}
+	}
+
+	/**
+	 * Vérifie qu'un enregistrement tronqué en fin de journal (arrêt brutal) est ignoré au rejeu
+	 */
+	public static int journalTronqueTest (Path fichier, String idTest){
+		try {
+			SocialNetwork sn = new SocialNetwork(fichier, PolitiqueSynchronisation.A_CHAQUE_ECRITURE, 0);
+			sn.addMember("Paul", "paul", "lecteur impulsif");
+			sn.addMember("Alice", "alice", "grande cinéphile");
+			sn.close();
+			RandomAccessFile f = new RandomAccessFile(fichier.toFile(), "rw");
+			f.setLength(f.length() - 3);
+			f.close();
+
+			SocialNetwork relu = new SocialNetwork(fichier, PolitiqueSynchronisation.A_CHAQUE_ECRITURE, 0);
+			relu.addMember("Antoine", "antoine", "");
+			relu.close();
+			relu = new SocialNetwork(fichier, PolitiqueSynchronisation.A_CHAQUE_ECRITURE, 0);
+			int nbMembres = relu.nbMembers();
+			relu.close();
+			if (nbMembres != 2) {
+				System.out.println("Test " + idTest + " : un journal tronqué n'est pas correctement rejoué");
+				return 1;
+			}
+			return 0;
+		}
+		catch (Exception e) {
+			System.out.println ("Test " + idTest + " : exception non prévue. " + e); 
+			e.printStackTrace();
+			return 1;
+		}
+	}
+
+
+	/**
+	 * Canal qui, en panne, n'écrit que la moitié de ce qu'on lui demande puis échoue (disque plein)
+	 */
+	static class CanalDefaillant extends FileChannel {
+		private final FileChannel canal;
+		volatile boolean enPanne = false;
+
+		CanalDefaillant(FileChannel canal) {
+			this.canal = canal;
+		}
+
+		private void ecrireMoitie(ByteBuffer src, long position) throws IOException {
+			ByteBuffer moitie = src.duplicate();
+			moitie.limit(src.position() + src.remaining() / 2);
+			canal.write(moitie, position);
+			throw new IOException("disque plein");
+		}
+
+		public int write(ByteBuffer src, long position) throws IOException {
+			if (enPanne)
+				ecrireMoitie(src, position);
+			return canal.write(src, position);
+		}
+
+		public int write(ByteBuffer src) throws IOException {
+			if (enPanne)
+				ecrireMoitie(src, canal.position());
+			return canal.write(src);
+		}
+
+		public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+			if (enPanne)
+				throw new IOException("disque plein");
+			return canal.write(srcs, offset, length);
+		}
+
+		public void force(boolean metaData) throws IOException {
+			if (enPanne)
+				throw new IOException("disque plein");
+			canal.force(metaData);
+		}
+
+		public int read(ByteBuffer dst) throws IOException {
+			return canal.read(dst);
+		}
+
+		public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+			return canal.read(dsts, offset, length);
+		}
+
+		public int read(ByteBuffer dst, long position) throws IOException {
+			return canal.read(dst, position);
+		}
+
+		public long position() throws IOException {
+			return canal.position();
+		}
+
+		public FileChannel position(long newPosition) throws IOException {
+			canal.position(newPosition);
+			return this;
+		}
+
+		public long size() throws IOException {
+			return canal.size();
+		}
+
+		public FileChannel truncate(long size) throws IOException {
+			canal.truncate(size);
+			return this;
+		}
+
+		public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+			return canal.transferTo(position, count, target);
+		}
+
+		public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+			return canal.transferFrom(src, position, count);
+		}
+
+		public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+			return canal.map(mode, position, size);
+		}
+
+		public FileLock lock(long position, long size, boolean shared) throws IOException {
+			return canal.lock(position, size, shared);
+		}
+
+		public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+			return canal.tryLock(position, size, shared);
+		}
+
+		protected void implCloseChannel() throws IOException {
+			canal.close();
+		}
+	}
+
+	/**
+	 * Construit un <i>SocialNetwork</i> non durable, puis lui associe un journal écrit sur ce canal.
+	 * Le journal, interne au paquetage avis, est construit par réflexion.
+	 */
+	static SocialNetwork reseauSurCanal(FileChannel canal) throws Exception {
+		Class<?> classeJournal = Class.forName("avis.Journal");
+		Constructor<?> constructeur = classeJournal.getDeclaredConstructor(FileChannel.class, PolitiqueSynchronisation.class, long.class);
+		constructeur.setAccessible(true);
+		SocialNetwork sn = new SocialNetwork();
+		Field journal = SocialNetwork.class.getDeclaredField("journal");
+		journal.setAccessible(true);
+		journal.set(sn, constructeur.newInstance(canal, PolitiqueSynchronisation.A_CHAQUE_ECRITURE, 0L));
+		return sn;
+	}
+
+	/**
+	 * Vérifie qu'un lot dont l'écriture échoue (en laissant un enregistrement écrit en partie) est réécrit
+	 * à la reprise, et que les mutations refusées entre-temps ne sont appliquées ni en mémoire ni dans le journal.
+	 */
+	public static int echecEcritureTest (Path fichier, String idTest){
+		try {
+			CanalDefaillant canal = new CanalDefaillant(FileChannel.open(fichier, StandardOpenOption.CREATE, StandardOpenOption.WRITE));
+			SocialNetwork sn = reseauSurCanal(canal);
+
+			sn.addMember("Paul", "paul", "lecteur impulsif");
+			canal.enPanne = true;
+			boolean signale = false;
+			try {
+				sn.addMember("Alice", "alice", "grande cinéphile"); // appliquée en mémoire, écrite à la reprise
+			}
+			catch (UncheckedIOException e) {
+				signale = true;
+			}
+			boolean refusee = false;
+			try {
+				sn.addMember("Antoine", "antoine", "");
+			}
+			catch (UncheckedIOException e) {
+				refusee = true;
+			}
+			int nbMembresEnPanne = sn.nbMembers();
+			canal.enPanne = false;
+			sn.addMember("Louis", "louis", "");
+			sn.close();
+
+			SocialNetwork relu = new SocialNetwork(fichier, PolitiqueSynchronisation.A_CHAQUE_ECRITURE, 0);
+			String membres = relu.toString();
+			int nbMembres = relu.nbMembers();
+			relu.close();
+			if (!signale || !refusee || nbMembresEnPanne != 2 || nbMembres != 3 || !membres.contains("Alice")
+					|| !membres.contains("Louis") || membres.contains("Antoine")) {
+				System.out.println("Test " + idTest + " : échec d'écriture mal géré (signalé : " + signale + ", refusée : " + refusee
+						+ ", membres en panne : " + nbMembresEnPanne + ", membres rejoués : " + nbMembres + ")");
+				return 1;
+			}
+			return 0;
+		}
+		catch (Exception e) {
+			System.out.println ("Test " + idTest + " : exception non prévue. " + e); 
+			e.printStackTrace();
+			return 1;
+		}
+	}
+
+
+	/**
+	 * Ecrit un instantané au milieu de l'activité, puis vérifie qu'un redémarrage depuis l'instantané
+	 * et la fin du journal redonne le même SocialNetwork
+	 */
+	public static int instantaneTest (Path instantane, Path fichier, String idTest){
+		try {
+			SocialNetwork sn = new SocialNetwork(instantane, fichier, PolitiqueSynchronisation.SYSTEME, 0);
+			sn.addMember("Paul", "paul", "lecteur impulsif");
+			sn.addMember("Alice", "alice", "grande cinéphile");
+			sn.addItemFilm("Paul", "paul", "Oblivion", "SF", "Joseph Kosinski", "Joseph Kosinski", 124);
+			sn.reviewItemFilm("Paul", "paul", "Oblivion", 2.0f, "bof");
+			sn.ecrireInstantane(instantane);
+			sn.addItemBook("Alice", "alice", "Germinal", "Roman", "Emile Zola", 591);
+			sn.reviewItemFilm("Alice", "alice", "Oblivion", 4.0f, "pas mal");
+			sn.reviewItemBook("Alice", "alice", "Germinal", 5.0f, "chef d'oeuvre");
+			sn.close();
+
+			SocialNetwork relu = new SocialNetwork(instantane, fichier, PolitiqueSynchronisation.SYSTEME, 0);
+			boolean ok = relu.toString().equals(sn.toString());
+			relu.close();
+			SocialNetwork instantaneSeul = new SocialNetwork(instantane, null, null, 0);
+			ok = ok && instantaneSeul.nbMembers() == 2 && instantaneSeul.nbFilms() == 1 && instantaneSeul.nbBooks() == 0;
+			if (!ok) {
+				System.out.println("Test " + idTest + " : le SocialNetwork rechargé depuis l'instantané et le journal diffère de l'original");
+				return 1;
+			}
+			return 0;
+		}
+		catch (Exception e) {
+			System.out.println ("Test " + idTest + " : exception non prévue. " + e); 
+			e.printStackTrace();
+			return 1;
+		}
+	}
+
+	/**
+	 * Ecrit un instantané alors que le journal périodique n'a encore rien écrit, puis simule un arrêt brutal :
+	 * les mutations ajoutées après le redémarrage doivent être rejouées au redémarrage suivant.
+	 * Un journal plus court que la position de l'instantané est ensuite refusé.
+	 */
+	public static int instantaneAvantSynchronisationTest (Path instantane, Path fichier, String idTest){
+		try {
+			SocialNetwork sn = new SocialNetwork(instantane, fichier, PolitiqueSynchronisation.PERIODIQUE, 3600000);
+			for (int i = 0; i < 50; i++)
+				sn.addMember("Membre" + i, "password", "profil");
+			sn.ecrireInstantane(instantane);
+			// arrêt brutal : sn n'est pas fermé
+
+			SocialNetwork redemarre = new SocialNetwork(instantane, fichier, PolitiqueSynchronisation.A_CHAQUE_ECRITURE, 0);
+			redemarre.addMember("Membre50", "password", "profil");
+			redemarre.addMember("Membre51", "password", "profil");
+			redemarre.close();
+			SocialNetwork relu = new SocialNetwork(instantane, fichier, PolitiqueSynchronisation.SYSTEME, 0);
+			int nb = relu.nbMembers();
+			relu.close();
+			if (nb != 52) {
+				System.out.println("Test " + idTest + " : " + nb + " membres après redémarrage au lieu de 52");
+				return 1;
+			}
+
+			try (FileChannel canal = FileChannel.open(fichier, StandardOpenOption.WRITE)) {
+				canal.truncate(canal.size() / 2);
+			}
+			try {
+				new SocialNetwork(instantane, fichier, PolitiqueSynchronisation.SYSTEME, 0).close();
+				System.out.println("Test " + idTest + " : un journal plus court que l'instantané est accepté");
+				return 1;
+			}
+			catch (IOException e) {
+			}
+			return 0;
+		}
+		catch (Exception e) {
+			System.out.println ("Test " + idTest + " : exception non prévue. " + e); 
+			e.printStackTrace();
+			return 1;
+		}
+	}
+
+
+	public static void main(String[] args) {
+
+		int nbTests = 0;
+		int nbErreurs = 0;
+
+		System.out.println("Tests du journal des mutations et des instantanés");
+
+		try {
+			Path dossier = Files.createTempDirectory("journal");
+			int i = 0;
+			for (PolitiqueSynchronisation politique : PolitiqueSynchronisation.values()) {
+				nbTests++;
+				nbErreurs += rejeuTest(dossier.resolve("journal" + i), politique, "9.1" + (char) ('a' + i));
+				i++;
+			}
+			nbTests++;
+			nbErreurs += journalTronqueTest(dossier.resolve("tronque"), "9.2");
+			nbTests++;
+			nbErreurs += echecEcritureTest(dossier.resolve("echec"), "9.3");
+			nbTests++;
+			nbErreurs += instantaneTest(dossier.resolve("instantane"), dossier.resolve("journalInstantane"), "10.1");
+			nbTests++;
+			nbErreurs += instantaneAvantSynchronisationTest(dossier.resolve("instantanePeriodique"), dossier.resolve("journalPeriodique"), "10.2");
+		}
+		catch (Exception e) {
+			System.out.println("Impossible de créer le dossier temporaire des journaux : " + e);
+			nbTests++;
+			nbErreurs++;
+		}
+
+		System.out.println("TestJournal :   " + nbErreurs + " erreur(s) / " +  nbTests + " tests effectués");
+
+		if ((args != null) && (args.length == 2)) {        
+			nbTests = nbTests + new Integer(args[0]);
+			nbErreurs = nbErreurs + new Integer(args[1]);       
+			args[0] = "" + nbTests;
+			args[1] = "" + nbErreurs;
+		}
+	}
+}
@@ -0,0 +1,143 @@
+package test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import avis.PolitiqueSynchronisation;
+import avis.SocialNetwork;
+import exception.BadEntry;
+import exception.NotItem;
+
+/** 
+ * @author Yann Andreu et Yannick Omnès
+ * @date mars 2015
+ * @version V1.0
+ */
+
+public class TestKarma {
+
+
+	/**
+	 * Vérifie la note moyenne d'un film, obtenue en déposant à nouveau une review inchangée
+	 */
+	public static int moyenneTest (SocialNetwork sn, String pseudo, String pwd, String titre, float note, float moyenneAttendue, String idTest, String messErreur){
+		try {
+			float moyenne = sn.reviewItemFilm(pseudo, pwd, titre, note, "review");
+			if (Math.abs(moyenne - moyenneAttendue) < 1e-4)
+				return 0;
+			System.out.println("Test " + idTest + " : " + messErreur + " (moyenne " + moyenne + " au lieu de " + moyenneAttendue + ")");
+			return 1;
+		}
+		catch (Exception e) {
+			System.out.println("Test " + idTest + " : exception non prévue. " + e);
+			return 1;
+		}
+	}
+
+
+	public static void main(String[] args) {
+
+		int nbTests = 0;
+		int nbErreurs = 0;
+
+		System.out.println("Tests du karma");
+
+		try {
+			Path dossier = Files.createTempDirectory("karma");
+			Path journal = dossier.resolve("journal.bin");
+			SocialNetwork sn = new SocialNetwork(journal, PolitiqueSynchronisation.SYSTEME, 0);
+			sn.addMember("Paul", "paul", "lecteur impulsif");
+			sn.addMember("Alice", "alice", "cinéphile");
+			sn.addMember("Jean", "jean", "critique");
+			sn.addItemFilm("Paul", "paul", "Oblivion", "SF", "Joseph Kosinski", "Joseph Kosinski", 124);
+			sn.addItemFilm("Paul", "paul", "Solaris", "SF", "Andreï Tarkovski", "Andreï Tarkovski", 167);
+
+			// Sans évaluation, tous les karmas sont égaux : la moyenne n'est pas pondérée
+			sn.reviewItemFilm("Alice", "alice", "Oblivion", 1.0f, "review");
+			nbTests++;
+			nbErreurs += moyenneTest(sn, "Paul", "paul", "Oblivion", 5.0f, 3.0f, "15.1", "moyenne incorrecte sans évaluation");
+
+			// Paul obtient un karma de 5 : ses reviews pèsent deux fois plus que celle d'Alice (karma 2.5)
+			nbTests++;
+			float karma = sn.reviewOpinionFilm("Jean", "jean", "Oblivion", "Paul", 5.0f);
+			if (karma != 5.0f) {
+				System.out.println("Test 15.2 : karma de Paul incorrect (" + karma + ")");
+				nbErreurs++;
+			}
+			nbTests++;
+			nbErreurs += moyenneTest(sn, "Alice", "alice", "Oblivion", 1.0f, 27.5f / 7.5f, "15.3", "la moyenne n'est pas pondérée par le karma");
+
+			// Une nouvelle review de Paul est pondérée par son karma actuel
+			sn.reviewItemFilm("Alice", "alice", "Solaris", 2.0f, "review");
+			nbTests++;
+			nbErreurs += moyenneTest(sn, "Paul", "paul", "Solaris", 4.0f, 25.0f / 7.5f, "15.4", "une nouvelle review n'est pas pondérée par le karma de son auteur");
+
+			// Une évaluation modifiée remplace l'ancienne, et le karma est propagé à tous les films de Paul
+			nbTests++;
+			karma = sn.reviewOpinionFilm("Jean", "jean", "Solaris", "Paul", 1.0f);
+			float karmaAlice = sn.reviewOpinionFilm("Jean", "jean", "Oblivion", "Alice", 0.0f);
+			if (karma != 3.0f || karmaAlice != 0.0f) {
+				System.out.println("Test 15.5 : karmas incorrects (" + karma + ", " + karmaAlice + ")");
+				nbErreurs++;
+			}
+			nbTests++;
+			nbErreurs += moyenneTest(sn, "Alice", "alice", "Solaris", 2.0f, 4.0f, "15.6", "le karma n'est pas propagé aux films de l'auteur");
+
+			nbTests++;
+			try {
+				sn.reviewOpinionFilm("Paul", "paul", "Oblivion", " paul ", 5.0f);
+				System.out.println("Test 15.7 : un membre peut évaluer sa propre review");
+				nbErreurs++;
+			}
+			catch (BadEntry e) {
+			}
+			nbTests++;
+			try {
+				sn.reviewOpinionFilm("Paul", "paul", "Oblivion", "Jean", 5.0f);
+				System.out.println("Test 15.8 : l'évaluation d'une review inexistante est acceptée");
+				nbErreurs++;
+			}
+			catch (NotItem e) {
+			}
+
+			// Les évaluations sont rejouées depuis le journal, puis rechargées depuis un instantané
+			sn.close();
+			SocialNetwork rejoue = new SocialNetwork(journal, PolitiqueSynchronisation.SYSTEME, 0);
+			nbTests++;
+			nbErreurs += moyenneTest(rejoue, "Alice", "alice", "Solaris", 2.0f, 4.0f, "15.9", "les évaluations ne sont pas rejouées depuis le journal");
+			Path instantane = dossier.resolve("instantane.bin");
+			rejoue.ecrireInstantane(instantane);
+			rejoue.close();
+			SocialNetwork charge = new SocialNetwork(instantane, null, PolitiqueSynchronisation.SYSTEME, 0);
+			nbTests++;
+			nbErreurs += moyenneTest(charge, "Alice", "alice", "Oblivion", 1.0f, 5.0f, "15.10", "les évaluations ne sont pas chargées depuis l'instantané");
+
+			// Les sommes d'évaluations sont restaurées, pas seulement le karma : une nouvelle évaluation donne
+			// le même karma et les mêmes moyennes qu'après un rejeu complet du journal
+			SocialNetwork relu = new SocialNetwork(journal, PolitiqueSynchronisation.SYSTEME, 0);
+			float karmaRelu = relu.reviewOpinionFilm("Jean", "jean", "Solaris", "Alice", 1.0f);
+			float karmaCharge = charge.reviewOpinionFilm("Jean", "jean", "Solaris", "Alice", 1.0f);
+			nbTests++;
+			if (karmaCharge != karmaRelu || !charge.toString().equals(relu.toString())) {
+				System.out.println("Test 15.11 : karma restauré depuis l'instantané incorrect (" + karmaCharge + " au lieu de " + karmaRelu + ")");
+				nbErreurs++;
+			}
+			relu.close();
+		}
+		catch (Exception e) {
+			System.out.println ("Test 15 : exception non prévue. " + e); 
+			e.printStackTrace();
+			nbTests++;
+			nbErreurs++;
+		}
+
+		System.out.println("TestKarma :   " + nbErreurs + " erreur(s) / " +  nbTests + " tests effectués");
+
+		if ((args != null) && (args.length == 2)) {        
+			nbTests = nbTests + new Integer(args[0]);
+			nbErreurs = nbErreurs + new Integer(args[1]);       
+			args[0] = "" + nbTests;
+			args[1] = "" + nbErreurs;
+		}
+	}
+}
@@ -0,0 +1,135 @@
+package test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+import javax.management.ObjectName;
+
+import avis.MesuresMXBean;
+import avis.SocialNetwork;
+import exception.BadEntry;
+import exception.NotMember;
+
+/** 
+ * @author Yann Andreu et Yannick Omnès
+ * @date mars 2015
+ * @version V1.0
+ */
+
+public class TestMesures {
+
+
+	/**
+	 * Vérifie un nombre d'appels mesuré
+	 */
+	public static int appelsTest (Map<String, Long> appels, String cle, long attendu, String idTest, String messErreur){
+		Long n = appels.get(cle);
+		if ((n == null ? 0 : n) == attendu)
+			return 0;
+		System.out.println("Test " + idTest + " : " + messErreur + " (" + n + " appels " + cle + " au lieu de " + attendu + ")");
+		return 1;
+	}
+
+
+	public static void main(String[] args) {
+
+		int nbTests = 0;
+		int nbErreurs = 0;
+
+		System.out.println("Tests des mesures des opérations");
+
+		SocialNetwork sn = new SocialNetwork();
+		try {
+			sn.addMember("Paul", "paul", "lecteur impulsif");
+			sn.addItemFilm("Paul", "paul", "Le Grand Bleu", "Drame", "Luc Besson", "Luc Besson", 168);
+			try {
+				sn.addItemFilm("Paul", "faux", "Nikita", "Action", "Luc Besson", "Luc Besson", 117);
+			}
+			catch (NotMember e) {
+			}
+			sn.tryReviewItemFilm("Paul", "paul", "Le Grand Bleu", 4.0f, "Magnifique");
+			sn.tryReviewItemFilm("Paul", "paul", "Inconnu", 4.0f, "Absent");
+			for (int i = 0; i < 10000; i++)
+				sn.consultItems("Le Grand Bleu");
+			try {
+				sn.consultItems(" ");
+			}
+			catch (BadEntry e) {
+			}
+
+			MesuresMXBean mesures = sn.getMesures();
+			Map<String, Long> appels = mesures.getAppels();
+			nbTests++;
+			nbErreurs += appelsTest(appels, "addMember:OK", 1, "24.1", "ajout de membre mal compté");
+			nbTests++;
+			nbErreurs += appelsTest(appels, "addItemFilm:NOT_MEMBER", 1, "24.2", "refus d'un ajout de film mal compté");
+			nbTests++;
+			nbErreurs += appelsTest(appels, "reviewItemFilm:FILM_INCONNU", 1, "24.3", "refus d'une review mal compté");
+			nbTests++;
+			nbErreurs += appelsTest(appels, "consultItems:OK", 10000, "24.4", "consultations mal comptées");
+			nbTests++;
+			nbErreurs += appelsTest(appels, "consultItems:NOM_INCORRECT", 1, "24.5", "consultation refusée mal comptée");
+
+			long p50 = mesures.getP50Nanos().get("consultItems");
+			long p99 = mesures.getP99Nanos().get("consultItems");
+			long p999 = mesures.getP999Nanos().get("consultItems");
+			nbTests++;
+			if (p50 <= 0 || p50 > p99 || p99 > p999) {
+				System.out.println("Test 24.6 : centiles incohérents (" + p50 + ", " + p99 + ", " + p999 + ")");
+				nbErreurs++;
+			}
+
+			nbTests++;
+			if (!mesures.getRapport().contains("consultItems") || !mesures.getRapport().contains("NOT_MEMBER")) {
+				System.out.println("Test 24.7 : rapport incomplet\n" + mesures.getRapport());
+				nbErreurs++;
+			}
+
+			// Exposition JMX, retirée à la fermeture
+			ObjectName nom = sn.exposerMesures("TestMesures");
+			nbTests++;
+			Object lu = ManagementFactory.getPlatformMBeanServer().getAttribute(nom, "Rapport");
+			if (!mesures.getRapport().equals(lu)) {
+				System.out.println("Test 24.8 : mesures mal exposées par JMX");
+				nbErreurs++;
+			}
+
+			// Une nouvelle exposition remplace la précédente, et le même nom peut être redemandé
+			ObjectName autre = sn.exposerMesures("TestMesures bis");
+			nbTests++;
+			if (ManagementFactory.getPlatformMBeanServer().isRegistered(nom) || !ManagementFactory.getPlatformMBeanServer().isRegistered(autre)
+					|| !sn.exposerMesures("TestMesures bis").equals(autre)) {
+				System.out.println("Test 24.11 : l'exposition précédente des mesures n'est pas retirée");
+				nbErreurs++;
+			}
+			sn.close();
+			nbTests++;
+			if (ManagementFactory.getPlatformMBeanServer().isRegistered(nom) || ManagementFactory.getPlatformMBeanServer().isRegistered(autre)) {
+				System.out.println("Test 24.9 : mesures encore exposées après la fermeture");
+				nbErreurs++;
+			}
+
+			mesures.reinitialiser();
+			nbTests++;
+			if (!mesures.getAppels().isEmpty()) {
+				System.out.println("Test 24.10 : mesures non remises à zéro");
+				nbErreurs++;
+			}
+		}
+		catch (Exception e) {
+			System.out.println ("Test 24 : exception non prévue. " + e); 
+			e.printStackTrace();
+			nbTests++;
+			nbErreurs++;
+		}
+
+		System.out.println("TestMesures :   " + nbErreurs + " erreur(s) / " +  nbTests + " tests effectués");
+
+		if ((args != null) && (args.length == 2)) {        
+			nbTests = nbTests + new Integer(args[0]);
+			nbErreurs = nbErreurs + new Integer(args[1]);       
+			args[0] = "" + nbTests;
+			args[1] = "" + nbErreurs;
+		}
+	}
+}
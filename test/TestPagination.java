@@ -0,0 +1,123 @@
+package test;
+
+import java.util.List;
+
+import avis.CurseurReviews;
+import avis.PageReviews;
+import avis.Review;
+import avis.ResumeItem;
+import avis.SocialNetwork;
+import exception.BadEntry;
+
+/** 
+ * @author Yann Andreu et Yannick Omnès
+ * @date mars 2015
+ * @version V1.0
+ */
+
+public class TestPagination {
+
+
+	/**
+	 * Vérifie les auteurs des reviews d'une page, dans l'ordre, et la présence d'une page suivante
+	 */
+	public static int pageTest (PageReviews page, String auteursAttendus, boolean suivanteAttendue, String idTest, String messErreur){
+		StringBuilder auteurs = new StringBuilder();
+		for (Review r : page.getReviews())
+			auteurs.append(auteurs.length() == 0 ? "" : ",").append(r.getMembre().getPseudo());
+		if (auteurs.toString().equals(auteursAttendus) && (page.getSuivante() != null) == suivanteAttendue)
+			return 0;
+		System.out.println("Test " + idTest + " : " + messErreur + " (" + auteurs + ", suivante : " + (page.getSuivante() != null) + ")");
+		return 1;
+	}
+
+
+	public static void main(String[] args) {
+
+		int nbTests = 0;
+		int nbErreurs = 0;
+
+		System.out.println("Tests de la consultation par pages");
+
+		try {
+			SocialNetwork sn = new SocialNetwork();
+			String[] membres = {"M1", "M2", "M3", "M4", "M5"};
+			for (String m : membres)
+				sn.addMember(m, "pass", "profil");
+			sn.addItemFilm("M1", "pass", "Germinal", "Drame", "Claude Berri", "Claude Berri", 160);
+			sn.addItemBook("M1", "pass", "Germinal", "Roman", "Emile Zola", 591);
+			for (int i = 0; i < membres.length; i++)
+				sn.reviewItemFilm(membres[i], "pass", "Germinal", 1.0f + i, "avis " + i);
+
+			List<ResumeItem> resumes = sn.consulterItems(" germinal ");
+			nbTests++;
+			if (resumes.size() != 2 || !resumes.get(0).getGenre().equals("Drame") || resumes.get(0).getNbReviews() != 5
+					|| resumes.get(0).getMoyenne() != 3.0f || resumes.get(1).getNbReviews() != 0) {
+				System.out.println("Test 20.1 : résumés des items incorrects " + resumes);
+				nbErreurs++;
+			}
+
+			PageReviews page = sn.consulterReviews(resumes.get(0).getReviews(), 2);
+			nbTests++;
+			nbErreurs += pageTest(page, "M1,M2", true, "20.2", "première page incorrecte");
+			page = sn.consulterReviews(page.getSuivante(), 2);
+			nbTests++;
+			nbErreurs += pageTest(page, "M3,M4", true, "20.3", "deuxième page incorrecte");
+			CurseurReviews derniere = page.getSuivante();
+			page = sn.consulterReviews(derniere, 2);
+			nbTests++;
+			nbErreurs += pageTest(page, "M5", false, "20.4", "dernière page incorrecte");
+
+			// Une review déposée après la création du curseur apparaît dans la page qu'il désigne
+			sn.addMember("M6", "pass", "profil");
+			sn.reviewItemFilm("M6", "pass", "Germinal", 2.0f, "avis tardif");
+			nbTests++;
+			nbErreurs += pageTest(sn.consulterReviews(derniere, 10), "M5,M6", false, "20.5", "une nouvelle review n'apparaît pas");
+			nbTests++;
+			nbErreurs += pageTest(sn.consulterReviews(resumes.get(1).getReviews(), 10), "", false, "20.6", "un item sans review a des reviews");
+
+			nbTests++;
+			if (!sn.consulterItems("Inconnu").isEmpty()) {
+				System.out.println("Test 20.7 : un item inconnu est trouvé");
+				nbErreurs++;
+			}
+
+			nbTests++;
+			try {
+				sn.consulterReviews(resumes.get(0).getReviews(), 0);
+				System.out.println("Test 20.8 : une taille de page nulle est acceptée");
+				nbErreurs++;
+			}
+			catch (BadEntry e) {
+			}
+
+			// La description d'un résumé reprend les informations de l'item, sans ses reviews
+			StringBuilder film = new StringBuilder();
+			resumes.get(0).writeTo(film);
+			StringBuilder book = new StringBuilder();
+			resumes.get(1).writeTo(book);
+			nbTests++;
+			if (!film.toString().startsWith("\nTitre : Germinal\nGenre : Drame\nRéalisateur : Claude Berri\nScénariste : Claude Berri\nDurée : 160\n")
+					|| !film.toString().endsWith("Note moyenne : 3.0/5 \nAvis : \n")
+					|| !book.toString().contains("Auteur : Emile Zola\nNombre de pages : 591\nNote moyenne : pas encore noté\n")) {
+				System.out.println("Test 20.9 : description des résumés incorrecte" + film + book);
+				nbErreurs++;
+			}
+		}
+		catch (Exception e) {
+			System.out.println ("Test 20 : exception non prévue. " + e); 
+			e.printStackTrace();
+			nbTests++;
+			nbErreurs++;
+		}
+
+		System.out.println("TestPagination :   " + nbErreurs + " erreur(s) / " +  nbTests + " tests effectués");
+
+		if ((args != null) && (args.length == 2)) {        
+			nbTests = nbTests + new Integer(args[0]);
+			nbErreurs = nbErreurs + new Integer(args[1]);       
+			args[0] = "" + nbTests;
+			args[1] = "" + nbErreurs;
+		}
+	}
+}
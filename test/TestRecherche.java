@@ -0,0 +1,87 @@
+package test;
+
+import avis.SocialNetwork;
+import exception.BadEntry;
+
+/** 
+ * @author Yann Andreu et Yannick Omnès
+ * @date mars 2015
+ * @version V1.0
+ */
+
+public class TestRecherche {
+
+
+	/**
+	 * Vérifie les titres trouvés par une recherche, dans l'ordre
+	 */
+	public static int rechercheTest (SocialNetwork sn, String fragment, int max, String titresAttendus, String idTest, String messErreur){
+		try {
+			String titres = TestClassement.titres(sn.rechercherItems(fragment, max));
+			if (titres.equals(titresAttendus))
+				return 0;
+			System.out.println("Test " + idTest + " : " + messErreur + " (" + titres + " au lieu de " + titresAttendus + ")");
+			return 1;
+		}
+		catch (Exception e) {
+			System.out.println("Test " + idTest + " : exception non prévue. " + e);
+			return 1;
+		}
+	}
+
+
+	public static void main(String[] args) {
+
+		int nbTests = 0;
+		int nbErreurs = 0;
+
+		System.out.println("Tests de la recherche par titre");
+
+		try {
+			SocialNetwork sn = new SocialNetwork();
+			sn.addMember("Paul", "paul", "lecteur impulsif");
+			sn.addItemFilm("Paul", "paul", "La Grande Vadrouille", "Comédie", "Gérard Oury", "Gérard Oury", 132);
+			sn.addItemFilm("Paul", "paul", "Le Grand Bleu", "Drame", "Luc Besson", "Luc Besson", 168);
+			sn.addItemBook("Paul", "paul", "Le Grand Meaulnes", "Roman", "Alain-Fournier", 300);
+			sn.addItemFilm("Paul", "paul", "Le Grand Meaulnes", "Drame", "Jean-Gabriel Albicocco", "Jean-Gabriel Albicocco", 110);
+			sn.addItemBook("Paul", "paul", "Germinal", "Roman", "Emile Zola", 591);
+
+			nbTests++;
+			nbErreurs += rechercheTest(sn, " le grand", 10, "Le Grand Bleu,Le Grand Meaulnes,Le Grand Meaulnes", "17.1", "recherche par préfixe incorrecte");
+			nbTests++;
+			nbErreurs += rechercheTest(sn, "grand", 10, "La Grande Vadrouille,Le Grand Bleu,Le Grand Meaulnes,Le Grand Meaulnes", "17.2", "recherche par fragment incorrecte");
+			nbTests++;
+			nbErreurs += rechercheTest(sn, "LA GRAN", 10, "La Grande Vadrouille", "17.3", "recherche par préfixe insensible à la casse incorrecte");
+			nbTests++;
+			nbErreurs += rechercheTest(sn, "grand", 2, "La Grande Vadrouille,Le Grand Bleu", "17.4", "le nombre maximal de résultats n'est pas respecté");
+			nbTests++;
+			nbErreurs += rechercheTest(sn, "ge", 10, "Germinal", "17.5", "un fragment court n'est pas cherché en début de titre");
+			nbTests++;
+			nbErreurs += rechercheTest(sn, "xyz", 10, "", "17.6", "un fragment absent donne des résultats");
+
+			nbTests++;
+			try {
+				sn.rechercherItems("  ", 10);
+				System.out.println("Test 17.7 : un fragment vide est accepté");
+				nbErreurs++;
+			}
+			catch (BadEntry e) {
+			}
+		}
+		catch (Exception e) {
+			System.out.println ("Test 17 : exception non prévue. " + e); 
+			e.printStackTrace();
+			nbTests++;
+			nbErreurs++;
+		}
+
+		System.out.println("TestRecherche :   " + nbErreurs + " erreur(s) / " +  nbTests + " tests effectués");
+
+		if ((args != null) && (args.length == 2)) {        
+			nbTests = nbTests + new Integer(args[0]);
+			nbErreurs = nbErreurs + new Integer(args[1]);       
+			args[0] = "" + nbTests;
+			args[1] = "" + nbErreurs;
+		}
+	}
+}
@@ -2,6 +2,7 @@ package test;
 
 
 
+import avis.Item;
 import avis.SocialNetwork;
 
 import exception.BadEntry;
@@ -105,6 +106,39 @@ public class TestReviewItemFilm {
 
 
 
+	/**
+	 * Vérifie la note moyenne et les notes extrêmes d'un film
+	 * Si elles sont correctes, ne fait rien
+	 * Sinon, affiche le message d'erreur passé en paramètre
+	 * @param sn Le Social Network
+	 * @param titre le titre du film
+	 * @param moyenneAttendue la note moyenne attendue
+	 * @param minAttendue la note minimale attendue (NaN si le film n'a pas été noté)
+	 * @param maxAttendue la note maximale attendue (NaN si le film n'a pas été noté)
+	 * @param idTest l'idTest affecté
+	 * @param messErreur le message d'erreur associé
+	 * @return 1 si erreur détectée, 0 sinon
+	 */
+	public static int notesFilmTest (SocialNetwork sn, String titre, float moyenneAttendue, float minAttendue, float maxAttendue, String idTest, String messErreur){
+		try {
+			Item film = sn.consulterItems(titre).get(0).getItem();
+			float moyenne = film.moyenneNotesReview();
+			float min = film.noteMin();
+			float max = film.noteMax();
+			// Float.compare considère NaN égal à lui-même
+			if (Float.compare(moyenne, moyenneAttendue) == 0 && Float.compare(min, minAttendue) == 0 && Float.compare(max, maxAttendue) == 0)
+				return 0;
+			System.out.println ("Test " + idTest + " : " + messErreur + " (moyenne " + moyenne + ", min " + min + ", max " + max + ")");
+			return 1;
+		}
+		catch (Exception e) {
+			System.out.println ("Test " + idTest + " : exception non prévue. " + e); 
+			e.printStackTrace();
+			return 1;
+		}
+	}
+
+
 	public static void main(String[] args) {
 
 		//================================= Déclarations =======================================
@@ -177,6 +211,12 @@ public class TestReviewItemFilm {
 		nbTests++;
 		nbErreurs += addReviewNotItem(sn, "Membre 1", "password", "La gransdfde vadrouille",2.5f, "", "6.5", "Ajout d'une review accepté avec un titre incorrect.");
 
+		// Notes d'un film sans review, puis d'un film dont une review a été modifiée (2.0 remplacé par 4.0)
+		nbTests++;
+		nbErreurs += notesFilmTest(sn, "Oblivion", 0.0f, Float.NaN, Float.NaN, "6.6", "Notes incorrectes pour un film sans review.");
+		nbTests++;
+		nbErreurs += notesFilmTest(sn, "La grande vadrouille", 3.5f, 3.0f, 4.0f, "6.7", "Notes incorrectes après modification d'une review.");
+
 		
 		
 		
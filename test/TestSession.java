@@ -0,0 +1,112 @@
+package test;
+
+import avis.ResultatReview;
+import avis.Session;
+import avis.SocialNetwork;
+import avis.Statut;
+import exception.NotMember;
+
+/** 
+ * @author Yann Andreu et Yannick Omnès
+ * @date mars 2015
+ * @version V1.0
+ */
+
+public class TestSession {
+
+
+	public static void main(String[] args) {
+
+		int nbTests = 0;
+		int nbErreurs = 0;
+
+		System.out.println("Tests des sessions");
+
+		try {
+			SocialNetwork sn = new SocialNetwork();
+			sn.addMember("Paul", "paul", "lecteur impulsif");
+			sn.addMember("Alice", "alice", "cinéphile");
+			sn.addItemFilm("Paul", "paul", "Oblivion", "SF", "Joseph Kosinski", "Joseph Kosinski", 124);
+
+			// Les opérations avec session ont le même effet que les opérations avec pseudo et password
+			Session paul = sn.login(" Paul ", "paul");
+			sn.addItemBook(paul, "Germinal", "Roman", "Emile Zola", 591);
+			nbTests++;
+			if (sn.nbBooks() != 1 || sn.reviewItemFilm(paul, "Oblivion", 4.0f, "bien") != 4.0f || sn.reviewItemBook(paul, "germinal", 2.0f, "dense") != 2.0f) {
+				System.out.println("Test 14.1 : les opérations avec session n'ont pas été effectuées");
+				nbErreurs++;
+			}
+
+			// Le pseudo est comparé sans ses leading et trailing blanks, y compris pour les reviews
+			nbTests++;
+			if (sn.reviewItemFilm(" Alice ", "alice", "Oblivion", 2.0f, "bof") != 3.0f) {
+				System.out.println("Test 14.2 : une review avec un pseudo entouré de blancs n'est pas authentifiée");
+				nbErreurs++;
+			}
+
+			nbTests++;
+			if (sn.tryLogin("Paul", "mauvais") != null || sn.tryLogin("Inconnu", "paul") != null) {
+				System.out.println("Test 14.3 : une session est ouverte sans authentification");
+				nbErreurs++;
+			}
+
+			// Une session fermée n'est plus acceptée
+			sn.logout(paul);
+			nbTests++;
+			try {
+				sn.reviewItemFilm(paul, "Oblivion", 5.0f, "revu");
+				System.out.println("Test 14.4 : une session fermée est acceptée");
+				nbErreurs++;
+			}
+			catch (NotMember e) {
+			}
+
+			// Sessions bornées : la plus ancienne est évincée
+			sn.configurerSessions(1, 60000);
+			Session s1 = sn.login("Paul", "paul");
+			Session s2 = sn.login("Alice", "alice");
+			nbTests++;
+			ResultatReview r1 = sn.tryReviewItemFilm(s1, "Oblivion", 5.0f, "revu");
+			ResultatReview r2 = sn.tryReviewItemFilm(s2, "Oblivion", 3.0f, "revu");
+			if (r1.getStatut() != Statut.SESSION_INVALIDE || r2.getStatut() != Statut.OK) {
+				System.out.println("Test 14.5 : la capacité des sessions n'est pas respectée (" + r1.getStatut() + ", " + r2.getStatut() + ")");
+				nbErreurs++;
+			}
+
+			// Sessions expirées
+			sn.configurerSessions(10, 1);
+			Session s3 = sn.login("Paul", "paul");
+			Thread.sleep(20);
+			nbTests++;
+			if (sn.tryAddItemBook(s3, "Nana", "Roman", "Emile Zola", 500) != Statut.SESSION_INVALIDE) {
+				System.out.println("Test 14.6 : une session expirée est acceptée");
+				nbErreurs++;
+			}
+
+			// Un jeton n'est valable que pour le SocialNetwork qui l'a délivré
+			SocialNetwork autre = new SocialNetwork();
+			autre.addMember("Paul", "paul", "homonyme");
+			Session etrangere = autre.login("Paul", "paul");
+			nbTests++;
+			if (sn.tryAddItemBook(etrangere, "Nana", "Roman", "Emile Zola", 500) != Statut.SESSION_INVALIDE) {
+				System.out.println("Test 14.7 : une session d'un autre SocialNetwork est acceptée");
+				nbErreurs++;
+			}
+		}
+		catch (Exception e) {
+			System.out.println ("Test 14 : exception non prévue. " + e); 
+			e.printStackTrace();
+			nbTests++;
+			nbErreurs++;
+		}
+
+		System.out.println("TestSession :   " + nbErreurs + " erreur(s) / " +  nbTests + " tests effectués");
+
+		if ((args != null) && (args.length == 2)) {        
+			nbTests = nbTests + new Integer(args[0]);
+			nbErreurs = nbErreurs + new Integer(args[1]);       
+			args[0] = "" + nbTests;
+			args[1] = "" + nbErreurs;
+		}
+	}
+}
@@ -21,6 +21,66 @@ public class TestSocialNetwork {
 
 	      TestReviewItemFilm.main(resultats);
 	      
+	      System.out.println("\n\n ***************************************\n");
+
+	      TestConcurrence.main(resultats);
+	      
+	      System.out.println("\n\n ***************************************\n");
+
+	      TestJournal.main(resultats);
+	      
+	      System.out.println("\n\n ***************************************\n");
+
+	      TestImport.main(resultats);
+	      
+	      System.out.println("\n\n ***************************************\n");
+
+	      TestStatut.main(resultats);
+	      
+	      System.out.println("\n\n ***************************************\n");
+
+	      TestSession.main(resultats);
+	      
+	      System.out.println("\n\n ***************************************\n");
+
+	      TestKarma.main(resultats);
+	      
+	      System.out.println("\n\n ***************************************\n");
+
+	      TestClassement.main(resultats);
+	      
+	      System.out.println("\n\n ***************************************\n");
+
+	      TestRecherche.main(resultats);
+	      
+	      System.out.println("\n\n ***************************************\n");
+
+	      TestCommentaires.main(resultats);
+	      
+	      System.out.println("\n\n ***************************************\n");
+
+	      TestFacette.main(resultats);
+	      
+	      System.out.println("\n\n ***************************************\n");
+
+	      TestPagination.main(resultats);
+	      
+	      System.out.println("\n\n ***************************************\n");
+
+	      TestCache.main(resultats);
+	      
+	      System.out.println("\n\n ***************************************\n");
+
+	      TestEvenements.main(resultats);
+	      
+	      System.out.println("\n\n ***************************************\n");
+
+	      TestMesures.main(resultats);
+	      
+	      System.out.println("\n\n ***************************************\n");
+
+	      TestColonnes.main(resultats);
+	      
 	      System.out.println("\n\n ***************************************\n");
 	      
 	      // .... d'autres appels à des tests
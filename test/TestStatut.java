@@ -0,0 +1,128 @@
+package test;
+
+import avis.ResultatReview;
+import avis.SocialNetwork;
+import avis.Statut;
+import exception.MemberAlreadyExists;
+import exception.NotItem;
+
+/** 
+ * @author Yann Andreu et Yannick Omnès
+ * @date mars 2015
+ * @version V1.0
+ */
+
+public class TestStatut {
+
+
+	/**
+	 * Vérifie le statut renvoyé par une variante try*
+	 */
+	public static int statutTest (Statut obtenu, Statut attendu, String idTest, String messErreur){
+		if (obtenu == attendu)
+			return 0;
+		System.out.println("Test " + idTest + " : " + messErreur + " (statut " + obtenu + ")");
+		return 1;
+	}
+
+
+	public static void main(String[] args) {
+
+		int nbTests = 0;
+		int nbErreurs = 0;
+
+		System.out.println("Tests des variantes sans exception");
+
+		try {
+			SocialNetwork sn = new SocialNetwork();
+
+			nbTests++;
+			nbErreurs += statutTest(sn.tryAddMember("Paul", "paul", "lecteur impulsif"), Statut.OK, "12.1", "l'ajout d'un membre correct est refusé");
+			nbTests++;
+			nbErreurs += statutTest(sn.tryAddMember(" pAul ", "autre", "doublon"), Statut.MEMBER_ALREADY_EXISTS, "12.2", "un pseudo existant (casse et blancs différents) est accepté");
+			nbTests++;
+			nbErreurs += statutTest(sn.tryAddItemFilm("Paul", "paul", "  ", "SF", "R", "S", 100), Statut.TITRE_INCORRECT, "12.3", "un titre vide est accepté");
+			nbTests++;
+			nbErreurs += statutTest(sn.tryAddItemBook("Paul", "mauvais", "Germinal", "Roman", "Emile Zola", 591), Statut.NOT_MEMBER, "12.4", "un livre ajouté avec un mauvais password est accepté");
+
+			sn.tryAddItemBook("Paul", "paul", "Germinal", "Roman", "Emile Zola", 591);
+			ResultatReview r = sn.tryReviewItemBook("Paul", "paul", "germinal ", 4.0f, "dense");
+			nbTests++;
+			if (r.getStatut() != Statut.OK || r.getMoyenne() != 4.0f) {
+				System.out.println("Test 12.5 : la review correcte n'a pas été déposée (statut " + r.getStatut() + ")");
+				nbErreurs++;
+			}
+			nbTests++;
+			nbErreurs += statutTest(sn.tryReviewItemFilm("Paul", "paul", "Germinal", 4.0f, "dense").getStatut(), Statut.FILM_INCONNU, "12.6", "une review sur un film inexistant est acceptée");
+
+			// Les blancs sont jugés comme par String.trim() dans toutes les opérations
+			nbTests++;
+			nbErreurs += statutTest(sn.tryAddMember("\t \n", "paul", "blanc"), Statut.PSEUDO_INCORRECT, "13.1", "un pseudo fait de blancs est accepté");
+			nbTests++;
+			nbErreurs += statutTest(sn.tryAddMember("Jean", " \tab\t ", "court"), Statut.PASSWORD_INCORRECT, "13.2", "un password de moins de 4 caractères significatifs est accepté");
+			nbTests++;
+			nbErreurs += statutTest(sn.tryReviewItemBook("Paul", "paul", "Germinal", Float.NaN, "?").getStatut(), Statut.NOTE_INCORRECTE, "13.3", "une note qui n'est pas un nombre est acceptée");
+
+			// L'API avec exceptions lève l'exception de la catégorie du statut, avec son message, sans pile en mode léger
+			sn.setPileAppelsExceptions(false);
+			nbTests++;
+			try {
+				sn.reviewItemFilm("Paul", "paul", "Germinal", 4.0f, "dense");
+				System.out.println("Test 12.7 : une review sur un film inexistant ne lève pas NotItem");
+				nbErreurs++;
+			}
+			catch (NotItem e) {
+				if (e.getStackTrace().length != 0 || !Statut.FILM_INCONNU.getMessage().equals(e.getMessage())) {
+					System.out.println("Test 12.7 : l'exception légère porte une pile d'appels ou un message inattendu");
+					nbErreurs++;
+				}
+			}
+
+			// En mode normal, l'exception garde sa pile d'appels et accepte des exceptions supprimées
+			sn.setPileAppelsExceptions(true);
+			nbTests++;
+			try {
+				sn.reviewItemFilm("Paul", "paul", "Germinal", 4.0f, "dense");
+				System.out.println("Test 12.8 : une review sur un film inexistant ne lève pas NotItem");
+				nbErreurs++;
+			}
+			catch (NotItem e) {
+				e.addSuppressed(new IllegalStateException("fermeture"));
+				if (e.getStackTrace().length == 0 || e.getSuppressed().length != 1) {
+					System.out.println("Test 12.8 : l'exception complète n'a pas de pile d'appels ou perd ses exceptions supprimées");
+					nbErreurs++;
+				}
+			}
+
+			// De même pour un doublon
+			nbTests++;
+			try {
+				sn.addMember(" paul ", "autre", "doublon");
+				System.out.println("Test 12.9 : un doublon de membre ne lève pas MemberAlreadyExists");
+				nbErreurs++;
+			}
+			catch (MemberAlreadyExists e) {
+				e.addSuppressed(new IllegalStateException("fermeture"));
+				if (e.getStackTrace().length == 0 || e.getSuppressed().length != 1) {
+					System.out.println("Test 12.9 : le doublon complet n'a pas de pile d'appels ou perd ses exceptions supprimées");
+					nbErreurs++;
+				}
+			}
+		}
+		catch (Exception e) {
+			System.out.println ("Test 12 : exception non prévue. " + e); 
+			e.printStackTrace();
+			nbTests++;
+			nbErreurs++;
+		}
+
+		System.out.println("TestStatut :   " + nbErreurs + " erreur(s) / " +  nbTests + " tests effectués");
+
+		if ((args != null) && (args.length == 2)) {        
+			nbTests = nbTests + new Integer(args[0]);
+			nbErreurs = nbErreurs + new Integer(args[1]);       
+			args[0] = "" + nbTests;
+			args[1] = "" + nbErreurs;
+		}
+	}
+}